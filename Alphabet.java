@@ -0,0 +1,197 @@
+package enigma;
+
+import java.util.Arrays;
+
+import static enigma.EnigmaException.error;
+
+/**
+ * An alphabet of encodable characters.  Provides a mapping from characters
+ * to and from indices into the alphabet.  Lookups go through a table built
+ * once at construction: a dense array when my characters span a small
+ * range, and a two-level page table otherwise.
+ *
+ * @author Shreyansh Loharuka
+ */
+class Alphabet {
+
+    /**
+     * A new alphabet containing CHARS.  Character number #k has index
+     * K (numbering from 0). No character may be duplicated.
+     */
+    Alphabet(String chars) {
+        if (chars.length() == 0) {
+            throw error("Alphabet is empty!");
+        }
+        _chars = chars;
+        _table = chars.toCharArray();
+        char min = Character.MAX_VALUE, max = Character.MIN_VALUE;
+        for (char c : _table) {
+            if (c == '*' || c == '(' || c == ')'
+                    || Character.isWhitespace(c)) {
+                throw error("Invalid character '%c' in alphabet!", c);
+            }
+            min = (char) Math.min(min, c);
+            max = (char) Math.max(max, c);
+        }
+        _base = min;
+        _singleByte = max <= MAX_BYTE_CHAR;
+        int range = max - min + 1;
+        _bits = new long[(range + 63) >>> 6];
+        if (range <= Math.max(DENSE_RANGE, 4 * _table.length)) {
+            _dense = new int[range];
+            Arrays.fill(_dense, -1);
+        } else {
+            _pages = new int[PAGES][];
+        }
+        for (int i = 0; i < _table.length; i++) {
+            char c = _table[i];
+            if (contains(c)) {
+                throw error("Duplicate character '%c' in alphabet!", c);
+            }
+            int k = c - _base;
+            _bits[k >>> 6] |= 1L << k;
+            if (_dense != null) {
+                _dense[k] = i;
+            } else {
+                int[] page = _pages[c >>> 8];
+                if (page == null) {
+                    page = new int[PAGE_SIZE];
+                    Arrays.fill(page, -1);
+                    _pages[c >>> 8] = page;
+                }
+                page[c & (PAGE_SIZE - 1)] = i;
+            }
+        }
+    }
+
+    /**
+     * A default alphabet of all upper-case characters.
+     */
+    Alphabet() {
+        this("ABCDEFGHIJKLMNOPQRSTUVWXYZ");
+    }
+
+    /**
+     * Returns the size of the alphabet.
+     */
+    int size() {
+        return _table.length;
+    }
+
+    /**
+     * Returns true if CH is in this alphabet.
+     */
+    boolean contains(char ch) {
+        int k = ch - _base;
+        return k >= 0 && (k >>> 6) < _bits.length
+                && (_bits[k >>> 6] & (1L << k)) != 0;
+    }
+
+    /**
+     * Returns character number INDEX in the alphabet, where
+     * 0 <= INDEX < size().
+     */
+    char toChar(int index) {
+        if (index < 0 || index >= _table.length) {
+            throw error("Index %d out of range of alphabet!", index);
+        }
+        return _table[index];
+    }
+
+    /**
+     * Returns the index of character CH, which must be in the alphabet.
+     * This is an inverse of toChar().
+     */
+    int toInt(char ch) {
+        int index = indexOf(ch);
+        if (index < 0) {
+            throw error("Character '%c' not in alphabet!", ch);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the index of character CH, or -1 if it is not in the
+     * alphabet.
+     */
+    int indexOf(char ch) {
+        if (!contains(ch)) {
+            return -1;
+        }
+        if (_dense != null) {
+            return _dense[ch - _base];
+        }
+        return _pages[ch >>> 8][ch & (PAGE_SIZE - 1)];
+    }
+
+    /**
+     * Returns true if every character of this alphabet has a code that
+     * fits in one byte, so that bytes may stand for its characters.
+     */
+    boolean singleByte() {
+        return _singleByte;
+    }
+
+    /**
+     * Returns the characters of this alphabet, in order.
+     */
+    String chars() {
+        return _chars;
+    }
+
+    /**
+     * Widest character range for which a dense table is always used.
+     */
+    private static final int DENSE_RANGE = 256;
+
+    /**
+     * Largest character code that fits in one byte.
+     */
+    static final char MAX_BYTE_CHAR = 0xFF;
+
+    /**
+     * Number of characters covered by one page of the sparse table.
+     */
+    private static final int PAGE_SIZE = 256;
+
+    /**
+     * Number of pages needed to cover every char value.
+     */
+    private static final int PAGES = (Character.MAX_VALUE + 1) / PAGE_SIZE;
+
+    /**
+     * My characters, as given.
+     */
+    private final String _chars;
+
+    /**
+     * My characters, indexed by position.
+     */
+    private final char[] _table;
+
+    /**
+     * Smallest character in me; offset of _bits and _dense.
+     */
+    private final char _base;
+
+    /**
+     * True iff every character in me fits in one byte.
+     */
+    private final boolean _singleByte;
+
+    /**
+     * Membership bitmap over the characters _base and up.
+     */
+    private final long[] _bits;
+
+    /**
+     * Index of each character _base + k at k, or -1, when dense.
+     */
+    private int[] _dense;
+
+    /**
+     * Sparse index table, addressed by high byte and then low byte.
+     */
+    private int[][] _pages;
+
+}
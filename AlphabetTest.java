@@ -0,0 +1,83 @@
+package enigma;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The suite of all JUnit tests for the Alphabet class.
+ *
+ * @author Shreyansh Loharuka
+ */
+public class AlphabetTest {
+
+    /**
+     * Testing time limit.
+     */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /**
+     * Check that ALPHABET maps each character of CHARS to its index and
+     * back, and rejects the characters of MISSING.
+     */
+    private void checkAlphabet(Alphabet alphabet, String chars,
+                               String missing) {
+        assertEquals(chars.length(), alphabet.size());
+        assertEquals(chars, alphabet.chars());
+        for (int i = 0; i < chars.length(); i++) {
+            char c = chars.charAt(i);
+            assertTrue(alphabet.contains(c));
+            assertEquals(i, alphabet.toInt(c));
+            assertEquals(c, alphabet.toChar(i));
+        }
+        for (char c : missing.toCharArray()) {
+            assertFalse(alphabet.contains(c));
+            assertEquals(-1, alphabet.indexOf(c));
+        }
+    }
+
+    @Test
+    public void testDefault() {
+        checkAlphabet(new Alphabet(), TestUtils.UPPER_STRING, "az@[0");
+    }
+
+    @Test
+    public void testDense() {
+        checkAlphabet(new Alphabet("QWERTYuiop1234"), "QWERTYuiop1234",
+                "qAZ05\u00e9");
+    }
+
+    @Test
+    public void testSparse() {
+        String chars = "A\u00e9\u0416\u4e2d\uffef";
+        checkAlphabet(new Alphabet(chars), chars, "B\u00e8\u4e2e\ufff0");
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testDuplicate() {
+        new Alphabet("ABCA");
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testInvalidCharacter() {
+        new Alphabet("AB(C");
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testMissingCharacter() {
+        new Alphabet().toInt('a');
+    }
+
+    @Test
+    public void testSingleByte() {
+        assertTrue(new Alphabet().singleByte());
+        assertTrue(new Alphabet("az\u00ff").singleByte());
+        assertFalse(new Alphabet("az\u0100").singleByte());
+    }
+
+}
@@ -0,0 +1,366 @@
+package enigma;
+
+import java.util.Arrays;
+
+import static enigma.EnigmaException.error;
+
+/**
+ * Converts many independent messages at once, each with a machine state
+ * of its own, advancing all of them one keystroke at a time.  Each pass
+ * through a rotor slot is made for every stream before the next slot, so
+ * the chains of table lookups of different streams, which do not depend
+ * on each other, overlap instead of each waiting on its own.  All state
+ * and tables are kept in flat arrays, slot by slot across streams, and
+ * are copied from the RotorTables of each machine.  The results, and
+ * the positions the streams are left at, are those of converting each
+ * message on its own machine.
+ *
+ * @author Shreyansh Loharuka
+ */
+final class BatchConverter {
+
+    /**
+     * A converter with one stream for each of MACHINES, in its current
+     * state.  The machines must have alphabets of the same size and the
+     * same number of rotor slots; later changes to them do not affect
+     * me.
+     */
+    BatchConverter(Machine... machines) {
+        if (machines.length == 0) {
+            throw error("A batch needs at least one machine");
+        }
+        _streams = machines.length;
+        _alphabets = new Alphabet[_streams];
+        _tables = new RotorTables[_streams];
+        CompiledMachine first = machines[0].compile();
+        _size = first.tables().size();
+        _slots = first.tables().slots();
+        int n = _size, streams = _streams;
+        _forward = new int[_slots * streams * n];
+        _backward = new int[_slots * streams * n];
+        _notch = new boolean[_slots * streams * n];
+        _rotates = new boolean[_slots * streams];
+        _doubleSteps = new boolean[_slots * streams];
+        _offset = new int[_slots * streams];
+        _plugForward = new int[streams * n];
+        _plugBackward = new int[streams * n];
+        _position = new int[_slots * streams];
+        _shift = new int[_slots * streams];
+        for (int s = 0; s < streams; s++) {
+            CompiledMachine engine = s == 0 ? first : machines[s].compile();
+            RotorTables tables = engine.tables();
+            if (_size != tables.size() || _slots != tables.slots()) {
+                throw error("Machines in a batch must have alphabets of"
+                        + " the same size and the same number of rotors");
+            }
+            _alphabets[s] = machines[s].alphabet();
+            _tables[s] = tables;
+            int[] pos = new int[_slots];
+            for (int i = 0; i < _slots; i++) {
+                int at = i * streams + s;
+                System.arraycopy(tables.forward(), i * n, _forward,
+                        at * n, n);
+                System.arraycopy(tables.backward(), i * n, _backward,
+                        at * n, n);
+                System.arraycopy(tables.notch(), i * n, _notch, at * n, n);
+                _rotates[at] = tables.rotates()[i];
+                _doubleSteps[at] = tables.doubleSteps()[i];
+                _offset[at] = tables.offset(i);
+                pos[i] = engine.position(i);
+            }
+            System.arraycopy(tables.plugForward(), 0, _plugForward,
+                    s * n, n);
+            System.arraycopy(tables.plugBackward(), 0, _plugBackward,
+                    s * n, n);
+            setPositions(s, pos);
+        }
+        _c = new int[streams];
+    }
+
+    /**
+     * Return the number of streams I convert.
+     */
+    int streams() {
+        return _streams;
+    }
+
+    /**
+     * Return the current position of the rotor in SLOT of STREAM, as an
+     * index into its alphabet.
+     */
+    int position(int stream, int slot) {
+        return _position[slot * _streams + stream];
+    }
+
+    /**
+     * Move the rotors of STREAM to where they would be after converting
+     * N more characters, without converting them.
+     */
+    void seek(int stream, long n) {
+        int[] pos = new int[_slots];
+        for (int i = 0; i < _slots; i++) {
+            pos[i] = _position[i * _streams + stream];
+        }
+        _tables[stream].seek(pos, new int[_slots], n);
+        setPositions(stream, pos);
+    }
+
+    /**
+     * Set the positions of the rotors of STREAM to POS, one per slot.
+     */
+    private void setPositions(int stream, int[] pos) {
+        for (int i = 0; i < _slots; i++) {
+            int shift = pos[i] - _offset[i * _streams + stream];
+            _position[i * _streams + stream] = pos[i];
+            _shift[i * _streams + stream] = shift < 0 ? shift + _size
+                    : shift;
+        }
+    }
+
+    /**
+     * Return the conversions of MESSAGES, one per stream, as
+     * Machine.convert(String) would give them on each stream's machine:
+     * spaces are kept in place and any other character outside the
+     * stream's alphabet is an error.
+     */
+    String[] convert(String... messages) {
+        checkCount(messages.length);
+        int[][] indices = new int[_streams][];
+        for (int s = 0; s < _streams; s++) {
+            String msg = messages[s];
+            int[] msgIndices = new int[msg.length()];
+            int len = 0;
+            for (int i = 0; i < msg.length(); i++) {
+                char ch = msg.charAt(i);
+                if (ch != ' ') {
+                    int c = _alphabets[s].indexOf(ch);
+                    if (c < 0) {
+                        throw new EnigmaException("Message Character"
+                                + " not in alphabet!");
+                    }
+                    msgIndices[len++] = c;
+                }
+            }
+            indices[s] = Arrays.copyOf(msgIndices, len);
+        }
+        int[][] converted = convert(indices);
+        String[] result = new String[_streams];
+        for (int s = 0; s < _streams; s++) {
+            char[] chars = messages[s].toCharArray();
+            for (int i = 0, k = 0; i < chars.length; i++) {
+                if (chars[i] != ' ') {
+                    chars[i] = _alphabets[s].toChar(converted[s][k++]);
+                }
+            }
+            result[s] = new String(chars);
+        }
+        return result;
+    }
+
+    /**
+     * Return the conversions of MESSAGES, one sequence of alphabet
+     * indices per stream, advancing each stream by the length of its
+     * message.
+     */
+    int[][] convert(int[][] messages) {
+        checkCount(messages.length);
+        Integer[] byLength = new Integer[_streams];
+        int[][] results = new int[_streams][];
+        for (int s = 0; s < _streams; s++) {
+            for (int c : messages[s]) {
+                if (c < 0 || c >= _size) {
+                    throw error("Index %d out of range of alphabet!", c);
+                }
+            }
+            byLength[s] = s;
+            results[s] = new int[messages[s].length];
+        }
+        Arrays.sort(byLength,
+                (a, b) -> messages[b].length - messages[a].length);
+        int[] order = new int[_streams];
+        for (int j = 0; j < _streams; j++) {
+            order[j] = byLength[j];
+        }
+        int active = _streams;
+        for (int k = 0; active > 0; k++) {
+            while (active > 0 && messages[order[active - 1]].length <= k) {
+                active -= 1;
+            }
+            if (active > 0) {
+                keystroke(messages, results, k, order, active);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Convert character K of MESSAGES into RESULTS for the first ACTIVE
+     * streams listed in ORDER, after advancing their rotors.
+     */
+    private void keystroke(int[][] messages, int[][] results, int k,
+                           int[] order, int active) {
+        final int n = _size;
+        final int streams = _streams;
+        final int[] c = _c;
+        step(order, active);
+        for (int j = 0; j < active; j++) {
+            int s = order[j];
+            c[j] = _plugForward[s * n + messages[s][k]];
+        }
+        for (int i = _slots - 1; i >= 0; i--) {
+            for (int j = 0; j < active; j++) {
+                int at = i * streams + order[j];
+                int x = _shift[at];
+                int e = c[j] + x;
+                if (e >= n) {
+                    e -= n;
+                }
+                e = _forward[at * n + e] - x;
+                c[j] = e < 0 ? e + n : e;
+            }
+        }
+        for (int i = 1; i < _slots; i++) {
+            for (int j = 0; j < active; j++) {
+                int at = i * streams + order[j];
+                int x = _shift[at];
+                int e = c[j] + x;
+                if (e >= n) {
+                    e -= n;
+                }
+                e = _backward[at * n + e] - x;
+                c[j] = e < 0 ? e + n : e;
+            }
+        }
+        for (int j = 0; j < active; j++) {
+            int s = order[j];
+            results[s][k] = _plugBackward[s * n + c[j]];
+        }
+    }
+
+    /**
+     * Advance the rotors of the first ACTIVE streams listed in ORDER as
+     * their machines do before each character.  Slots are visited left
+     * to right, so that every test sees the positions from before this
+     * step.
+     */
+    private void step(int[] order, int active) {
+        final int n = _size;
+        final int streams = _streams;
+        final int last = _slots - 1;
+        for (int i = 1; i <= last; i++) {
+            for (int j = 0; j < active; j++) {
+                int at = i * streams + order[j];
+                if (!_rotates[at]) {
+                    continue;
+                }
+                if (i == last
+                        || _notch[(at + streams) * n + _position[at + streams]]
+                        || (_doubleSteps[at]
+                            && _notch[at * n + _position[at]])) {
+                    if (++_position[at] == n) {
+                        _position[at] = 0;
+                    }
+                    if (++_shift[at] == n) {
+                        _shift[at] = 0;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Check that COUNT messages were given, one for each stream.
+     */
+    private void checkCount(int count) {
+        if (count != _streams) {
+            throw error("Expected %d messages, got %d", _streams, count);
+        }
+    }
+
+    /**
+     * Number of streams.
+     */
+    private final int _streams;
+
+    /**
+     * Size of the alphabets.
+     */
+    private final int _size;
+
+    /**
+     * Number of rotor slots.
+     */
+    private final int _slots;
+
+    /**
+     * Alphabet of each stream.
+     */
+    private final Alphabet[] _alphabets;
+
+    /**
+     * Wiring at position 0 of slot i of stream s, at (i * _streams + s)
+     * * _size.
+     */
+    private final int[] _forward;
+
+    /**
+     * Inverse wiring at position 0 of slot i of stream s, at (i *
+     * _streams + s) * _size.
+     */
+    private final int[] _backward;
+
+    /**
+     * _notch[(i * _streams + s) * _size + k] is true iff slot i of
+     * stream s has a notch at k.
+     */
+    private final boolean[] _notch;
+
+    /**
+     * Whether the rotor in slot i of stream s can move, at i * _streams
+     * + s.
+     */
+    private final boolean[] _rotates;
+
+    /**
+     * Whether the rotor in slot i of stream s moves when it is at a
+     * notch, at i * _streams + s.
+     */
+    private final boolean[] _doubleSteps;
+
+    /**
+     * Ring setting of slot i of stream s, at i * _streams + s.
+     */
+    private final int[] _offset;
+
+    /**
+     * Plugboard of stream s applied on the way in, at s * _size.
+     */
+    private final int[] _plugForward;
+
+    /**
+     * Plugboard of stream s applied on the way out, at s * _size.
+     */
+    private final int[] _plugBackward;
+
+    /**
+     * Tables of each stream's machine, used by seek().
+     */
+    private final RotorTables[] _tables;
+
+    /**
+     * Current setting of slot i of stream s, at i * _streams + s.
+     */
+    private final int[] _position;
+
+    /**
+     * Current setting minus ring setting of slot i of stream s, at i *
+     * _streams + s.
+     */
+    private final int[] _shift;
+
+    /**
+     * Character in flight in each active stream during a keystroke.
+     */
+    private final int[] _c;
+
+}
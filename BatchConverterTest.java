@@ -0,0 +1,127 @@
+package enigma;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.Random;
+
+import static enigma.TestUtils.*;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The suite of all JUnit tests for the BatchConverter class.
+ *
+ * @author Shreyansh Loharuka
+ */
+public class BatchConverterTest {
+
+    /**
+     * Testing time limit.
+     */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /**
+     * Rotor orders used by the machines of the tests.
+     */
+    private static final String[][] ORDERS = {
+        {"B", "Beta", "III", "IV", "I"}, {"C", "Gamma", "II", "I", "III"},
+        {"B", "Gamma", "VI", "VII", "VIII"}, {"C", "Beta", "V", "IV", "II"},
+    };
+
+    /**
+     * Return COUNT naval machines with various rotors, settings, ring
+     * settings and plugboards drawn from RANDOM.
+     */
+    private Machine[] machines(int count, Random random) {
+        Machine[] machines = new Machine[count];
+        for (int s = 0; s < count; s += 1) {
+            machines[s] = navalMachine(ORDERS[s % ORDERS.length],
+                    randomMessage(random, 4), randomMessage(random, 4),
+                    s % 3 == 0 ? "" : "(HQ) (EX) (IP) (TR) (BY)");
+        }
+        return machines;
+    }
+
+    @Test
+    public void testSameAsMachines() {
+        Random random = new Random(21);
+        Machine[] machines = machines(13, random);
+        BatchConverter batch = new BatchConverter(machines);
+        for (int round = 0; round < 3; round += 1) {
+            String[] messages = new String[machines.length];
+            for (int s = 0; s < machines.length; s += 1) {
+                messages[s] = randomMessage(random, random.nextInt(800));
+            }
+            messages[round] = "";
+            messages[round + 1] = "HELLO WORLD  ";
+            String[] converted = batch.convert(messages);
+            for (int s = 0; s < machines.length; s += 1) {
+                assertEquals("stream " + s, machines[s].convert(messages[s]),
+                        converted[s]);
+                for (int i = 1; i < 5; i += 1) {
+                    Rotor rotor = machines[s].rotorSlots()[i];
+                    assertEquals(rotor.permutation().wrap(rotor.setting()),
+                            batch.position(s, i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testIndices() {
+        Machine machine = navalMachine(
+                new String[]{"B", "Beta", "I", "II", "III"}, "AAAA", "AAAA",
+                "");
+        Machine other = navalMachine(ORDERS[1], "QEVZ", "BKZA", "(AB)");
+        BatchConverter batch = new BatchConverter(machine, other);
+        int[][] converted = batch.convert(new int[][]{{7, 4, 11, 11, 14},
+            {}});
+        assertArrayEquals(new int[]{8, 11, 1, 3, 0}, converted[0]);
+        assertEquals(0, converted[1].length);
+        assertEquals(2, batch.streams());
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testSeekBackwards() {
+        new BatchConverter(machines(2, new Random(23))).seek(1, -1);
+    }
+
+    @Test
+    public void testSeek() {
+        Random random = new Random(22);
+        Machine[] machines = machines(4, random);
+        BatchConverter batch = new BatchConverter(machines);
+        String msg = randomMessage(random, 700);
+        batch.seek(2, 700);
+        machines[2].convert(msg);
+        String next = randomMessage(random, 50);
+        assertEquals(machines[2].convert(next),
+                batch.convert("", "", next, "")[2]);
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testBadCharacter() {
+        Machine machine = navalMachine(ORDERS[0], "AAAA", "AAAA", "");
+        new BatchConverter(machine).convert("HELLO, WORLD");
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testWrongCount() {
+        Machine machine = navalMachine(ORDERS[0], "AAAA", "AAAA", "");
+        new BatchConverter(machine, machine).convert("HELLO");
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testMismatchedMachines() {
+        Machine machine = navalMachine(ORDERS[0], "AAAA", "AAAA", "");
+        Machine small = new Machine(UPPER, 3, 2,
+                navalMachine(NAVAL_NOTCHES).catalog());
+        small.insertRotors(new String[]{"B", "I", "II"});
+        small.setRotors("AA");
+        new BatchConverter(machine, small);
+    }
+
+}
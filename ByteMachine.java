@@ -0,0 +1,471 @@
+package enigma;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CoderResult;
+
+import static enigma.ByteRotor.MASK;
+import static enigma.ByteRotor.SIZE;
+import static enigma.EnigmaException.error;
+
+/**
+ * A machine whose alphabet is the 256 byte values, for enciphering
+ * binary data.  Its rotors step as those of a Machine do, double
+ * stepping included, but its tables are of bytes, and with 256
+ * positions every wrap-around is a mask.  The fast and middle rotors
+ * have a table for each of their 256 shifts, the fast one's including
+ * the plugboard, and the slots to the left of the middle rotor, which
+ * move only once every revolution of the middle one, are composed into
+ * a single table, rebuilt whenever one of them moves.  So each byte
+ * takes five lookups, and bytes are converted in runs between the
+ * notches of the fast rotor with no test for stepping.
+ *
+ * @author Shreyansh Loharuka
+ */
+final class ByteMachine {
+
+    /**
+     * A machine holding ROTORS, leftmost first, at positions 0 with ring
+     * settings 0 and no plugboard.  The first must be a reflector, and
+     * there must be at least two other rotors, none of them a
+     * reflector.
+     */
+    ByteMachine(ByteRotor... rotors) {
+        if (rotors.length < 3) {
+            throw error("A byte machine needs a reflector and at least"
+                    + " two other rotors");
+        }
+        if (rotors[0].kind() != 'R') {
+            throw error("The leftmost rotor must be a reflecting rotor!");
+        }
+        _slots = rotors.length;
+        _forward = new byte[_slots * SIZE];
+        _backward = new byte[_slots * SIZE];
+        _notch = new boolean[_slots * SIZE];
+        _rotates = new boolean[_slots];
+        _doubleSteps = new boolean[_slots];
+        boolean[][] notch = new boolean[_slots][];
+        for (int i = 0; i < _slots; i++) {
+            if (i > 0 && rotors[i].kind() == 'R') {
+                throw error("Only the leftmost rotor may reflect");
+            }
+            notch[i] = new boolean[SIZE];
+            for (int k = 0; k < SIZE; k++) {
+                _forward[i * SIZE + k] = (byte) rotors[i].permute(k);
+                _backward[i * SIZE + k] = (byte) rotors[i].invert(k);
+                notch[i][k] = rotors[i].isNotch(k);
+                _notch[i * SIZE + k] = notch[i][k];
+            }
+            _rotates[i] = rotors[i].rotates();
+            _doubleSteps[i] = i > 0 && _rotates[i] && _rotates[i - 1];
+        }
+        _odometer = new Odometer(_rotates, notch);
+        _position = new int[_slots];
+        _offset = new int[_slots];
+        _shift = new int[_slots];
+        _slow = new byte[SIZE];
+        _gaps = new int[SIZE];
+        for (int p = 0; p < SIZE; p++) {
+            _gaps[p] = Integer.MAX_VALUE;
+            for (int j = 1; j <= SIZE; j++) {
+                if (_notch[(_slots - 1) * SIZE + ((p + j) & MASK)]) {
+                    _gaps[p] = j;
+                    break;
+                }
+            }
+        }
+        _midIn = new byte[SIZE * SIZE];
+        _midOut = new byte[SIZE * SIZE];
+        int mid = _slots - 2;
+        for (int x = 0; x < SIZE; x++) {
+            for (int k = 0; k < SIZE; k++) {
+                _midIn[x * SIZE + k] = (byte) (_forward[mid * SIZE
+                        + ((k + x) & MASK)] - x);
+                _midOut[x * SIZE + k] = (byte) (_backward[mid * SIZE
+                        + ((k + x) & MASK)] - x);
+            }
+        }
+        setPlugboard(null);
+        reset();
+    }
+
+    /**
+     * A machine in the same state as OTHER.  The two share their
+     * read-only tables, but convert independently.
+     */
+    ByteMachine(ByteMachine other) {
+        _slots = other._slots;
+        _forward = other._forward;
+        _backward = other._backward;
+        _notch = other._notch;
+        _rotates = other._rotates;
+        _doubleSteps = other._doubleSteps;
+        _odometer = other._odometer;
+        _offset = other._offset.clone();
+        _gaps = other._gaps;
+        _midIn = other._midIn;
+        _midOut = other._midOut;
+        _fastIn = other._fastIn;
+        _fastOut = other._fastOut;
+        _position = other._position.clone();
+        _shift = other._shift.clone();
+        _slow = other._slow.clone();
+        _armed = other._armed;
+    }
+
+    /**
+     * Set the rotors in slots 1 and up to POSITIONS, one byte value per
+     * slot.
+     */
+    void setPositions(int... positions) {
+        check(positions);
+        System.arraycopy(positions, 0, _position, 1, _slots - 1);
+        reset();
+    }
+
+    /**
+     * Set the ring settings of the rotors in slots 1 and up to RINGS, one
+     * byte value per slot.
+     */
+    void setRings(int... rings) {
+        check(rings);
+        System.arraycopy(rings, 0, _offset, 1, _slots - 1);
+        reset();
+    }
+
+    /**
+     * Set my plugboard to WIRING, a permutation of the byte values taking
+     * k to WIRING[k], or remove it if WIRING is null.
+     */
+    void setPlugboard(byte[] wiring) {
+        ByteRotor plugboard = wiring == null ? null
+                : new ByteRotor(wiring, new int[0], 'N');
+        final int last = _slots - 1;
+        byte[] fastIn = new byte[SIZE * SIZE];
+        byte[] fastOut = new byte[SIZE * SIZE];
+        for (int k = 0; k < SIZE; k++) {
+            int in = plugboard == null ? k : plugboard.permute(k);
+            for (int x = 0; x < SIZE; x++) {
+                int c = _forward[last * SIZE + ((in + x) & MASK)] - x;
+                fastIn[x * SIZE + k] = (byte) c;
+                c = (_backward[last * SIZE + ((k + x) & MASK)] - x) & MASK;
+                fastOut[x * SIZE + k] = (byte) (plugboard == null ? c
+                        : plugboard.invert(c));
+            }
+        }
+        _fastIn = fastIn;
+        _fastOut = fastOut;
+    }
+
+    /**
+     * Move my rotors to where they would be after converting N more
+     * bytes, without converting them.  N may not be negative.
+     */
+    void seek(long n) {
+        _odometer.seek(_position, n);
+        reset();
+    }
+
+    /**
+     * Returns the result of converting the byte value B, after first
+     * advancing the machine.
+     */
+    int convert(int b) {
+        byte[] one = { (byte) b };
+        convert(one, 0, 1, one, 0);
+        return one[0] & MASK;
+    }
+
+    /**
+     * Convert the LEN bytes of SRC starting at SRCOFF into DST starting
+     * at DSTOFF.  SRC and DST may be the same array, and the bytes may
+     * be converted in place.
+     */
+    void convert(byte[] src, int srcOff, int len, byte[] dst, int dstOff) {
+        if ((srcOff | dstOff | len) < 0 || srcOff + len > src.length
+                || dstOff + len > dst.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        final byte[] fastIn = _fastIn, fastOut = _fastOut;
+        final byte[] midIn = _midIn, midOut = _midOut;
+        final byte[] slow = _slow;
+        final boolean[] notch = _notch;
+        final int last = _slots - 1, mid = last - 1;
+        final int fastBase = last * SIZE;
+        final boolean fastRotates = _rotates[last];
+        final boolean midRotates = _rotates[mid];
+        int pf = _position[last], xf = _shift[last], xm = _shift[mid];
+        boolean pending = pending();
+        int i = 0;
+        while (i < len) {
+            int run, step;
+            if (pending || (midRotates && notch[fastBase + pf])) {
+                _position[last] = pf;
+                _shift[last] = xf;
+                stepAll();
+                pf = _position[last];
+                xf = _shift[last];
+                xm = _shift[mid];
+                pending = pending();
+                run = 1;
+                step = 0;
+            } else {
+                run = Math.min(len - i, midRotates ? _gaps[pf] : len);
+                step = fastRotates ? 1 : 0;
+                pf = (pf + run * step) & MASK;
+            }
+            for (int end = i + run; i < end; i++) {
+                xf = (xf + step) & MASK;
+                int c = fastIn[(xf << SHIFT) | (src[srcOff + i] & MASK)]
+                        & MASK;
+                c = midIn[(xm << SHIFT) | c] & MASK;
+                c = slow[c] & MASK;
+                c = midOut[(xm << SHIFT) | c] & MASK;
+                dst[dstOff + i] = fastOut[(xf << SHIFT) | c];
+            }
+        }
+        _position[last] = pf;
+        _shift[last] = xf;
+    }
+
+    /**
+     * Convert BYTES in place.
+     */
+    void convert(byte[] bytes) {
+        convert(bytes, 0, bytes.length, bytes, 0);
+    }
+
+    /**
+     * Convert the bytes remaining in SRC into DST, advancing the
+     * positions of both, and report why I stopped as
+     * CharsetEncoder.encode does: UNDERFLOW once SRC is used up and
+     * OVERFLOW if DST is full first.  Every byte is in my alphabet, so
+     * there is no other result.  Heap buffers are converted through
+     * their arrays; other buffers through a buffer of fixed size.
+     */
+    CoderResult convert(ByteBuffer src, ByteBuffer dst) {
+        int n = Math.min(src.remaining(), dst.remaining());
+        if (src.hasArray() && dst.hasArray()) {
+            convert(src.array(), src.arrayOffset() + src.position(), n,
+                    dst.array(), dst.arrayOffset() + dst.position());
+            src.position(src.position() + n);
+            dst.position(dst.position() + n);
+        } else {
+            byte[] buffer = new byte[Math.min(n, BUFFER_SIZE)];
+            while (n > 0) {
+                int k = Math.min(n, buffer.length);
+                src.get(buffer, 0, k);
+                convert(buffer, 0, k, buffer, 0);
+                dst.put(buffer, 0, k);
+                n -= k;
+            }
+        }
+        return src.hasRemaining() ? CoderResult.OVERFLOW
+                : CoderResult.UNDERFLOW;
+    }
+
+    /**
+     * Return true iff a rotor left of the fast one moves on the next step
+     * whatever the position of the fast one: one left of the middle
+     * rotor, or the middle one by its double step.
+     */
+    private boolean pending() {
+        final int mid = _slots - 2;
+        return _armed || (_doubleSteps[mid]
+                && _notch[mid * SIZE + _position[mid]]);
+    }
+
+    /**
+     * Advance all my rotors as the machine does before each character,
+     * rebuilding my composed table if a rotor left of the middle one
+     * moves.  Slots are visited left to right so that every test sees
+     * the positions from before this step.
+     */
+    private void stepAll() {
+        final int last = _slots - 1;
+        boolean slowMoved = false;
+        for (int i = 1; i <= last; i++) {
+            if (!_rotates[i]) {
+                continue;
+            }
+            if (i == last || _notch[(i + 1) * SIZE + _position[i + 1]]
+                    || (_doubleSteps[i] && _notch[i * SIZE + _position[i]])) {
+                _position[i] = (_position[i] + 1) & MASK;
+                _shift[i] = (_shift[i] + 1) & MASK;
+                slowMoved |= i < last - 1;
+            }
+        }
+        if (slowMoved) {
+            compose();
+        } else {
+            arm();
+        }
+    }
+
+    /**
+     * Recompute my shifts and composed table from my positions and ring
+     * settings.
+     */
+    private void reset() {
+        for (int i = 0; i < _slots; i++) {
+            _shift[i] = (_position[i] - _offset[i]) & MASK;
+        }
+        compose();
+    }
+
+    /**
+     * Rebuild _slow, the conversion through the slots left of the middle
+     * one and back at their current positions, and re-arm.
+     */
+    private void compose() {
+        final int mid = _slots - 2;
+        for (int k = 0; k < SIZE; k++) {
+            int c = k;
+            for (int i = mid - 1; i >= 0; i--) {
+                int x = _shift[i];
+                c = (_forward[i * SIZE + ((c + x) & MASK)] - x) & MASK;
+            }
+            for (int i = 1; i < mid; i++) {
+                int x = _shift[i];
+                c = (_backward[i * SIZE + ((c + x) & MASK)] - x) & MASK;
+            }
+            _slow[k] = (byte) c;
+        }
+        arm();
+    }
+
+    /**
+     * Set _armed iff a rotor left of the middle one moves on the next
+     * step.  Only moves of the middle rotor or those to its left can
+     * change this.
+     */
+    private void arm() {
+        final int mid = _slots - 2;
+        _armed = false;
+        for (int i = 1; i < mid; i++) {
+            _armed |= _rotates[i]
+                    && (_notch[(i + 1) * SIZE + _position[i + 1]]
+                        || (_doubleSteps[i]
+                            && _notch[i * SIZE + _position[i]]));
+        }
+    }
+
+    /**
+     * Check that VALUES holds a byte value for each slot but the
+     * reflector.
+     */
+    private void check(int[] values) {
+        if (values.length != _slots - 1) {
+            throw error("Expected %d settings, got %d", _slots - 1,
+                    values.length);
+        }
+        for (int v : values) {
+            if (v < 0 || v >= SIZE) {
+                throw error("Setting %d out of range of byte values", v);
+            }
+        }
+    }
+
+    /**
+     * Most bytes of a direct buffer converted at once.
+     */
+    static final int BUFFER_SIZE = 1 << 13;
+
+    /**
+     * Log2 of SIZE.
+     */
+    private static final int SHIFT = 8;
+
+    /**
+     * Number of rotor slots.
+     */
+    private final int _slots;
+
+    /**
+     * Wiring of slot i at position 0, at i * SIZE.
+     */
+    private final byte[] _forward;
+
+    /**
+     * Inverse wiring of slot i at position 0, at i * SIZE.
+     */
+    private final byte[] _backward;
+
+    /**
+     * _notch[i * SIZE + k] is true iff slot i has a notch at k.
+     */
+    private final boolean[] _notch;
+
+    /**
+     * Whether the rotor in each slot can move.
+     */
+    private final boolean[] _rotates;
+
+    /**
+     * Whether the rotor in each slot moves when it is at a notch.
+     */
+    private final boolean[] _doubleSteps;
+
+    /**
+     * Stepping mechanism of my slots, used by seek().
+     */
+    private final Odometer _odometer;
+
+    /**
+     * Ring setting of each slot.
+     */
+    private final int[] _offset;
+
+    /**
+     * Number of steps, at least 1, from each position of the fast rotor
+     * to the next at which it has a notch, or Integer.MAX_VALUE if it
+     * has none.
+     */
+    private final int[] _gaps;
+
+    /**
+     * Conversion by the middle rotor of byte value k when its setting
+     * minus ring setting is x, at x * SIZE + k.
+     */
+    private final byte[] _midIn;
+
+    /**
+     * Conversion by the middle rotor backwards of byte value k when its
+     * shift is x, at x * SIZE + k.
+     */
+    private final byte[] _midOut;
+
+    /**
+     * Conversion by the plugboard and then the fast rotor of byte value
+     * k when the fast rotor's setting minus ring setting is x, at x *
+     * SIZE + k.  Replaced, never changed, by setPlugboard.
+     */
+    private byte[] _fastIn;
+
+    /**
+     * Conversion by the fast rotor backwards and then the plugboard of
+     * byte value k when the fast rotor's shift is x, at x * SIZE + k.
+     * Replaced, never changed, by setPlugboard.
+     */
+    private byte[] _fastOut;
+
+    /**
+     * Current setting of each slot.
+     */
+    private final int[] _position;
+
+    /**
+     * Current setting minus ring setting of each slot.
+     */
+    private final int[] _shift;
+
+    /**
+     * Conversion through the slots left of the middle one and back.
+     */
+    private final byte[] _slow;
+
+    /**
+     * True iff a rotor left of the middle one moves on the next step.
+     */
+    private boolean _armed;
+
+}
@@ -0,0 +1,349 @@
+package enigma;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CoderResult;
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The suite of all JUnit tests for the ByteMachine and ByteRotor
+ * classes.
+ *
+ * @author Shreyansh Loharuka
+ */
+public class ByteMachineTest {
+
+    /**
+     * Testing time limit.
+     */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    /**
+     * An alphabet of 256 characters, the k-th standing for byte value k.
+     */
+    private static final Alphabet BYTES;
+    static {
+        char[] chars = new char[ByteRotor.SIZE];
+        for (int k = 0; k < chars.length; k += 1) {
+            chars[k] = (char) (0x100 + k);
+        }
+        BYTES = new Alphabet(new String(chars));
+    }
+
+    /**
+     * Return the permutation of BYTES that ROTOR's wiring is.
+     */
+    private Permutation permutation(ByteRotor rotor) {
+        int[] forward = new int[ByteRotor.SIZE];
+        for (int k = 0; k < forward.length; k += 1) {
+            forward[k] = rotor.permute(k);
+        }
+        return new Permutation(forward, BYTES);
+    }
+
+    /**
+     * Return the characters of BYTES standing for the byte values in
+     * VALUES.
+     */
+    private String chars(int[] values) {
+        StringBuilder result = new StringBuilder();
+        for (int v : values) {
+            result.append(BYTES.toChar(v));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Return a Machine over BYTES that converts as MACHINE does, made
+     * from the same ROTORS, with POSITIONS, RINGS and PLUGBOARD.
+     */
+    private Machine reference(ByteRotor[] rotors, int[] positions,
+                              int[] rings, ByteRotor plugboard) {
+        ArrayList<Rotor> all = new ArrayList<>();
+        String[] names = new String[rotors.length];
+        int pawls = 0;
+        for (int i = 0; i < rotors.length; i += 1) {
+            names[i] = "R" + i;
+            Permutation perm = permutation(rotors[i]);
+            if (rotors[i].kind() == 'R') {
+                all.add(new Reflector(names[i], perm));
+            } else if (rotors[i].kind() == 'N') {
+                all.add(new FixedRotor(names[i], perm));
+            } else {
+                StringBuilder notches = new StringBuilder();
+                for (int k = 0; k < ByteRotor.SIZE; k += 1) {
+                    if (rotors[i].isNotch(k)) {
+                        notches.append(BYTES.toChar(k));
+                    }
+                }
+                all.add(new MovingRotor(names[i], perm,
+                        notches.toString()));
+                pawls += 1;
+            }
+        }
+        Machine machine = new Machine(BYTES, rotors.length, pawls, all);
+        machine.insertRotors(names);
+        machine.setRotors(chars(positions));
+        machine.setOffset(chars(rings));
+        machine.setPlugboard(permutation(plugboard));
+        return machine;
+    }
+
+    /**
+     * Return the conversion of DATA by MACHINE, through its string
+     * interface.
+     */
+    private byte[] convert(Machine machine, byte[] data) {
+        char[] msg = new char[data.length];
+        for (int k = 0; k < data.length; k += 1) {
+            msg[k] = BYTES.toChar(data[k] & ByteRotor.MASK);
+        }
+        String converted = machine.convert(new String(msg));
+        byte[] result = new byte[data.length];
+        for (int k = 0; k < data.length; k += 1) {
+            result[k] = (byte) BYTES.toInt(converted.charAt(k));
+        }
+        return result;
+    }
+
+    /**
+     * Return LENGTH random bytes drawn from RANDOM.
+     */
+    private byte[] randomBytes(Random random, int length) {
+        byte[] result = new byte[length];
+        random.nextBytes(result);
+        return result;
+    }
+
+    /**
+     * Return random settings for the slots after the first of a machine
+     * with SLOTS slots, drawn from RANDOM.
+     */
+    private int[] randomSettings(Random random, int slots) {
+        int[] result = new int[slots - 1];
+        for (int i = 0; i < result.length; i += 1) {
+            result[i] = random.nextInt(ByteRotor.SIZE);
+        }
+        return result;
+    }
+
+    /**
+     * Assert that EXPECTED and MACHINE are in the same state: that copies
+     * of them convert a run of bytes long enough to move every rotor
+     * alike.
+     */
+    private void assertSameState(ByteMachine expected, ByteMachine machine) {
+        byte[] data = randomBytes(new Random(0),
+                2 * ByteRotor.SIZE * ByteRotor.SIZE);
+        byte[] result = data.clone();
+        new ByteMachine(expected).convert(data);
+        new ByteMachine(machine).convert(result);
+        assertArrayEquals(data, result);
+    }
+
+    @Test
+    public void testSameAsMachine() {
+        Random random = new Random(25);
+        String[] kinds = {"RMM", "RNMMM", "RMMMM", "RNNMM"};
+        for (String kind : kinds) {
+            ByteRotor[] rotors = new ByteRotor[kind.length()];
+            for (int i = 0; i < rotors.length; i += 1) {
+                char k = kind.charAt(i);
+                rotors[i] = ByteRotor.random(k,
+                        k == 'M' ? 1 + (i % 2) * random.nextInt(40) : 0,
+                        random);
+            }
+            int[] positions = randomSettings(random, rotors.length);
+            int[] rings = randomSettings(random, rotors.length);
+            ByteRotor plugboard = ByteRotor.random('R', 0, random);
+            Machine machine = reference(rotors, positions, rings,
+                    plugboard);
+            ByteMachine bytes = new ByteMachine(rotors);
+            bytes.setPositions(positions);
+            bytes.setRings(rings);
+            byte[] plugs = new byte[ByteRotor.SIZE];
+            for (int k = 0; k < plugs.length; k += 1) {
+                plugs[k] = (byte) plugboard.permute(k);
+            }
+            bytes.setPlugboard(plugs);
+            byte[] data = randomBytes(random, 40000);
+            byte[] expected = convert(machine, data);
+            byte[] result = new byte[data.length];
+            for (int k = 0; k < data.length; ) {
+                int n = Math.min(data.length - k, random.nextInt(3000));
+                if (n == 0) {
+                    result[k] = (byte) bytes.convert(data[k] & 0xFF);
+                    n = 1;
+                } else {
+                    bytes.convert(data, k, n, result, k);
+                }
+                k += n;
+            }
+            assertArrayEquals(kind, expected, result);
+            byte[] more = randomBytes(random, 1000);
+            byte[] moreExpected = convert(machine, more);
+            bytes.convert(more);
+            assertArrayEquals(kind, moreExpected, more);
+        }
+    }
+
+    @Test
+    public void testDoubleStep() {
+        ByteRotor reflector = ByteRotor.random('R', 0, new Random(1));
+        ByteRotor[] rotors = {
+            reflector, ByteRotor.random('M', 1, new Random(2)),
+            ByteRotor.random('M', 1, new Random(3)),
+            ByteRotor.random('M', 1, new Random(4)),
+        };
+        int[] notches = new int[4];
+        for (int i = 1; i < 4; i += 1) {
+            while (!rotors[i].isNotch(notches[i])) {
+                notches[i] += 1;
+            }
+        }
+        ByteMachine machine = new ByteMachine(rotors);
+        machine.setPositions(0, (notches[2] + ByteRotor.MASK) & ByteRotor.MASK,
+                notches[3]);
+        ByteMachine expected = new ByteMachine(rotors);
+        machine.convert(new byte[1]);
+        expected.setPositions(0, notches[2],
+                (notches[3] + 1) & ByteRotor.MASK);
+        assertSameState(expected, machine);
+        machine.convert(new byte[1]);
+        expected.setPositions(1, (notches[2] + 1) & ByteRotor.MASK,
+                (notches[3] + 2) & ByteRotor.MASK);
+        assertSameState(expected, machine);
+    }
+
+    @Test
+    public void testSeek() {
+        Random random = new Random(26);
+        ByteRotor[] rotors = {
+            ByteRotor.random('R', 0, random), ByteRotor.random('N', 0, random),
+            ByteRotor.random('M', 3, random), ByteRotor.random('M', 7, random),
+            ByteRotor.random('M', 20, random),
+        };
+        ByteMachine machine = new ByteMachine(rotors);
+        machine.setPositions(4, 250, 9, 100);
+        ByteMachine sought = new ByteMachine(machine);
+        byte[] data = randomBytes(random, 200000);
+        byte[] whole = data.clone();
+        machine.convert(whole);
+        sought.seek(150000);
+        byte[] tail = new byte[50000];
+        sought.convert(data, 150000, 50000, tail, 0);
+        for (int k = 0; k < tail.length; k += 1) {
+            assertEquals(whole[150000 + k], tail[k]);
+        }
+        assertSameState(machine, sought);
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testSeekBackwards() {
+        Random random = new Random(28);
+        new ByteMachine(ByteRotor.random('R', 0, random),
+                ByteRotor.random('M', 1, random),
+                ByteRotor.random('M', 1, random)).seek(-1);
+    }
+
+    @Test
+    public void testInverse() {
+        Random random = new Random(27);
+        ByteRotor[] rotors = {
+            ByteRotor.random('R', 0, random), ByteRotor.random('M', 2, random),
+            ByteRotor.random('M', 2, random), ByteRotor.random('M', 2, random),
+        };
+        ByteMachine machine = new ByteMachine(rotors);
+        machine.setRings(1, 2, 3);
+        ByteMachine copy = new ByteMachine(machine);
+        byte[] data = randomBytes(random, 100000);
+        byte[] enciphered = new byte[data.length];
+        machine.convert(data, 0, data.length, enciphered, 0);
+        assertTrue(data[0] != enciphered[0]);
+        copy.convert(enciphered);
+        assertArrayEquals(data, enciphered);
+    }
+
+    @Test
+    public void testByteBuffers() {
+        Random random = new Random(28);
+        ByteRotor[] rotors = {
+            ByteRotor.random('R', 0, random), ByteRotor.random('M', 1, random),
+            ByteRotor.random('M', 1, random),
+        };
+        byte[] data = randomBytes(random, 30000);
+        ByteMachine machine = new ByteMachine(rotors);
+        byte[] expected = new byte[data.length];
+        new ByteMachine(machine).convert(data, 0, data.length, expected, 0);
+        for (boolean direct : new boolean[]{false, true}) {
+            ByteMachine converter = new ByteMachine(machine);
+            ByteBuffer src = direct ? ByteBuffer.allocateDirect(data.length)
+                    : ByteBuffer.allocate(data.length);
+            src.put(data).flip();
+            ByteBuffer dst = direct ? ByteBuffer.allocateDirect(20000)
+                    : ByteBuffer.allocate(20000);
+            CoderResult cr = converter.convert(src, dst);
+            assertTrue(cr.isOverflow());
+            assertEquals(20000, src.position());
+            byte[] result = new byte[data.length];
+            dst.flip().get(result, 0, 20000);
+            dst.clear();
+            assertTrue(converter.convert(src, dst).isUnderflow());
+            dst.flip().get(result, 20000, data.length - 20000);
+            assertArrayEquals(expected, result);
+        }
+    }
+
+    @Test
+    public void testRandomRotors() {
+        Random random = new Random(29);
+        ByteRotor reflector = ByteRotor.random('R', 0, random);
+        ByteRotor moving = ByteRotor.random('M', 5, random);
+        int notches = 0;
+        for (int k = 0; k < ByteRotor.SIZE; k += 1) {
+            assertTrue(k != reflector.permute(k));
+            assertEquals(k, reflector.permute(reflector.permute(k)));
+            assertEquals(k, moving.invert(moving.permute(k)));
+            notches += moving.isNotch(k) ? 1 : 0;
+        }
+        assertEquals(5, notches);
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testNotPermutation() {
+        new ByteRotor(new byte[ByteRotor.SIZE], new int[0], 'N');
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testReflectorFirst() {
+        Random random = new Random(30);
+        new ByteMachine(ByteRotor.random('M', 1, random),
+                ByteRotor.random('R', 0, random),
+                ByteRotor.random('M', 1, random));
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testTooFewRotors() {
+        Random random = new Random(31);
+        new ByteMachine(ByteRotor.random('R', 0, random),
+                ByteRotor.random('M', 1, random));
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testSettingOutOfRange() {
+        Random random = new Random(32);
+        new ByteMachine(ByteRotor.random('R', 0, random),
+                ByteRotor.random('M', 1, random),
+                ByteRotor.random('M', 1, random)).setPositions(3, 256);
+    }
+
+}
@@ -0,0 +1,171 @@
+package enigma;
+
+import java.util.Random;
+
+import static enigma.EnigmaException.error;
+
+/**
+ * The unchanging description of a rotor of a ByteMachine, whose
+ * alphabet is the 256 byte values.  Its wiring is a table of bytes
+ * rather than cycles of characters, and its kind is that of a
+ * RotorSpec: 'M' for a moving rotor, 'N' for a fixed one and 'R' for a
+ * reflector.  A ByteRotor holds no position or ring setting, so it may
+ * be shared by any number of machines.
+ *
+ * @author Shreyansh Loharuka
+ */
+final class ByteRotor {
+
+    /**
+     * A rotor that takes byte k to WIRING[k] at position 0, of KIND 'M',
+     * 'N' or 'R', with a notch at each position in NOTCHES.  WIRING must
+     * hold a permutation of the SIZE byte values, and only moving rotors
+     * have notches.  WIRING is copied.
+     */
+    ByteRotor(byte[] wiring, int[] notches, char kind) {
+        if (kind != 'M' && kind != 'N' && kind != 'R') {
+            throw error("Unknown rotor kind %c", kind);
+        }
+        if (kind != 'M' && notches.length != 0) {
+            throw error("Only moving rotors have notches");
+        }
+        if (wiring.length != SIZE) {
+            throw error("Byte rotor wiring must have %d entries", SIZE);
+        }
+        _forward = wiring.clone();
+        _backward = new byte[SIZE];
+        boolean[] seen = new boolean[SIZE];
+        for (int k = 0; k < SIZE; k++) {
+            int image = wiring[k] & MASK;
+            if (seen[image]) {
+                throw error("Byte rotor wiring is not a permutation");
+            }
+            seen[image] = true;
+            _backward[image] = (byte) k;
+        }
+        _notch = new boolean[SIZE];
+        for (int posn : notches) {
+            if (posn < 0 || posn >= SIZE) {
+                throw error("Notch %d out of range of byte values", posn);
+            }
+            _notch[posn] = true;
+        }
+        _kind = kind;
+    }
+
+    /**
+     * Return a rotor of KIND with a wiring drawn from RANDOM and NOTCHES
+     * distinct notches, which must be 0 unless KIND is 'M'.  A
+     * reflector's wiring swaps the byte values in pairs, so that it is
+     * its own inverse and has no fixed point.
+     */
+    static ByteRotor random(char kind, int notches, Random random) {
+        if (notches < 0 || notches > SIZE) {
+            throw error("A byte rotor has 0 to %d notches", SIZE);
+        }
+        int[] order = shuffled(random);
+        byte[] wiring = new byte[SIZE];
+        for (int k = 0; k < SIZE; k++) {
+            if (kind == 'R') {
+                wiring[order[k]] = (byte) order[k ^ 1];
+            } else {
+                wiring[k] = (byte) order[k];
+            }
+        }
+        int[] notchAt = new int[notches];
+        System.arraycopy(shuffled(random), 0, notchAt, 0, notches);
+        return new ByteRotor(wiring, notchAt, kind);
+    }
+
+    /**
+     * Return the byte values in an order drawn from RANDOM.
+     */
+    private static int[] shuffled(Random random) {
+        int[] result = new int[SIZE];
+        for (int k = 0; k < SIZE; k++) {
+            result[k] = k;
+        }
+        for (int k = SIZE - 1; k > 0; k--) {
+            int j = random.nextInt(k + 1);
+            int t = result[k];
+            result[k] = result[j];
+            result[j] = t;
+        }
+        return result;
+    }
+
+    /**
+     * Return my kind: 'M', 'N' or 'R'.
+     */
+    char kind() {
+        return _kind;
+    }
+
+    /**
+     * Return true iff I can move.
+     */
+    boolean rotates() {
+        return _kind == 'M';
+    }
+
+    /**
+     * Return true iff I have a notch at position POSN.
+     */
+    boolean isNotch(int posn) {
+        return _notch[posn];
+    }
+
+    /**
+     * Return the image of byte value K under my wiring at position 0.
+     */
+    int permute(int k) {
+        return _forward[k] & MASK;
+    }
+
+    /**
+     * Return the byte value whose image under my wiring at position 0
+     * is K.
+     */
+    int invert(int k) {
+        return _backward[k] & MASK;
+    }
+
+    /**
+     * Return a copy of my wiring at position 0, in the form the
+     * constructor takes.
+     */
+    byte[] wiring() {
+        return _forward.clone();
+    }
+
+    /**
+     * Number of byte values.
+     */
+    static final int SIZE = 256;
+
+    /**
+     * Mask reducing an int modulo SIZE.
+     */
+    static final int MASK = SIZE - 1;
+
+    /**
+     * My wiring at position 0.
+     */
+    private final byte[] _forward;
+
+    /**
+     * The inverse of my wiring at position 0.
+     */
+    private final byte[] _backward;
+
+    /**
+     * _notch[k] is true iff I have a notch at k.
+     */
+    private final boolean[] _notch;
+
+    /**
+     * My kind.
+     */
+    private final char _kind;
+
+}
@@ -0,0 +1,254 @@
+package enigma;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * A configuration compiled into a compact binary file: the alphabet, the
+ * numbers of slots and pawls, and each rotor's name, kind, notches and
+ * wiring as a table of indices.  Loading one needs no parsing and no
+ * cycle validation, so it costs little more than reading the file.  The
+ * file records the size and modification time of the configuration it
+ * was compiled from, so that a stale one can be recognized.
+ *
+ * <p>All values are big-endian.  The file holds MAGIC, VERSION, the
+ * source's size and modification time (longs), the alphabet (a string),
+ * the number of slots, the number of pawls and the number of rotors
+ * (ints), and then, for each rotor, its name (a string), its kind (a
+ * char), its notches (a string) and the image of each index of the
+ * alphabet under its permutation (chars).  A string is an int length
+ * followed by that many chars.
+ *
+ * @author Shreyansh Loharuka
+ */
+final class CatalogFile {
+
+    /**
+     * A catalog of ROTORS over ALPHABET for machines with NUMROTORS slots
+     * and PAWLS pawls, compiled from a configuration of SOURCESIZE bytes
+     * last modified at SOURCEMODIFIED (milliseconds since the epoch).
+     */
+    CatalogFile(Alphabet alphabet, int numRotors, int pawls,
+                RotorSpec[] rotors, long sourceSize, long sourceModified) {
+        _alphabet = alphabet;
+        _numRotors = numRotors;
+        _pawls = pawls;
+        _rotors = rotors;
+        _sourceSize = sourceSize;
+        _sourceModified = sourceModified;
+    }
+
+    /**
+     * Return my alphabet.
+     */
+    Alphabet alphabet() {
+        return _alphabet;
+    }
+
+    /**
+     * Return the number of rotor slots of my machines.
+     */
+    int numRotors() {
+        return _numRotors;
+    }
+
+    /**
+     * Return the number of pawls of my machines.
+     */
+    int numPawls() {
+        return _pawls;
+    }
+
+    /**
+     * Return my rotors.
+     */
+    RotorSpec[] rotors() {
+        return _rotors;
+    }
+
+    /**
+     * Return true iff I was compiled from SOURCE as it is now.
+     */
+    boolean matches(Path source) throws IOException {
+        return Files.size(source) == _sourceSize
+                && Files.getLastModifiedTime(source).toMillis()
+                        == _sourceModified;
+    }
+
+    /**
+     * Write me to the file TARGET, replacing it atomically.
+     */
+    void write(Path target) throws IOException {
+        int size = 2 * Integer.BYTES + 2 * Long.BYTES + 4 * Integer.BYTES
+                + Character.BYTES * _alphabet.size();
+        for (RotorSpec rotor : _rotors) {
+            size += 2 * Integer.BYTES + Character.BYTES
+                    * (1 + rotor.name().length() + rotor.notches().length()
+                    + _alphabet.size());
+        }
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putInt(MAGIC).putInt(VERSION);
+        out.putLong(_sourceSize).putLong(_sourceModified);
+        putString(out, _alphabet.chars());
+        out.putInt(_numRotors).putInt(_pawls).putInt(_rotors.length);
+        for (RotorSpec rotor : _rotors) {
+            putString(out, rotor.name());
+            out.putChar(rotor.kind());
+            putString(out, rotor.notches());
+            Permutation perm = rotor.permutation();
+            for (int i = 0; i < _alphabet.size(); i++) {
+                out.putChar((char) perm.permute(i));
+            }
+        }
+        out.flip();
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(),
+                target.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, WRITE)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+        try {
+            Files.move(temp, target, ATOMIC_MOVE, REPLACE_EXISTING);
+        } catch (IOException excp) {
+            Files.deleteIfExists(temp);
+            throw excp;
+        }
+    }
+
+    /**
+     * Return the catalog in the file SOURCE, which is memory-mapped to
+     * read it.  Returns null if the file does not exist or is not a
+     * catalog of this version; throws an EnigmaException if it is
+     * corrupt.
+     */
+    static CatalogFile load(Path source) throws IOException {
+        if (!Files.isRegularFile(source)) {
+            return null;
+        }
+        MappedByteBuffer in;
+        try (FileChannel channel = FileChannel.open(source, READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        }
+        try {
+            if (in.remaining() < 2 * Integer.BYTES || in.getInt() != MAGIC
+                    || in.getInt() != VERSION) {
+                return null;
+            }
+            long sourceSize = in.getLong();
+            long sourceModified = in.getLong();
+            Alphabet alphabet = new Alphabet(getString(in));
+            int numRotors = in.getInt();
+            int pawls = in.getInt();
+            RotorSpec[] rotors = new RotorSpec[checkCount(in.getInt(), in)];
+            int[] wiring = new int[alphabet.size()];
+            for (int r = 0; r < rotors.length; r++) {
+                String name = getString(in);
+                char kind = in.getChar();
+                String notches = getString(in);
+                for (int i = 0; i < wiring.length; i++) {
+                    wiring[i] = in.getChar();
+                }
+                rotors[r] = new RotorSpec(name,
+                        new Permutation(wiring, alphabet), notches, kind);
+            }
+            if (in.hasRemaining()) {
+                throw new EnigmaException("Corrupt catalog " + source);
+            }
+            return new CatalogFile(alphabet, numRotors, pawls, rotors,
+                    sourceSize, sourceModified);
+        } catch (BufferUnderflowException excp) {
+            throw new EnigmaException("Corrupt catalog " + source);
+        }
+    }
+
+    /**
+     * Append the length and characters of STR to OUT.
+     */
+    private static void putString(ByteBuffer out, String str) {
+        out.putInt(str.length());
+        for (int i = 0; i < str.length(); i++) {
+            out.putChar(str.charAt(i));
+        }
+    }
+
+    /**
+     * Return the string at the position of IN.
+     */
+    private static String getString(ByteBuffer in) {
+        char[] chars = new char[checkCount(in.getInt(), in)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = in.getChar();
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Return COUNT, a number of items read from IN, if IN could hold
+     * that many.
+     */
+    private static int checkCount(int count, ByteBuffer in) {
+        if (count < 0 || count > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        return count;
+    }
+
+    /**
+     * Suffix added to the name of a configuration to name its catalog.
+     */
+    static final String SUFFIX = ".ecat";
+
+    /**
+     * First four bytes of a catalog: "ECAT".
+     */
+    static final int MAGIC = 0x45434154;
+
+    /**
+     * Version of the format.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The alphabet of my machines.
+     */
+    private final Alphabet _alphabet;
+
+    /**
+     * Number of rotor slots of my machines.
+     */
+    private final int _numRotors;
+
+    /**
+     * Number of pawls of my machines.
+     */
+    private final int _pawls;
+
+    /**
+     * My rotors.
+     */
+    private final RotorSpec[] _rotors;
+
+    /**
+     * Size in bytes of the configuration I was compiled from.
+     */
+    private final long _sourceSize;
+
+    /**
+     * Modification time of the configuration I was compiled from, in
+     * milliseconds since the epoch.
+     */
+    private final long _sourceModified;
+
+}
@@ -0,0 +1,179 @@
+package enigma;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static enigma.TestUtils.*;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The suite of all JUnit tests for the CatalogFile class.
+ *
+ * @author Shreyansh Loharuka
+ */
+public class CatalogFileTest {
+
+    /**
+     * Testing time limit.
+     */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /**
+     * Return a new temporary file with the given SUFFIX, deleted on exit.
+     */
+    private Path tempFile(String suffix) throws IOException {
+        File file = File.createTempFile("catalog", suffix);
+        file.deleteOnExit();
+        return file.toPath();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Machine machine = navalMachine(NAVAL_NOTCHES);
+        Path source = tempFile(".conf");
+        Path target = tempFile(CatalogFile.SUFFIX);
+        new CatalogFile(UPPER, 5, 3, machine.catalog(), Files.size(source),
+                Files.getLastModifiedTime(source).toMillis()).write(target);
+        CatalogFile loaded = CatalogFile.load(target);
+        assertEquals(UPPER_STRING, loaded.alphabet().chars());
+        assertEquals(5, loaded.numRotors());
+        assertEquals(3, loaded.numPawls());
+        assertTrue(loaded.matches(source));
+        RotorSpec[] expected = machine.catalog();
+        assertEquals(expected.length, loaded.rotors().length);
+        for (int r = 0; r < expected.length; r += 1) {
+            RotorSpec actual = loaded.rotors()[r];
+            assertEquals(expected[r].name(), actual.name());
+            assertEquals(expected[r].kind(), actual.kind());
+            assertEquals(expected[r].notches(), actual.notches());
+            for (int i = 0; i < UPPER.size(); i += 1) {
+                assertEquals(expected[r].permutation().permute(i),
+                        actual.permutation().permute(i));
+            }
+        }
+        String[] order = {"B", "Beta", "III", "IV", "I"};
+        Machine copy = new Machine(loaded.alphabet(), 5, 3,
+                loaded.rotors());
+        copy.insertRotors(order);
+        copy.setRotors("AXLE");
+        machine.insertRotors(order);
+        machine.setRotors("AXLE");
+        assertEquals(machine.convert("FROMHISSHOULDERHIAWATHA"),
+                copy.convert("FROMHISSHOULDERHIAWATHA"));
+    }
+
+    @Test
+    public void testStale() throws IOException {
+        Path source = tempFile(".conf");
+        Path target = tempFile(CatalogFile.SUFFIX);
+        new CatalogFile(UPPER, 5, 3, new RotorSpec[0], Files.size(source),
+                Files.getLastModifiedTime(source).toMillis()).write(target);
+        Files.write(source, new byte[]{'A'});
+        assertFalse(CatalogFile.load(target).matches(source));
+        Files.write(source, new byte[0]);
+        Files.setLastModifiedTime(source, FileTime.fromMillis(1000));
+        assertFalse(CatalogFile.load(target).matches(source));
+    }
+
+    @Test
+    public void testNotCatalog() throws IOException {
+        Path target = tempFile(CatalogFile.SUFFIX);
+        assertNull(CatalogFile.load(target.resolveSibling("missing.ecat")));
+        Files.write(target, "ABCDEFGHIJ".getBytes());
+        assertNull(CatalogFile.load(target));
+        Files.write(target, new byte[]{'E', 'C', 'A', 'T', 0, 0, 0, 1, 7});
+        try {
+            CatalogFile.load(target);
+            fail("truncated catalog accepted");
+        } catch (EnigmaException excp) {
+            assertTrue(excp.getMessage().startsWith("Corrupt catalog"));
+        }
+    }
+
+    /**
+     * Return a new temporary configuration file of the naval rotors.
+     */
+    private Path navalConfig() throws IOException {
+        Main main = MessageProcessorTest.navalMain();
+        Machine machine = main.readConfig();
+        Path config = tempFile(".conf");
+        try (PrintStream out = new PrintStream(config.toFile())) {
+            out.println(UPPER_STRING);
+            out.println("5 3");
+            for (RotorSpec spec : machine.catalog()) {
+                out.printf("%s %c%s %s%n", spec.name(), spec.kind(),
+                        spec.notches(), NAVALA.get(spec.name()));
+            }
+        }
+        return config;
+    }
+
+    @Test
+    public void testMain() throws IOException {
+        Path config = navalConfig();
+        Path target = config.resolveSibling(config.getFileName()
+                + CatalogFile.SUFFIX);
+        target.toFile().deleteOnExit();
+        Files.deleteIfExists(target);
+        String msg = "FROMHISSHOULDERHIAWATHA";
+        String expected = convert(config, msg);
+        assertTrue(Files.exists(target));
+        FileTime old = FileTime.fromMillis(1000);
+        Files.setLastModifiedTime(target, old);
+        assertEquals(expected, convert(config, msg));
+        assertEquals(old, Files.getLastModifiedTime(target));
+        Files.write(config, "ABC\n".getBytes(), APPEND);
+        try {
+            convert(config, msg);
+            fail("stale catalog used");
+        } catch (EnigmaException excp) {
+            assertTrue(excp.getMessage().startsWith("bad rotor"));
+        }
+    }
+
+    @Test
+    public void testUnwritableCatalog() throws IOException {
+        Path config = navalConfig();
+        Path target = config.resolveSibling("missing")
+                .resolve("naval" + CatalogFile.SUFFIX);
+        String msg = "FROMHISSHOULDERHIAWATHA";
+        assertEquals(convert(config, msg), convert(config, msg,
+                "--catalog=" + target));
+        assertFalse(Files.exists(target));
+    }
+
+    /**
+     * Return the conversion of MSG by a naval machine read by Main from
+     * the catalog of CONFIG named by OPTION.
+     */
+    private String convert(Path config, String msg, String option) {
+        Machine machine = new Main(new String[]{option,
+            config.toString()}).readCatalog();
+        machine.insertRotors(new String[]{"B", "Beta", "III", "IV", "I"});
+        machine.setRotors("AXLE");
+        return machine.convert(msg);
+    }
+
+    /**
+     * Return the conversion of MSG by a naval machine read from the
+     * catalog of CONFIG by Main.
+     */
+    private String convert(Path config, String msg) {
+        return convert(config, msg, "--catalog");
+    }
+
+}
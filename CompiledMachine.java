@@ -0,0 +1,146 @@
+package enigma;
+
+import static enigma.EnigmaException.error;
+
+/**
+ * A snapshot of a configured Machine flattened into primitive arrays.
+ * Rotor wirings and notches are copied out of the machine's rotors into
+ * RotorTables, and positions into arrays of my own, so converting a
+ * message runs a tight loop over int arrays and allocates nothing.
+ * Output is identical to that of the machine the engine was built from,
+ * double stepping included.
+ *
+ * @author Shreyansh Loharuka
+ */
+class CompiledMachine implements Converter {
+
+    /**
+     * An engine with the rotors, settings, ring settings and plugboard
+     * currently held by MACHINE.
+     */
+    CompiledMachine(Machine machine) {
+        _tables = new RotorTables(machine);
+        _alphabet = machine.alphabet();
+        Rotor[] slots = machine.rotorSlots();
+        _position = new int[slots.length];
+        _shift = new int[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            _position[i] = slots[i].permutation().wrap(slots[i].setting());
+        }
+        _tables.shifts(_position, _shift);
+    }
+
+    /**
+     * An engine in the same state as OTHER.  The two share their
+     * read-only tables, but convert independently.
+     */
+    CompiledMachine(CompiledMachine other) {
+        _tables = other._tables;
+        _alphabet = other._alphabet;
+        _position = other._position.clone();
+        _shift = other._shift.clone();
+    }
+
+    /**
+     * Return my read-only tables.
+     */
+    RotorTables tables() {
+        return _tables;
+    }
+
+    /**
+     * Move my rotors to where they would be after converting N more
+     * characters, without converting them.
+     */
+    @Override
+    public void seek(long n) {
+        _tables.seek(_position, _shift, n);
+    }
+
+    /**
+     * Return the number of rotor slots I have.
+     */
+    @Override
+    public int numRotors() {
+        return _tables.slots();
+    }
+
+    /**
+     * Return the current position of the rotor in SLOT, as an index
+     * into my alphabet.
+     */
+    @Override
+    public int position(int slot) {
+        return _position[slot];
+    }
+
+    /**
+     * Return the conversion of C (an index into my alphabet) after first
+     * advancing my rotors.
+     */
+    @Override
+    public int convert(int c) {
+        _tables.step(_position, _shift);
+        return _tables.convert(c, _shift);
+    }
+
+    /**
+     * Convert the LEN alphabet indices in SRC starting at OFF, storing
+     * the results at the same positions of DST.  SRC and DST may be the
+     * same array.
+     */
+    @Override
+    public void convert(int[] src, int off, int len, int[] dst) {
+        final int size = _tables.size();
+        for (int i = off; i < off + len; i++) {
+            int c = src[i];
+            if (c < 0 || c >= size) {
+                throw error("Index %d out of range of alphabet!", c);
+            }
+            dst[i] = convert(c);
+        }
+    }
+
+    /**
+     * Convert the LEN characters in SRC starting at OFF, storing the
+     * results at the same positions of DST.  As in Machine.convert,
+     * spaces are copied unchanged and any other character outside my
+     * alphabet is an error.  SRC and DST may be the same array.
+     */
+    void convert(char[] src, int off, int len, char[] dst) {
+        for (int i = off; i < off + len; i++) {
+            char ch = src[i];
+            if (ch == ' ') {
+                dst[i] = ch;
+                continue;
+            }
+            int c = _alphabet.indexOf(ch);
+            if (c < 0) {
+                throw new EnigmaException("Message Character"
+                        + " not in alphabet!");
+            }
+            dst[i] = _alphabet.toChar(convert(c));
+        }
+    }
+
+    /**
+     * Alphabet of the machine I was built from.
+     */
+    private final Alphabet _alphabet;
+
+    /**
+     * Wirings, notches, ring settings and plugboard of my slots.
+     */
+    private final RotorTables _tables;
+
+    /**
+     * Current setting of each slot.
+     */
+    private final int[] _position;
+
+    /**
+     * Current setting minus ring setting of each slot.
+     */
+    private final int[] _shift;
+
+}
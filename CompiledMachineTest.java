@@ -0,0 +1,114 @@
+package enigma;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static enigma.TestUtils.*;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * The suite of all JUnit tests for the CompiledMachine class.
+ *
+ * @author Shreyansh Loharuka
+ */
+public class CompiledMachineTest {
+
+    /**
+     * Testing time limit.
+     */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /**
+     * Check that MACHINE and an engine compiled from it convert a random
+     * message of LENGTH characters identically, one character at a time.
+     */
+    private void checkSame(Machine machine, int length) {
+        CompiledMachine engine = machine.compile();
+        String msg = randomMessage(new Random(length), length);
+        char[] converted = msg.toCharArray();
+        engine.convert(converted, 0, length, converted);
+        assertEquals(machine.convert(msg), new String(converted));
+        for (int i = 1; i < machine.numRotors(); i += 1) {
+            Rotor rotor = machine.rotorSlots()[i];
+            assertEquals(rotor.permutation().wrap(rotor.setting()),
+                    engine.position(i));
+        }
+    }
+
+    @Test
+    public void testHelloWorld() {
+        Machine machine = navalMachine(
+                new String[]{"B", "Beta", "I", "II", "III"}, "AAAA", "AAAA",
+                "");
+        char[] msg = "HELLO WORLD".toCharArray();
+        machine.compile().convert(msg, 0, msg.length, msg);
+        assertArrayEquals("ILBDA AMTAZ".toCharArray(), msg);
+    }
+
+    @Test
+    public void testDoubleStep() {
+        checkSame(navalMachine(new String[]{"B", "Beta", "III", "IV", "I"},
+                "AXLE", "AAAA", "(HQ) (EX) (IP) (TR) (BY)"), 3000);
+        checkSame(navalMachine(new String[]{"C", "Gamma", "II", "I", "III"},
+                "ZDQT", "BKZA", "(AZ) (MN)"), 3000);
+    }
+
+    @Test
+    public void testMultipleNotches() {
+        HashMap<String, String> notches = new HashMap<>(NAVAL_NOTCHES);
+        notches.put("I", "AQZ");
+        notches.put("II", "EFXR");
+        notches.put("III", "MNOPQRSTUVWXYZ");
+        Machine machine = navalMachine(notches);
+        machine.insertRotors(new String[]{"B", "II", "I", "III", "VI"});
+        machine.setRotors("ERZM");
+        machine.setPlugboard(new Permutation("(AB)", UPPER));
+        checkSame(machine, 3000);
+    }
+
+    @Test
+    public void testIndices() {
+        Machine machine = navalMachine(
+                new String[]{"B", "Beta", "I", "II", "III"}, "AAAA", "AAAA",
+                "");
+        CompiledMachine engine = machine.compile();
+        int[] msg = new int[]{25, 7, 4, 11, 11, 14, 25};
+        int[] converted = new int[msg.length];
+        engine.convert(msg, 1, 5, converted);
+        assertArrayEquals(new int[]{0, 8, 11, 1, 3, 0, 0}, converted);
+    }
+
+    @Test
+    public void testSeekBackwards() {
+        Machine machine = navalMachine(
+                new String[]{"B", "Beta", "I", "II", "III"}, "AAAA", "AAAA",
+                "");
+        Converter[] engines = {machine.compile(),
+            new Specializer(machine).newConverter()};
+        for (Converter engine : engines) {
+            try {
+                engine.seek(-1);
+                fail("seek(-1) accepted");
+            } catch (EnigmaException excp) {
+                assertEquals(0, engine.position(4));
+            }
+        }
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testBadCharacter() {
+        Machine machine = navalMachine(
+                new String[]{"B", "Beta", "I", "II", "III"}, "AAAA", "AAAA",
+                "");
+        char[] msg = "HELLO, WORLD".toCharArray();
+        machine.compile().convert(msg, 0, msg.length, msg);
+    }
+
+}
@@ -0,0 +1,242 @@
+package enigma;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+
+/**
+ * Splits a configuration file into whitespace-separated tokens in a
+ * single pass over a buffered byte source, remembering the line and
+ * column at which each token starts so that errors can say where they
+ * are.  Replaces a Scanner, whose regular-expression matching of each
+ * token dominated the reading of large catalogs.
+ *
+ * @author Shreyansh Loharuka
+ */
+class ConfigParser {
+
+    /**
+     * A parser reading the configuration in SOURCE, decoded with the
+     * default character set.
+     */
+    ConfigParser(InputStream source) {
+        _source = new InputStreamReader(source, Charset.defaultCharset());
+        _buffer = new char[BUFFER_SIZE];
+        _token = new StringBuilder();
+        _line = 1;
+        _column = 1;
+        advance();
+    }
+
+    /**
+     * Return true iff another token follows.
+     */
+    boolean hasNext() {
+        return _next != null;
+    }
+
+    /**
+     * Return true iff the next token is an integer.
+     */
+    boolean hasNextInt() {
+        if (_next == null) {
+            return false;
+        }
+        int start = _next.startsWith("+") || _next.startsWith("-") ? 1 : 0;
+        if (start == _next.length() || _next.length() > MAX_INT_DIGITS) {
+            return false;
+        }
+        for (int i = start; i < _next.length(); i++) {
+            if (_next.charAt(i) < '0' || _next.charAt(i) > '9') {
+                return false;
+            }
+        }
+        long value = Long.parseLong(_next);
+        return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Return true iff the next token is a cycle: '(', at least one
+     * character, and ')'.
+     */
+    boolean hasNextCycle() {
+        return _next != null && _next.length() > 2
+                && _next.charAt(0) == '('
+                && _next.charAt(_next.length() - 1) == ')';
+    }
+
+    /**
+     * Return the next token, or throw an error with message MISSING if
+     * there is none.
+     */
+    String next(String missing) {
+        if (_next == null) {
+            throw error(missing);
+        }
+        String token = _next;
+        advance();
+        return token;
+    }
+
+    /**
+     * Return the next token, which must be an integer.
+     */
+    int nextInt() {
+        if (!hasNextInt()) {
+            throw error("expected an integer");
+        }
+        return Integer.parseInt(next(""));
+    }
+
+    /**
+     * Return the line on which the next token starts, or of the end of
+     * input if there is none.  Lines are numbered from 1.
+     */
+    int line() {
+        return _nextLine;
+    }
+
+    /**
+     * Return the column at which the next token starts, or of the end of
+     * input if there is none.  Columns are numbered from 1.
+     */
+    int column() {
+        return _nextColumn;
+    }
+
+    /**
+     * Return an exception reporting MSG at the start of the next token.
+     */
+    EnigmaException error(String msg) {
+        return error(msg, _nextLine, _nextColumn);
+    }
+
+    /**
+     * Return an exception reporting MSG at LINE and COLUMN.
+     */
+    EnigmaException error(String msg, int line, int column) {
+        return EnigmaException.error("%s (line %d, column %d)", msg, line,
+                column);
+    }
+
+    /**
+     * Stop reading.
+     */
+    void close() {
+        try {
+            _source.close();
+        } catch (IOException excp) {
+            throw error("could not close configuration");
+        }
+    }
+
+    /**
+     * Read the next token into _next, or set it to null at the end of
+     * input.
+     */
+    private void advance() {
+        int c = read();
+        while (c >= 0 && Character.isWhitespace(c)) {
+            c = read();
+        }
+        _nextLine = _line;
+        _nextColumn = _column - (c >= 0 ? 1 : 0);
+        if (c < 0) {
+            _next = null;
+            return;
+        }
+        _token.setLength(0);
+        while (c >= 0 && !Character.isWhitespace(c)) {
+            _token.append((char) c);
+            c = read();
+        }
+        _next = _token.toString();
+    }
+
+    /**
+     * Return the next character of input, or -1 at its end, keeping
+     * _line and _column just past it.
+     */
+    private int read() {
+        if (_pos == _limit) {
+            try {
+                _limit = _source.read(_buffer, 0, _buffer.length);
+            } catch (IOException excp) {
+                throw error("could not read configuration");
+            }
+            _pos = 0;
+            if (_limit <= 0) {
+                _limit = 0;
+                return -1;
+            }
+        }
+        char c = _buffer[_pos++];
+        if (c == '\r' || (c == '\n' && !_afterReturn)) {
+            _line += 1;
+            _column = 1;
+        } else if (c != '\n') {
+            _column += 1;
+        }
+        _afterReturn = c == '\r';
+        return c;
+    }
+
+    /**
+     * Size, in characters, of my input buffer.
+     */
+    static final int BUFFER_SIZE = 1 << 13;
+
+    /**
+     * Most characters in a token hasNextInt() accepts.
+     */
+    private static final int MAX_INT_DIGITS = 11;
+
+    /**
+     * Source of the configuration.
+     */
+    private final Reader _source;
+
+    /**
+     * Characters read from _source.
+     */
+    private final char[] _buffer;
+
+    /**
+     * Index of the next unread character in _buffer.
+     */
+    private int _pos;
+
+    /**
+     * Number of valid characters in _buffer.
+     */
+    private int _limit;
+
+    /**
+     * Line and column just past the last character read.
+     */
+    private int _line, _column;
+
+    /**
+     * True iff the last character read was a carriage return, so that a
+     * following newline belongs to the same line break.
+     */
+    private boolean _afterReturn;
+
+    /**
+     * The next token, or null if there are no more.
+     */
+    private String _next;
+
+    /**
+     * Line and column at which _next starts.
+     */
+    private int _nextLine, _nextColumn;
+
+    /**
+     * The token being read.
+     */
+    private final StringBuilder _token;
+
+}
@@ -0,0 +1,119 @@
+package enigma;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import static enigma.TestUtils.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The suite of all JUnit tests for the ConfigParser class.
+ *
+ * @author Shreyansh Loharuka
+ */
+public class ConfigParserTest {
+
+    /**
+     * Testing time limit.
+     */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /**
+     * Return a parser reading TEXT.
+     */
+    private ConfigParser parser(String text) {
+        return new ConfigParser(new ByteArrayInputStream(text.getBytes()));
+    }
+
+    /**
+     * Return the message of the error reported by reading a machine
+     * from the configuration TEXT, or null if there is none.
+     */
+    private String configError(String text) throws IOException {
+        File config = File.createTempFile("bad", ".conf");
+        config.deleteOnExit();
+        try (PrintStream out = new PrintStream(config)) {
+            out.print(text);
+        }
+        try {
+            new Main(new String[]{config.getPath()}).readConfig();
+            return null;
+        } catch (EnigmaException excp) {
+            return excp.getMessage();
+        }
+    }
+
+    @Test
+    public void testTokens() {
+        ConfigParser parser = parser("  ABC\n 5 -3\r\n\tI MQ (AB)(C) ()\n");
+        assertEquals(1, parser.line());
+        assertEquals(3, parser.column());
+        assertEquals("ABC", parser.next("missing"));
+        assertEquals(2, parser.line());
+        assertEquals(2, parser.column());
+        assertTrue(parser.hasNextInt());
+        assertEquals(5, parser.nextInt());
+        assertEquals(-3, parser.nextInt());
+        assertEquals(3, parser.line());
+        assertEquals(2, parser.column());
+        assertFalse(parser.hasNextInt());
+        assertFalse(parser.hasNextCycle());
+        assertEquals("I", parser.next("missing"));
+        assertEquals("MQ", parser.next("missing"));
+        assertTrue(parser.hasNextCycle());
+        assertEquals("(AB)(C)", parser.next("missing"));
+        assertFalse(parser.hasNextCycle());
+        assertEquals("()", parser.next("missing"));
+        assertFalse(parser.hasNext());
+        assertEquals(4, parser.line());
+        assertEquals(1, parser.column());
+    }
+
+    @Test
+    public void testIntegers() {
+        assertTrue(parser("2147483647").hasNextInt());
+        assertFalse(parser("2147483648").hasNextInt());
+        assertFalse(parser("+").hasNextInt());
+        assertFalse(parser("5x").hasNextInt());
+        assertFalse(parser("").hasNextInt());
+    }
+
+    @Test
+    public void testMissing() {
+        ConfigParser parser = parser("A\n\n  ");
+        parser.next("missing");
+        try {
+            parser.next("nothing left");
+            fail("read past end");
+        } catch (EnigmaException excp) {
+            assertEquals("nothing left (line 3, column 3)", excp.getMessage());
+        }
+    }
+
+    @Test
+    public void testConfigErrors() throws IOException {
+        assertEquals("configuration file truncated (line 1, column 1)",
+                configError(""));
+        assertEquals("Enter numRotors after alphabets! (line 2, column 1)",
+                configError(UPPER_STRING + "\nX 1\n"));
+        assertEquals("Enter the numPawls after rotors! (line 2, column 1)",
+                configError(UPPER_STRING + " 5\n"));
+        assertEquals("Faulty Cycle! (line 3, column 8)",
+                configError(UPPER_STRING + "\n5 3\n I MQ  AB\n"));
+        assertEquals("bad rotor description (line 4, column 3)",
+                configError(UPPER_STRING + "\n5 3\n I MQ (AB)\nII"));
+        assertEquals(null, configError(UPPER_STRING + "\n5 3\n"
+                + " I MQ (AELTPHQXRU) (BKNW)\r\n B R (AE) (BN)\n"));
+    }
+
+}
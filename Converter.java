@@ -0,0 +1,41 @@
+package enigma;
+
+/**
+ * An engine that converts alphabet indices as a configured Machine does,
+ * advancing its rotors before each one.
+ *
+ * @author Shreyansh Loharuka
+ */
+interface Converter {
+
+    /**
+     * Return the conversion of C (an index into my alphabet) after first
+     * advancing my rotors.
+     */
+    int convert(int c);
+
+    /**
+     * Convert the LEN alphabet indices in SRC starting at OFF, storing
+     * the results at the same positions of DST.  SRC and DST may be the
+     * same array.
+     */
+    void convert(int[] src, int off, int len, int[] dst);
+
+    /**
+     * Move my rotors to where they would be after converting N more
+     * characters, without converting them.  N may not be negative.
+     */
+    void seek(long n);
+
+    /**
+     * Return the number of rotor slots I have.
+     */
+    int numRotors();
+
+    /**
+     * Return the current position of the rotor in SLOT, as an index
+     * into my alphabet.
+     */
+    int position(int slot);
+
+}
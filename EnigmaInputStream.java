@@ -0,0 +1,121 @@
+package enigma;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.UnmappableCharacterException;
+
+/**
+ * An InputStream that converts the bytes of another as they are read,
+ * on a machine with a single-byte alphabet, each byte standing for the
+ * character whose code is its unsigned value.  As for EnigmaReader, the
+ * machine's state carries over from one read to the next, spaces and
+ * line terminators pass through unchanged, a byte outside the alphabet
+ * ends the text with an UnmappableCharacterException on the read after
+ * the bytes before it, and marks are not supported.
+ *
+ * @author Shreyansh Loharuka
+ */
+class EnigmaInputStream extends FilterInputStream {
+
+    /**
+     * A stream converting the bytes of IN on MACHINE, in its current
+     * state.  MACHINE's alphabet must be single-byte.
+     */
+    EnigmaInputStream(InputStream in, Machine machine) {
+        super(in);
+        if (!machine.alphabet().singleByte()) {
+            throw new EnigmaException("Alphabet is not single-byte!");
+        }
+        _machine = machine;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        int n = read(one, 0, 1);
+        return n < 0 ? n : one[0] & Alphabet.MAX_BYTE_CHAR;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (_unmappable) {
+            throw new UnmappableCharacterException(1);
+        }
+        int n = in.read(b, off, len);
+        for (int i = off, end = off + n; i < end; ) {
+            if (b[i] == '\n' || b[i] == '\r') {
+                i += 1;
+                continue;
+            }
+            int j = i;
+            while (j < end && b[j] != '\n' && b[j] != '\r') {
+                j += 1;
+            }
+            ByteBuffer line = ByteBuffer.wrap(b, i, j - i);
+            if (_machine.convert(line, line.duplicate()).isUnmappable()) {
+                _unmappable = true;
+                if (line.position() == off) {
+                    throw new UnmappableCharacterException(1);
+                }
+                return line.position() - off;
+            }
+            i = j;
+        }
+        return n;
+    }
+
+    /**
+     * Read and discard up to N bytes, converting them so that the
+     * machine advances past them.  Return the number discarded.
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        if (n < 0) {
+            throw new IllegalArgumentException("skip value is negative");
+        }
+        byte[] buffer = new byte[(int) Math.min(n, SKIP_BUFFER_SIZE)];
+        long skipped = 0;
+        while (skipped < n) {
+            int k = read(buffer, 0, (int) Math.min(n - skipped,
+                    buffer.length));
+            if (k < 0) {
+                break;
+            }
+            skipped += k;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Most bytes skip() reads at once.
+     */
+    private static final int SKIP_BUFFER_SIZE = 1024;
+
+    /**
+     * The machine converting my bytes.
+     */
+    private final Machine _machine;
+
+    /**
+     * True once I have read a byte that is neither in my machine's
+     * alphabet nor passed through.
+     */
+    private boolean _unmappable;
+
+}
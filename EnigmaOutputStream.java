@@ -0,0 +1,70 @@
+package enigma;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An OutputStream that converts bytes on a machine with a single-byte
+ * alphabet as they are written and passes them on to another, each byte
+ * standing for the character whose code is its unsigned value.  As for
+ * EnigmaWriter, the machine's state carries over from one write to the
+ * next, spaces pass through unchanged, any other byte outside the
+ * alphabet is an error, and bytes go through a buffer of fixed size, so
+ * the caller's arrays are never changed.
+ *
+ * @author Shreyansh Loharuka
+ */
+class EnigmaOutputStream extends FilterOutputStream {
+
+    /**
+     * A stream converting bytes on MACHINE, in its current state, and
+     * writing them to OUT.  MACHINE's alphabet must be single-byte.
+     */
+    EnigmaOutputStream(OutputStream out, Machine machine) {
+        super(out);
+        if (!machine.alphabet().singleByte()) {
+            throw new EnigmaException("Alphabet is not single-byte!");
+        }
+        _machine = machine;
+        _buffer = new byte[BUFFER_SIZE];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        _buffer[0] = (byte) b;
+        _machine.convert(_buffer, 0, 1);
+        out.write(_buffer[0]);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if ((off | len | (b.length - (off + len))) < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (len > 0) {
+            int n = Math.min(len, _buffer.length);
+            System.arraycopy(b, off, _buffer, 0, n);
+            _machine.convert(_buffer, 0, n);
+            out.write(_buffer, 0, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Number of bytes converted at once.
+     */
+    static final int BUFFER_SIZE = 1024;
+
+    /**
+     * The machine converting my bytes.
+     */
+    private final Machine _machine;
+
+    /**
+     * Bytes being converted.
+     */
+    private final byte[] _buffer;
+
+}
@@ -0,0 +1,120 @@
+package enigma;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.charset.UnmappableCharacterException;
+
+/**
+ * A Reader that converts the characters of another as they are read,
+ * on a machine whose state carries over from one read to the next, so
+ * the characters read are those Machine.convert(String) would give for
+ * each line of the underlying text.  Spaces and line terminators pass
+ * through unchanged.  Any other character not in the machine's alphabet
+ * ends the text: the characters before it are returned, converted, and
+ * every read after them throws UnmappableCharacterException.  Marks are
+ * not supported, since the machine cannot be rewound.
+ *
+ * @author Shreyansh Loharuka
+ */
+class EnigmaReader extends FilterReader {
+
+    /**
+     * A reader converting the characters of IN on MACHINE, in its
+     * current state.
+     */
+    EnigmaReader(Reader in, Machine machine) {
+        super(in);
+        _machine = machine;
+    }
+
+    @Override
+    public int read() throws IOException {
+        char[] one = new char[1];
+        int n = read(one, 0, 1);
+        return n < 0 ? n : one[0];
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (_unmappable) {
+            throw new UnmappableCharacterException(1);
+        }
+        int n = in.read(cbuf, off, len);
+        for (int i = off, end = off + n; i < end; ) {
+            if (cbuf[i] == '\n' || cbuf[i] == '\r') {
+                i += 1;
+                continue;
+            }
+            int j = i;
+            while (j < end && cbuf[j] != '\n' && cbuf[j] != '\r') {
+                j += 1;
+            }
+            CharBuffer line = CharBuffer.wrap(cbuf, i, j - i);
+            if (_machine.convert(line, line.duplicate()).isUnmappable()) {
+                _unmappable = true;
+                if (line.position() == off) {
+                    throw new UnmappableCharacterException(1);
+                }
+                return line.position() - off;
+            }
+            i = j;
+        }
+        return n;
+    }
+
+    /**
+     * Read and discard up to N characters, converting them so that the
+     * machine advances past them.  Return the number discarded.
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        if (n < 0) {
+            throw new IllegalArgumentException("skip value is negative");
+        }
+        char[] buffer = new char[(int) Math.min(n, SKIP_BUFFER_SIZE)];
+        long skipped = 0;
+        while (skipped < n) {
+            int k = read(buffer, 0, (int) Math.min(n - skipped,
+                    buffer.length));
+            if (k < 0) {
+                break;
+            }
+            skipped += k;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readAheadLimit) throws IOException {
+        throw new IOException("mark() not supported");
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("reset() not supported");
+    }
+
+    /**
+     * Most characters skip() reads at once.
+     */
+    private static final int SKIP_BUFFER_SIZE = 1024;
+
+    /**
+     * The machine converting my characters.
+     */
+    private final Machine _machine;
+
+    /**
+     * True once I have read a character that is neither in my machine's
+     * alphabet nor passed through.
+     */
+    private boolean _unmappable;
+
+}
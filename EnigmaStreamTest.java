@@ -0,0 +1,246 @@
+package enigma;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnmappableCharacterException;
+import java.util.List;
+import java.util.Random;
+
+import static enigma.TestUtils.*;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * The suite of all JUnit tests for the EnigmaReader, EnigmaWriter,
+ * EnigmaInputStream and EnigmaOutputStream classes.
+ *
+ * @author Shreyansh Loharuka
+ */
+public class EnigmaStreamTest {
+
+    /**
+     * Testing time limit.
+     */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /**
+     * Rotor order used by the machines of the tests.
+     */
+    private static final String[] ORDER = {"B", "Beta", "III", "IV", "I"};
+
+    /**
+     * Return a naval machine in the same state each time.
+     */
+    private Machine machine() {
+        return navalMachine(ORDER, "AXLE", "BCDE", "(HQ) (EX) (IP) (TR)");
+    }
+
+    /**
+     * Return a message of LENGTH letters and spaces drawn from RANDOM.
+     */
+    private String message(Random random, int length) {
+        char[] msg = randomMessage(random, length).toCharArray();
+        for (int i = 0; i < length; i += 1) {
+            if (random.nextInt(6) == 0) {
+                msg[i] = ' ';
+            }
+        }
+        return new String(msg);
+    }
+
+    @Test
+    public void testReader() throws IOException {
+        Random random = new Random(23);
+        String msg = message(random, 5000);
+        Reader reader = new EnigmaReader(new StringReader(msg), machine());
+        StringBuilder result = new StringBuilder();
+        char[] buffer = new char[97];
+        while (true) {
+            if (random.nextInt(10) == 0) {
+                int c = reader.read();
+                if (c < 0) {
+                    break;
+                }
+                result.append((char) c);
+            } else {
+                int n = reader.read(buffer, 3, 1 + random.nextInt(90));
+                if (n < 0) {
+                    break;
+                }
+                result.append(buffer, 3, n);
+            }
+        }
+        assertEquals(machine().convert(msg), result.toString());
+        assertFalse(reader.markSupported());
+    }
+
+    @Test
+    public void testReaderSkip() throws IOException {
+        String msg = "HELLO WORLD ATTACK AT DAWN";
+        Reader reader = new EnigmaReader(new StringReader(msg), machine());
+        assertEquals(12, reader.skip(12));
+        char[] rest = new char[msg.length()];
+        int n = reader.read(rest);
+        assertEquals(machine().convert(msg).substring(12),
+                new String(rest, 0, n));
+        assertEquals(0, reader.skip(5));
+    }
+
+    @Test
+    public void testWriter() throws IOException {
+        Random random = new Random(24);
+        String msg = message(random, 3 * EnigmaWriter.BUFFER_SIZE + 17);
+        StringWriter result = new StringWriter();
+        EnigmaWriter writer = new EnigmaWriter(result, machine());
+        int k = 0;
+        while (k < msg.length()) {
+            int n = Math.min(msg.length() - k, random.nextInt(1500));
+            switch (random.nextInt(3)) {
+            case 0:
+                writer.write(msg.charAt(k));
+                n = 1;
+                break;
+            case 1:
+                writer.write(msg, k, n);
+                break;
+            default:
+                char[] chars = msg.substring(k, k + n).toCharArray();
+                writer.write(chars, 0, n);
+                assertEquals(msg.substring(k, k + n), new String(chars));
+                break;
+            }
+            k += n;
+        }
+        writer.close();
+        assertEquals(machine().convert(msg), result.toString());
+    }
+
+    @Test
+    public void testInputStream() throws IOException {
+        Random random = new Random(25);
+        String msg = message(random, 4000);
+        EnigmaInputStream in = new EnigmaInputStream(
+                new ByteArrayInputStream(
+                        msg.getBytes(StandardCharsets.ISO_8859_1)),
+                machine());
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        int first = in.read();
+        result.write(first);
+        assertEquals(10, in.skip(10));
+        byte[] buffer = new byte[333];
+        for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+            result.write(buffer, 0, n);
+        }
+        String expected = machine().convert(msg);
+        assertEquals(expected.charAt(0) + expected.substring(11),
+                result.toString(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void testOutputStream() throws IOException {
+        Random random = new Random(26);
+        String msg = message(random, 2 * EnigmaOutputStream.BUFFER_SIZE + 5);
+        byte[] bytes = msg.getBytes(StandardCharsets.ISO_8859_1);
+        byte[] copy = bytes.clone();
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        EnigmaOutputStream out = new EnigmaOutputStream(result, machine());
+        out.write(bytes[0]);
+        out.write(bytes, 1, bytes.length - 1);
+        out.close();
+        assertArrayEquals(copy, bytes);
+        assertEquals(machine().convert(msg),
+                result.toString(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void testReaderLines() throws IOException {
+        Reader reader = new EnigmaReader(
+                new StringReader("ABC\nDEF\r\n\nGH"), machine());
+        char[] buffer = new char[20];
+        int n = reader.read(buffer);
+        Machine expected = machine();
+        assertEquals(expected.convert("ABC") + "\n" + expected.convert("DEF")
+                + "\r\n\n" + expected.convert("GH"),
+                new String(buffer, 0, n));
+        assertEquals(-1, reader.read());
+    }
+
+    @Test
+    public void testReaderBadCharacter() throws IOException {
+        Machine machine = machine();
+        Reader reader = new EnigmaReader(new StringReader("ABC\nD1EF"),
+                machine);
+        char[] buffer = new char[10];
+        assertEquals(5, reader.read(buffer));
+        Machine expected = machine();
+        assertEquals(expected.convert("ABC") + "\n" + expected.convert("D"),
+                new String(buffer, 0, 5));
+        try {
+            reader.read(buffer);
+            fail("read past an unmappable character");
+        } catch (UnmappableCharacterException excp) {
+            assertEquals(1, excp.getInputLength());
+        }
+        assertEquals(expected.convert("E"), machine.convert("E"));
+    }
+
+    @Test
+    public void testInputStreamBadByte() throws IOException {
+        Machine machine = machine();
+        EnigmaInputStream in = new EnigmaInputStream(
+                new ByteArrayInputStream(new byte[]{'A', '\n', 'B',
+                    (byte) 0xE9, 'C'}), machine);
+        byte[] buffer = new byte[10];
+        assertEquals(3, in.read(buffer));
+        Machine expected = machine();
+        assertEquals(expected.convert("A") + "\n" + expected.convert("B"),
+                new String(buffer, 0, 3, StandardCharsets.ISO_8859_1));
+        try {
+            in.read();
+            fail("read past an unmappable byte");
+        } catch (UnmappableCharacterException excp) {
+            assertEquals(1, excp.getInputLength());
+        }
+        assertEquals(expected.convert("C"), machine.convert("C"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReaderNegativeSkip() throws IOException {
+        new EnigmaReader(new StringReader("AB"), machine()).skip(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInputStreamNegativeSkip() throws IOException {
+        new EnigmaInputStream(new ByteArrayInputStream(new byte[]{'A'}),
+                machine()).skip(-1);
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testOutputStreamBadByte() throws IOException {
+        new EnigmaOutputStream(new ByteArrayOutputStream(), machine())
+                .write(new byte[]{'A', (byte) 0xE9});
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testNotSingleByte() {
+        Alphabet alpha = new Alphabet("A\u03a9");
+        Machine machine = new Machine(alpha, 1, 0,
+                List.of(new Reflector("R", new Permutation("(A\u03a9)",
+                        alpha))));
+        new EnigmaInputStream(new ByteArrayInputStream(new byte[0]),
+                machine);
+    }
+
+}
@@ -0,0 +1,83 @@
+package enigma;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A Writer that converts characters on a machine as they are written and
+ * passes them on to another.  The machine's state carries over from one
+ * write to the next, so what reaches the underlying writer is what
+ * Machine.convert(String) would give for everything written.  Spaces
+ * pass through unchanged, and any other character not in the machine's
+ * alphabet is an error.  Characters are converted through a buffer of
+ * fixed size, so the caller's arrays are never changed and a text of any
+ * length is written in constant space.
+ *
+ * @author Shreyansh Loharuka
+ */
+class EnigmaWriter extends FilterWriter {
+
+    /**
+     * A writer converting characters on MACHINE, in its current state,
+     * and writing them to OUT.
+     */
+    EnigmaWriter(Writer out, Machine machine) {
+        super(out);
+        _machine = machine;
+        _buffer = new char[BUFFER_SIZE];
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        _buffer[0] = (char) c;
+        _machine.convert(_buffer, 0, 1);
+        out.write(_buffer[0]);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        while (len > 0) {
+            int n = Math.min(len, _buffer.length);
+            System.arraycopy(cbuf, off, _buffer, 0, n);
+            flushBuffer(n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        while (len > 0) {
+            int n = Math.min(len, _buffer.length);
+            str.getChars(off, off + n, _buffer, 0);
+            flushBuffer(n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Convert the first N characters of my buffer and write them.
+     */
+    private void flushBuffer(int n) throws IOException {
+        _machine.convert(_buffer, 0, n);
+        out.write(_buffer, 0, n);
+    }
+
+    /**
+     * Number of characters converted at once.
+     */
+    static final int BUFFER_SIZE = 1024;
+
+    /**
+     * The machine converting my characters.
+     */
+    private final Machine _machine;
+
+    /**
+     * Characters being converted.
+     */
+    private final char[] _buffer;
+
+}
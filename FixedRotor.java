@@ -12,7 +12,14 @@ class FixedRotor extends Rotor {
      * is given by PERM.
      */
     FixedRotor(String name, Permutation perm) {
-        super(name, perm);
+        this(new RotorSpec(name, perm, "", 'N'));
+    }
+
+    /**
+     * A non-moving rotor as specified by SPEC.
+     */
+    FixedRotor(RotorSpec spec) {
+        super(spec);
     }
 
 
@@ -0,0 +1,117 @@
+package enigma;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+
+/**
+ * Writes converted messages in groups of five letters, separated by
+ * spaces, into an output buffer.  Characters arrive one at a time, so
+ * each is handled exactly once however long the lines are.  The newline
+ * ending a message line is written only once another line starts, so
+ * the last line of output has none.
+ *
+ * @author Shreyansh Loharuka
+ */
+class GroupWriter {
+
+    /**
+     * Receives the contents of a full output buffer.
+     */
+    interface Sink {
+
+        /**
+         * Consume some or all of the characters written to OUT, leaving
+         * it in write mode with room for at least one more.
+         */
+        void drain(CharBuffer out) throws IOException;
+
+    }
+
+    /**
+     * A writer appending to OUT, which must have room for at least one
+     * character, and handing it to SINK whenever it fills.
+     */
+    GroupWriter(CharBuffer out, Sink sink) {
+        _out = out;
+        _sink = sink;
+    }
+
+    /**
+     * Start a new line, writing the newline of the message line before
+     * it if that has not been written yet.
+     */
+    void startLine() throws IOException {
+        if (_pendingNewline) {
+            put('\n');
+            _pendingNewline = false;
+        }
+    }
+
+    /**
+     * Write C, a converted message character, as part of the current
+     * group.  Spaces are dropped.
+     */
+    void write(char c) throws IOException {
+        if (c == ' ') {
+            return;
+        }
+        put(c);
+        _group += 1;
+        if (_group == GROUP_SIZE) {
+            put(' ');
+            _group = 0;
+        }
+    }
+
+    /**
+     * End the current message line.  The next line starts a new group.
+     */
+    void endLine() {
+        _group = 0;
+        _pendingNewline = true;
+    }
+
+    /**
+     * Write the output of an empty input line.
+     */
+    void blankLine() throws IOException {
+        put('\n');
+    }
+
+    /**
+     * Append C to the output buffer.
+     */
+    private void put(char c) throws IOException {
+        if (!_out.hasRemaining()) {
+            _sink.drain(_out);
+        }
+        _out.put(c);
+    }
+
+    /**
+     * Number of letters in each output group.
+     */
+    static final int GROUP_SIZE = 5;
+
+    /**
+     * Output not yet handed to _sink.
+     */
+    private final CharBuffer _out;
+
+    /**
+     * Receives _out whenever it fills.
+     */
+    private final Sink _sink;
+
+    /**
+     * Number of letters in the current group.
+     */
+    private int _group;
+
+    /**
+     * True iff a message line has ended and its newline is not yet
+     * written.
+     */
+    private boolean _pendingNewline;
+
+}
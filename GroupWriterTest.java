@@ -0,0 +1,110 @@
+package enigma;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The suite of all JUnit tests for the GroupWriter class.
+ *
+ * @author Shreyansh Loharuka
+ */
+public class GroupWriterTest {
+
+    /**
+     * Testing time limit.
+     */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /**
+     * Return a writer into OUT that appends whatever it drains to RESULT.
+     */
+    private GroupWriter writer(CharBuffer out, StringBuilder result) {
+        return new GroupWriter(out, full -> {
+            full.flip();
+            result.append(full);
+            full.clear();
+        });
+    }
+
+    /**
+     * Return everything written so far by a writer into OUT, given that
+     * RESULT holds what it has drained.
+     */
+    private String written(CharBuffer out, StringBuilder result) {
+        CharBuffer contents = out.duplicate();
+        contents.flip();
+        return result.toString() + contents;
+    }
+
+    /**
+     * Write each character of MSG with WRITER.
+     */
+    private void write(GroupWriter writer, String msg) throws IOException {
+        for (int i = 0; i < msg.length(); i++) {
+            writer.write(msg.charAt(i));
+        }
+    }
+
+    /**
+     * Return what a writer writes for the characters of MSG.
+     */
+    private String grouped(String msg) throws IOException {
+        StringBuilder result = new StringBuilder();
+        CharBuffer out = CharBuffer.allocate(2);
+        write(writer(out, result), msg);
+        return written(out, result);
+    }
+
+    @Test
+    public void testGroup() throws IOException {
+        assertEquals("", grouped(""));
+        assertEquals("ABC", grouped("A B C"));
+        assertEquals("ABCDE ", grouped("ABCDE"));
+        assertEquals("ABCDE FGHIJ K", grouped("AB CDEF GHI JK"));
+    }
+
+    @Test
+    public void testLines() throws IOException {
+        StringBuilder result = new StringBuilder();
+        CharBuffer out = CharBuffer.allocate(3);
+        GroupWriter writer = writer(out, result);
+        writer.startLine();
+        write(writer, "HELLO WOR");
+        write(writer, "LD");
+        writer.endLine();
+        assertEquals("HELLO WORLD ", written(out, result));
+        writer.startLine();
+        assertEquals("HELLO WORLD \n", written(out, result));
+        writer.startLine();
+        writer.blankLine();
+        writer.startLine();
+        write(writer, "BCDE");
+        writer.endLine();
+        assertEquals("HELLO WORLD \n\nBCDE", written(out, result));
+    }
+
+    @Test
+    public void testLongLine() throws IOException {
+        StringBuilder result = new StringBuilder();
+        CharBuffer out = CharBuffer.allocate(64);
+        GroupWriter writer = writer(out, result);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            char c = (char) ('A' + i % 26);
+            writer.write(c);
+            expected.append(c);
+            if (i % 5 == 4) {
+                expected.append(' ');
+            }
+        }
+        assertEquals(expected.toString(), written(out, result));
+    }
+
+}
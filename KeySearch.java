@@ -0,0 +1,213 @@
+package enigma;
+
+import static enigma.EnigmaException.error;
+
+/**
+ * Evaluates one message under many candidate rotor settings of a machine
+ * whose rotors, ring settings and plugboard are fixed, as in a search
+ * for the settings of an intercepted message.  Each candidate is scored
+ * by the number of characters of the message whose conversion from that
+ * setting matches a crib.  This class does so one candidate at a time;
+ * create() returns a VectorKeySearch, which evaluates one candidate per
+ * vector lane, where it has been built and the platform allows.  A
+ * KeySearch is not safe for use by several threads at once.
+ *
+ * @author Shreyansh Loharuka
+ */
+class KeySearch {
+
+    /**
+     * A search over settings of MACHINE's rotors, with its current
+     * rotors, ring settings and plugboard.  Later changes to MACHINE do
+     * not affect me.
+     */
+    KeySearch(Machine machine) {
+        CompiledMachine engine = machine.compile();
+        _tables = engine.tables();
+        _size = _tables.size();
+        _slots = _tables.slots();
+        _reflectorPosition = engine.position(0);
+        _position = new int[_slots];
+        _shift = new int[_slots];
+    }
+
+    /**
+     * Return a search over settings of MACHINE as by new
+     * KeySearch(MACHINE), evaluating candidates with vector operations
+     * if VectorKeySearch has been built, the jdk.incubator.vector module
+     * is present and the platform's vectors hold enough lanes, and one
+     * at a time otherwise.  VectorKeySearch is loaded by name, so that
+     * the other classes build and run without it.
+     */
+    static KeySearch create(Machine machine) {
+        try {
+            return (KeySearch) Class.forName(VECTOR_SEARCH)
+                    .getDeclaredConstructor(Machine.class)
+                    .newInstance(machine);
+        } catch (ReflectiveOperationException | LinkageError excp) {
+            /* Not built, no vector module, or vectors too narrow. */
+        }
+        return new KeySearch(machine);
+    }
+
+    /**
+     * Return the number of candidates I evaluate at once.
+     */
+    int lanes() {
+        return 1;
+    }
+
+    /**
+     * Return the number of rotor slots of my machine.
+     */
+    int numRotors() {
+        return _slots;
+    }
+
+    /**
+     * Return the size of my machine's alphabet.
+     */
+    int alphabetSize() {
+        return _size;
+    }
+
+    /**
+     * Return the tables of my machine.
+     */
+    RotorTables tables() {
+        return _tables;
+    }
+
+    /**
+     * Return the position of my machine's reflector, which no candidate
+     * changes.
+     */
+    int reflectorPosition() {
+        return _reflectorPosition;
+    }
+
+    /**
+     * Store in SCORES[j] the number of indices k for which converting
+     * TEXT, a message as alphabet indices, with the rotors set to
+     * candidate j gives CRIB[k] at k.  A negative CRIB[k] matches
+     * nothing, and the character there is not converted.
+     * SETTINGS[i - 1][j] is the position of the rotor in slot i for
+     * candidate j, for each slot i > 0.
+     */
+    void score(int[] text, int[] crib, int[][] settings, int[] scores) {
+        check(text, crib, settings, scores.length);
+        score(text, crib, settings, 0, scores.length, scores);
+    }
+
+    /**
+     * Store in SCORES the scores, as for score(TEXT, CRIB, SETTINGS,
+     * SCORES), of candidates FROM .. TO-1, which must have been checked.
+     */
+    void score(int[] text, int[] crib, int[][] settings, int from,
+               int to, int[] scores) {
+        for (int j = from; j < to; j++) {
+            setPositions(settings, j);
+            int score = 0;
+            for (int k = 0; k < text.length; k++) {
+                _tables.step(_position, _shift);
+                if (crib[k] >= 0
+                        && _tables.convert(text[k], _shift) == crib[k]) {
+                    score += 1;
+                }
+            }
+            scores[j] = score;
+        }
+    }
+
+    /**
+     * Check that TEXT and CRIB are a message and crib of the same
+     * length, and SETTINGS holds COUNT candidate settings of my slots.
+     */
+    void check(int[] text, int[] crib, int[][] settings, int count) {
+        if (text.length != crib.length) {
+            throw error("Crib length %d does not match message length %d",
+                    crib.length, text.length);
+        }
+        for (int c : text) {
+            if (c < 0 || c >= _size) {
+                throw error("Index %d out of range of alphabet!", c);
+            }
+        }
+        if (settings.length != _slots - 1) {
+            throw error("Expected settings for %d rotors", _slots - 1);
+        }
+        for (int[] row : settings) {
+            if (row.length < count) {
+                throw error("Expected settings for %d candidates", count);
+            }
+            for (int j = 0; j < count; j++) {
+                if (row[j] < 0 || row[j] >= _size) {
+                    throw error("Index %d out of range of alphabet!",
+                            row[j]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fill SETTINGS, which must hold settings of my slots, with COUNT
+     * consecutive candidates, starting with candidate number FIRST in
+     * the order in which the rightmost rotor changes fastest.
+     */
+    void enumerate(long first, int count, int[][] settings) {
+        for (int j = 0; j < count; j++) {
+            long number = first + j;
+            for (int i = _slots - 1; i > 0; i--) {
+                settings[i - 1][j] = (int) (number % _size);
+                number /= _size;
+            }
+        }
+    }
+
+    /**
+     * Set my rotors to the settings of candidate J in SETTINGS.
+     */
+    private void setPositions(int[][] settings, int j) {
+        _position[0] = _reflectorPosition;
+        for (int i = 1; i < _slots; i++) {
+            _position[i] = settings[i - 1][j];
+        }
+        _tables.shifts(_position, _shift);
+    }
+
+    /**
+     * Name of the class that evaluates candidates in vector lanes.
+     */
+    private static final String VECTOR_SEARCH = "enigma.VectorKeySearch";
+
+    /**
+     * Size of the alphabet.
+     */
+    private final int _size;
+
+    /**
+     * Number of rotor slots.
+     */
+    private final int _slots;
+
+    /**
+     * Wirings, notches, ring settings and plugboard of my machine.
+     */
+    private final RotorTables _tables;
+
+    /**
+     * Position of the reflector, which no candidate changes.
+     */
+    private final int _reflectorPosition;
+
+    /**
+     * Current setting of each slot while scoring a candidate.
+     */
+    private final int[] _position;
+
+    /**
+     * Current setting minus ring setting of each slot.
+     */
+    private final int[] _shift;
+
+}
@@ -0,0 +1,172 @@
+package enigma;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.Random;
+
+import static enigma.TestUtils.*;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The suite of all JUnit tests for the KeySearch and VectorKeySearch
+ * classes.
+ *
+ * @author Shreyansh Loharuka
+ */
+public class KeySearchTest {
+
+    /**
+     * Testing time limit.
+     */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    /**
+     * Rotor orders used by the machines of the tests.
+     */
+    private static final String[][] ORDERS = {
+        {"B", "Beta", "III", "IV", "I"}, {"C", "Gamma", "VI", "VII", "VIII"},
+        {"B", "Gamma", "V", "II", "VI"},
+    };
+
+    /**
+     * Return the setting string of candidate J in SETTINGS.
+     */
+    private String setting(int[][] settings, int j) {
+        StringBuilder result = new StringBuilder();
+        for (int[] row : settings) {
+            result.append(UPPER.toChar(row[j]));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Return the score of TEXT under CRIB on MACHINE, converting the
+     * whole of TEXT as Machine.convert does.
+     */
+    private int expected(Machine machine, int[] text, int[] crib) {
+        int score = 0;
+        for (int k = 0; k < text.length; k += 1) {
+            if (machine.convert(text[k]) == crib[k]) {
+                score += 1;
+            }
+        }
+        return score;
+    }
+
+    @Test
+    public void testSameAsMachine() {
+        Random random = new Random(22);
+        for (String[] order : ORDERS) {
+            String rings = randomMessage(random, 4);
+            String plugs = "(HQ) (EX) (IP) (TR) (BY)";
+            KeySearch scalar = new KeySearch(navalMachine(order, "AAAA",
+                    rings, plugs));
+            KeySearch search = KeySearch.create(navalMachine(order, "AAAA",
+                    rings, plugs));
+            int count = 4 * search.lanes() + 3;
+            int[][] settings = new int[4][count];
+            for (int[] row : settings) {
+                for (int j = 0; j < count; j += 1) {
+                    row[j] = random.nextInt(26);
+                }
+            }
+            int[] text = new int[300];
+            int[] crib = new int[text.length];
+            for (int k = 0; k < text.length; k += 1) {
+                text[k] = random.nextInt(26);
+                crib[k] = k % 5 == 0 ? -1 : random.nextInt(26);
+            }
+            int[] scores = new int[count];
+            int[] scalarScores = new int[count];
+            search.score(text, crib, settings, scores);
+            scalar.score(text, crib, settings, scalarScores);
+            for (int j = 0; j < count; j += 1) {
+                Machine machine = navalMachine(order, setting(settings, j),
+                        rings, plugs);
+                assertEquals("candidate " + j,
+                        expected(machine, text, crib), scores[j]);
+            }
+            assertArrayEquals(scores, scalarScores);
+        }
+    }
+
+    @Test
+    public void testFindsSetting() {
+        String[] order = ORDERS[0];
+        Machine machine = navalMachine(order, "AAAA", "BCDE", "(AQ) (ZF)");
+        KeySearch search = KeySearch.create(machine);
+        String plain = "WEATHERREPORTFORTHENORTHSEA";
+        String cipher = navalMachine(order, "QXAV", "BCDE", "(AQ) (ZF)")
+                .convert(plain);
+        int[] text = new int[cipher.length()];
+        int[] crib = new int[plain.length()];
+        for (int k = 0; k < text.length; k += 1) {
+            text[k] = UPPER.toInt(cipher.charAt(k));
+            crib[k] = UPPER.toInt(plain.charAt(k));
+        }
+        int count = 26 * 26 * 26;
+        int[][] settings = new int[4][count];
+        search.enumerate(UPPER.toInt('Q') * count, count, settings);
+        int[] scores = new int[count];
+        search.score(text, crib, settings, scores);
+        int best = 0;
+        for (int j = 1; j < count; j += 1) {
+            if (scores[j] > scores[best]) {
+                best = j;
+            }
+        }
+        assertEquals("QXAV", setting(settings, best));
+        assertEquals(plain.length(), scores[best]);
+    }
+
+    @Test
+    public void testEnumerate() {
+        KeySearch search = new KeySearch(navalMachine(ORDERS[0], "AAAA",
+                "AAAA", ""));
+        int[][] settings = new int[4][3];
+        search.enumerate(26 * 26 * 26 - 1, 3, settings);
+        assertEquals("AZZZ", setting(settings, 0));
+        assertEquals("BAAA", setting(settings, 1));
+        assertEquals("BAAB", setting(settings, 2));
+    }
+
+    @Test
+    public void testLanes() {
+        KeySearch search = KeySearch.create(navalMachine(ORDERS[0],
+                "AAAA", "AAAA", ""));
+        assertEquals(5, search.numRotors());
+        assertEquals(26, search.alphabetSize());
+        assertTrue(search.lanes() >= 1);
+        assertEquals(1, new KeySearch(navalMachine(ORDERS[0], "AAAA",
+                "AAAA", "")).lanes());
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testCribLength() {
+        KeySearch search = KeySearch.create(navalMachine(ORDERS[0],
+                "AAAA", "AAAA", ""));
+        search.score(new int[3], new int[2], new int[4][1], new int[1]);
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testSettingsShape() {
+        KeySearch search = KeySearch.create(navalMachine(ORDERS[0],
+                "AAAA", "AAAA", ""));
+        search.score(new int[3], new int[3], new int[3][1], new int[1]);
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testSettingOutOfRange() {
+        KeySearch search = KeySearch.create(navalMachine(ORDERS[0],
+                "AAAA", "AAAA", ""));
+        int[][] settings = new int[4][2];
+        settings[2][1] = 26;
+        search.score(new int[3], new int[3], settings, new int[2]);
+    }
+
+}
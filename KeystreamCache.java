@@ -0,0 +1,330 @@
+package enigma;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import static enigma.EnigmaException.error;
+
+/**
+ * A cache of the keystreams of recently used full machine settings.  The
+ * keystream of a setting holds, for each position of a message converted
+ * from it, the conversion of every character of the alphabet at that
+ * position, so a later message under the same setting is converted by
+ * table lookups.  Keystreams are filled in as messages are converted
+ * and together take at most a given number of bytes; when that is
+ * reached, the keystreams used least recently are discarded.  The cache
+ * may be shared by the threads converting sections at once.
+ *
+ * @author Shreyansh Loharuka
+ */
+class KeystreamCache {
+
+    /**
+     * An empty cache whose keystreams take at most BUDGET > 0 bytes.
+     */
+    KeystreamCache(long budget) {
+        if (budget <= 0) {
+            throw error("Keystream cache budget must be positive");
+        }
+        _budget = budget;
+        _entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Return the keystream of the rotors, positions, ring settings and
+     * plugboard MACHINE now has, starting an empty one if there is none.
+     */
+    synchronized Keystream get(Machine machine) {
+        Setting setting = new Setting(machine);
+        Keystream keystream = _entries.get(setting);
+        if (keystream != null) {
+            _hits += 1;
+            return keystream;
+        }
+        _misses += 1;
+        keystream = new Keystream(this, machine.alphabet().size());
+        _entries.put(setting, keystream);
+        return keystream;
+    }
+
+    /**
+     * Account for BYTES more held by KEYSTREAM, discarding the keystreams
+     * used least recently as needed.  Return false if KEYSTREAM has been
+     * discarded itself or the others do not hold enough.
+     */
+    private synchronized boolean reserve(Keystream keystream, long bytes) {
+        if (keystream._evicted || keystream._bytes + bytes > _budget) {
+            return false;
+        }
+        Iterator<Keystream> eldest = _entries.values().iterator();
+        while (_bytes + bytes > _budget) {
+            Keystream victim = eldest.next();
+            if (victim != keystream) {
+                eldest.remove();
+                victim._evicted = true;
+                _bytes -= victim._bytes;
+                _evictions += 1;
+            }
+        }
+        _bytes += bytes;
+        keystream._bytes += bytes;
+        return true;
+    }
+
+    /**
+     * Return the most bytes my keystreams take.
+     */
+    long budget() {
+        return _budget;
+    }
+
+    /**
+     * Return the bytes my keystreams take now.
+     */
+    synchronized long bytes() {
+        return _bytes;
+    }
+
+    /**
+     * Return the number of keystreams I hold.
+     */
+    synchronized int size() {
+        return _entries.size();
+    }
+
+    /**
+     * Return the number of calls to get() that found a keystream.
+     */
+    synchronized long hits() {
+        return _hits;
+    }
+
+    /**
+     * Return the number of calls to get() that started a keystream.
+     */
+    synchronized long misses() {
+        return _misses;
+    }
+
+    /**
+     * Return the number of keystreams discarded to make room for others.
+     */
+    synchronized long evictions() {
+        return _evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d hits, %d misses, %d evictions, %d bytes",
+                _hits, _misses, _evictions, _bytes);
+    }
+
+    /**
+     * The conversions of every character at the first positions of the
+     * messages converted from one setting.  Positions are stored in
+     * blocks of BLOCK_SIZE, which are never moved once filled, so they
+     * may be read while another thread appends to them.
+     */
+    static final class Keystream {
+
+        /**
+         * An empty keystream held by CACHE for an alphabet of SIZE
+         * characters.
+         */
+        private Keystream(KeystreamCache cache, int size) {
+            _cache = cache;
+            _size = size;
+            _blocks = new int[0][];
+        }
+
+        /**
+         * Return the number of positions I hold.
+         */
+        int length() {
+            return _length;
+        }
+
+        /**
+         * Return the conversion of C at POSITION, or -1 if I do not hold
+         * that position.
+         */
+        int lookup(long position, int c) {
+            if (position >= _length) {
+                return -1;
+            }
+            int p = (int) position;
+            return _blocks[p >> BLOCK_SHIFT][(p & BLOCK_MASK) * _size + c];
+        }
+
+        /**
+         * Return the conversion of C by MACHINE, which must have the
+         * setting of this keystream advanced by POSITION characters,
+         * advancing it by one more.  If POSITION is the first I do not
+         * hold and the cache has room, I then hold it.
+         */
+        int extend(long position, int c, Machine machine) {
+            synchronized (this) {
+                if (position == _length && (_length & BLOCK_MASK) != 0) {
+                    return append(c, machine, _blocks[_blocks.length - 1]);
+                }
+                if (position == _length && _length < Integer.MAX_VALUE
+                        && _cache.reserve(this, (long) Integer.BYTES
+                                * BLOCK_SIZE * _size)) {
+                    int[][] blocks = Arrays.copyOf(_blocks,
+                            _blocks.length + 1);
+                    blocks[_blocks.length] = new int[BLOCK_SIZE * _size];
+                    _blocks = blocks;
+                    return append(c, machine, blocks[blocks.length - 1]);
+                }
+            }
+            return machine.convert(c);
+        }
+
+        /**
+         * Convert C by MACHINE, storing its conversions at the next
+         * position in BLOCK, the last of my blocks.
+         */
+        private int append(int c, Machine machine, int[] block) {
+            int result = machine.convert(c, block,
+                    (_length & BLOCK_MASK) * _size);
+            _length += 1;
+            return result;
+        }
+
+        /**
+         * Log2 of the number of positions in each of my blocks.
+         */
+        static final int BLOCK_SHIFT = 8;
+
+        /**
+         * Number of positions in each of my blocks.
+         */
+        static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+        /**
+         * Mask giving the index of a position within its block.
+         */
+        private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+        /**
+         * The cache holding me.
+         */
+        private final KeystreamCache _cache;
+
+        /**
+         * Size of my alphabet.
+         */
+        private final int _size;
+
+        /**
+         * My blocks of positions.  _blocks[p >> BLOCK_SHIFT][(p &
+         * BLOCK_MASK) * _size + c] is the conversion of C at position
+         * P.  Replaced, never changed, when a block is added.
+         */
+        private volatile int[][] _blocks;
+
+        /**
+         * Number of positions I hold.  Written after the entries of the
+         * last of them, so that readers see them filled in.
+         */
+        private volatile int _length;
+
+        /**
+         * Bytes taken by my blocks, guarded by _cache.
+         */
+        private long _bytes;
+
+        /**
+         * True iff _cache has discarded me, so I no longer grow.
+         */
+        private volatile boolean _evicted;
+
+    }
+
+    /**
+     * A full machine setting: the rotors in each slot, their positions
+     * and ring settings, and the plugboard.
+     */
+    private static final class Setting {
+
+        /**
+         * The current setting of MACHINE.
+         */
+        Setting(Machine machine) {
+            Rotor[] slots = machine.rotorSlots();
+            if (slots == null) {
+                throw error("Rotors have not been inserted!");
+            }
+            Permutation plugboard = machine.plugboard();
+            int size = machine.alphabet().size();
+            _specs = new RotorSpec[slots.length];
+            _state = new int[2 * slots.length
+                    + (plugboard == null ? 0 : size)];
+            for (int i = 0; i < slots.length; i++) {
+                Permutation perm = slots[i].permutation();
+                _specs[i] = slots[i].spec();
+                _state[2 * i] = perm.wrap(slots[i].setting());
+                _state[2 * i + 1] = perm.wrap(slots[i].offset());
+            }
+            for (int k = 0; plugboard != null && k < size; k++) {
+                _state[2 * slots.length + k] = plugboard.permute(k);
+            }
+            _hash = 31 * Arrays.hashCode(_specs) + Arrays.hashCode(_state);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Setting)) {
+                return false;
+            }
+            Setting other = (Setting) obj;
+            return _hash == other._hash
+                    && Arrays.equals(_specs, other._specs)
+                    && Arrays.equals(_state, other._state);
+        }
+
+        @Override
+        public int hashCode() {
+            return _hash;
+        }
+
+        /**
+         * The rotor in each slot.
+         */
+        private final RotorSpec[] _specs;
+
+        /**
+         * The position and ring setting of each slot in turn, followed
+         * by the plugboard's image of each index if there is one.
+         */
+        private final int[] _state;
+
+        /**
+         * My hash code.
+         */
+        private final int _hash;
+
+    }
+
+    /**
+     * Most bytes my keystreams take.
+     */
+    private final long _budget;
+
+    /**
+     * My keystreams, least recently used first.
+     */
+    private final LinkedHashMap<Setting, Keystream> _entries;
+
+    /**
+     * Bytes my keystreams take now.
+     */
+    private long _bytes;
+
+    /**
+     * Counts of hits, misses and evictions.
+     */
+    private long _hits, _misses, _evictions;
+
+}
@@ -0,0 +1,163 @@
+package enigma;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The suite of all JUnit tests for the KeystreamCache class.
+ *
+ * @author Shreyansh Loharuka
+ */
+public class KeystreamCacheTest {
+
+    /**
+     * Testing time limit.
+     */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /**
+     * Bytes taken by one block of a keystream over a 26-letter alphabet.
+     */
+    private static final long BLOCK_BYTES =
+            Integer.BYTES * KeystreamCache.Keystream.BLOCK_SIZE * 26;
+
+    /**
+     * Rotors shared by the machines of each test.
+     */
+    private final RotorSpec[] _catalog =
+            TestUtils.navalMachine(TestUtils.NAVAL_NOTCHES).catalog();
+
+    /**
+     * Return a naval machine with rotors from _catalog, set to SETTING
+     * with plugboard PLUGS.
+     */
+    private Machine machine(String setting, String plugs) {
+        Machine machine = new Machine(TestUtils.UPPER, 5, 3, _catalog);
+        machine.insertRotors(new String[]{"B", "Beta", "III", "IV", "I"});
+        machine.setRotors(setting);
+        machine.setPlugboard(new Permutation(plugs, TestUtils.UPPER));
+        return machine;
+    }
+
+    /**
+     * Convert MSG, a sequence of indices, with MACHINE through KEYSTREAM
+     * as a MessageProcessor would, returning the results.
+     */
+    private int[] convert(KeystreamCache.Keystream keystream,
+                          Machine machine, int[] msg) {
+        int[] result = new int[msg.length];
+        long skipped = 0;
+        for (int i = 0; i < msg.length; i += 1) {
+            result[i] = keystream.lookup(i, msg[i]);
+            if (result[i] >= 0) {
+                skipped += 1;
+            } else {
+                if (skipped > 0) {
+                    machine.seek(skipped);
+                    skipped = 0;
+                }
+                result[i] = keystream.extend(i, msg[i], machine);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Return LENGTH random indices into a 26-letter alphabet.
+     */
+    private int[] message(Random random, int length) {
+        int[] msg = new int[length];
+        for (int i = 0; i < length; i += 1) {
+            msg[i] = random.nextInt(26);
+        }
+        return msg;
+    }
+
+    /**
+     * Return the conversion of MSG by a fresh machine set to SETTING
+     * with plugboard PLUGS.
+     */
+    private int[] expected(String setting, String plugs, int[] msg) {
+        Machine machine = machine(setting, plugs);
+        int[] result = new int[msg.length];
+        for (int i = 0; i < msg.length; i += 1) {
+            result[i] = machine.convert(msg[i]);
+        }
+        return result;
+    }
+
+    @Test
+    public void testSameSetting() {
+        KeystreamCache cache = new KeystreamCache(1 << 20);
+        KeystreamCache.Keystream first =
+                cache.get(machine("AXLE", "(HQ) (EX)"));
+        assertSame(first, cache.get(machine("AXLE", "(HQ) (EX)")));
+        assertNotSame(first, cache.get(machine("AXLF", "(HQ) (EX)")));
+        assertNotSame(first, cache.get(machine("AXLE", "(HQ) (EY)")));
+        assertNotSame(first, cache.get(machine("AXLE", "")));
+        assertEquals(1, cache.hits());
+        assertEquals(4, cache.misses());
+    }
+
+    @Test
+    public void testLookups() {
+        Random random = new Random(18);
+        KeystreamCache cache = new KeystreamCache(1 << 20);
+        int[] longer = message(random, 1000);
+        int[] shorter = message(random, 300);
+        int[] other = message(random, 1500);
+        for (int[] msg : new int[][]{longer, shorter, other, longer}) {
+            Machine machine = machine("AXLE", "(HQ) (EX) (IP)");
+            assertArrayEquals(expected("AXLE", "(HQ) (EX) (IP)", msg),
+                    convert(cache.get(machine), machine, msg));
+        }
+        assertEquals(1500,
+                cache.get(machine("AXLE", "(HQ) (EX) (IP)")).length());
+    }
+
+    @Test
+    public void testEviction() {
+        Random random = new Random(19);
+        KeystreamCache cache = new KeystreamCache(3 * BLOCK_BYTES);
+        int[] msg = message(random, 400);
+        for (String setting : new String[]{"AAAA", "BBBB", "AAAA"}) {
+            Machine machine = machine(setting, "");
+            assertArrayEquals(expected(setting, "", msg),
+                    convert(cache.get(machine), machine, msg));
+            assertTrue(cache.bytes() <= cache.budget());
+        }
+        assertEquals(2, cache.evictions());
+        assertEquals(0, cache.hits());
+    }
+
+    @Test
+    public void testOverBudget() {
+        Random random = new Random(20);
+        KeystreamCache cache = new KeystreamCache(BLOCK_BYTES);
+        int[] msg = message(random, 3 * KeystreamCache.Keystream.BLOCK_SIZE);
+        for (int k = 0; k < 2; k += 1) {
+            Machine machine = machine("ZZZZ", "(AB)");
+            assertArrayEquals(expected("ZZZZ", "(AB)", msg),
+                    convert(cache.get(machine), machine, msg));
+        }
+        assertEquals(KeystreamCache.Keystream.BLOCK_SIZE,
+                cache.get(machine("ZZZZ", "(AB)")).length());
+        assertEquals(BLOCK_BYTES, cache.bytes());
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testBadBudget() {
+        new KeystreamCache(0);
+    }
+
+}
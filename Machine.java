@@ -1,6 +1,13 @@
 package enigma;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CoderResult;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 
 /**
  * Class that represents a complete enigma machine.
@@ -20,6 +27,47 @@ class Machine {
         _allRotors = allRotors;
         _numrotors = numRotors;
         _pawls = pawls;
+        _inner = new int[alpha.size()];
+        _epoch = 1;
+        _catalogRotors = allRotors.toArray(new Rotor[0]);
+        _index = new HashMap<>(2 * _catalogRotors.length);
+        for (int k = _catalogRotors.length - 1; k >= 0; k--) {
+            _index.put(_catalogRotors[k].name(), k);
+        }
+    }
+
+    /**
+     * A new Enigma machine with alphabet ALPHA, 1 < NUMROTORS rotor slots,
+     * 0 <= PAWLS < NUMROTORS pawls, and a rotor of its own for each of
+     * the specifications in CATALOG.  Machines made from the same
+     * CATALOG share no mutable state.
+     */
+    Machine(Alphabet alpha, int numRotors, int pawls, RotorSpec[] catalog) {
+        this(alpha, numRotors, pawls, newRotors(catalog));
+    }
+
+    /**
+     * Return a new rotor for each of the specifications in CATALOG.
+     */
+    private static Collection<Rotor> newRotors(RotorSpec[] catalog) {
+        ArrayList<Rotor> rotors = new ArrayList<>(catalog.length);
+        for (RotorSpec spec : catalog) {
+            rotors.add(spec.newRotor());
+        }
+        return rotors;
+    }
+
+    /**
+     * Return the specifications of all my rotors, in the order of
+     * allRotors().
+     */
+    RotorSpec[] catalog() {
+        RotorSpec[] catalog = new RotorSpec[this._allRotors.size()];
+        int k = 0;
+        for (Rotor rotor : this._allRotors) {
+            catalog[k++] = rotor.spec();
+        }
+        return catalog;
     }
 
     /**
@@ -29,6 +77,13 @@ class Machine {
         return this._allRotors;
     }
 
+    /**
+     * Return my alphabet.
+     */
+    Alphabet alphabet() {
+        return this._alphabet;
+    }
+
     /**
      * Return the number of rotor slots I have.
      */
@@ -46,43 +101,90 @@ class Machine {
     /**
      * Set my rotor slots to the rotors named ROTORS from my set of
      * available rotors (ROTORS[0] names the reflector).
-     * Initially, all rotors are set at their 0 setting.
+     * Initially, all rotors are set at their 0 setting.  Names are
+     * looked up only when ROTORS differs from the previous call.
      */
     void insertRotors(String[] rotors) {
+        if (!Arrays.equals(rotors, this._lastOrder)) {
+            int[] handles = this.resolve(rotors);
+            this._lastOrder = rotors.clone();
+            this._lastHandles = handles;
+        }
+        this.insertRotors(this._lastHandles);
+    }
+
+    /**
+     * Return handles for the rotors named ROTORS, for use with
+     * insertRotors(int[]), checking them as insertRotors(String[])
+     * does.
+     */
+    int[] resolve(String[] rotors) {
         if (this.containsDuplicates(rotors)) {
             throw new EnigmaException("Duplicate rotors found in setting!");
         }
-        this._rotorSlots = new Rotor[rotors.length];
-        boolean found = false;
+        int[] handles = new int[rotors.length];
         for (int i = 0; i < rotors.length; i++) {
-            for (Rotor rotor : _allRotors) {
-                if (rotor.name().equals(rotors[i])) {
-                    if (i == 0 && !rotor.reflecting()) {
-                        throw new EnigmaException("The leftmost"
-                                + " rotor must be a reflecting rotor!");
-                    }
-                    _rotorSlots[i] = rotor;
-                    found = true;
-                    break;
-                }
-            }
-            if (!found) {
+            Integer k = _index.get(rotors[i]);
+            if (k == null) {
                 throw new EnigmaException("Rotor " + rotors[i]
                         + " Does not exist");
             }
-            found = false;
+            if (i == 0 && !_catalogRotors[k].reflecting()) {
+                throw new EnigmaException("The leftmost"
+                        + " rotor must be a reflecting rotor!");
+            }
+            handles[i] = k;
+        }
+        return handles;
+    }
+
+    /**
+     * Set my rotor slots to the rotors with HANDLES, as returned by
+     * resolve().
+     */
+    void insertRotors(int[] handles) {
+        this._rotorSlots = new Rotor[handles.length];
+        this._odometer = null;
+        this.invalidateInner();
+        for (int i = 0; i < handles.length; i++) {
+            Rotor rotor = _catalogRotors[handles[i]];
+            if (rotor.tableMemory() <= TABLE_BUDGET) {
+                rotor.precompute();
+            }
+            _rotorSlots[i] = rotor;
         }
+        this._composeInner = this.composeInner();
+    }
+
+    /**
+     * Return true iff convert(int) should use the composed mapping of my
+     * rotors other than the fast one.  It is filled in at most once for
+     * each character each time one of them moves, and with the usual
+     * stepping the rotor left of the fast one moves once every turn of
+     * it, so only about a third of its lookups find an entry.  That
+     * pays only when passing through those rotors is costly because
+     * they have no precomputed tables, or when they never move.
+     */
+    private boolean composeInner() {
+        int last = _rotorSlots.length - 1;
+        boolean moves = false;
+        for (int i = 0; i < last; i++) {
+            if (!_rotorSlots[i].precomputed()) {
+                return true;
+            }
+            moves |= _rotorSlots[i].rotates();
+        }
+        return !moves;
     }
 
     /**
      * Returns whether ARR contains duplicate elements.
      */
     private boolean containsDuplicates(String[] arr) {
-        for (int i = 0; i < arr.length; i++) {
-            for (int j = 0; j < arr.length; j++) {
-                if (i != j && arr[i].equals(arr[j])) {
-                    return true;
-                }
+        HashSet<String> seen = new HashSet<>(2 * arr.length);
+        for (String name : arr) {
+            if (!seen.add(name)) {
+                return true;
             }
         }
         return false;
@@ -101,12 +203,13 @@ class Machine {
         char[] settingArray = setting.toCharArray();
         for (int i = 1; i < _rotorSlots.length; i++) {
             char setTo = settingArray[i - 1];
-            if (!this._alphabet.chars().contains(Character.toString(setTo))) {
+            if (!this._alphabet.contains(setTo)) {
                 throw new EnigmaException("One of the setting"
                         + " letters of the rotors is invalid!");
             }
             _rotorSlots[i].set(setTo);
         }
+        this.invalidateInner();
     }
 
     /**
@@ -116,6 +219,13 @@ class Machine {
         this._plugboard = plugboard;
     }
 
+    /**
+     * Return my plugboard, or null if none has been set.
+     */
+    Permutation plugboard() {
+        return this._plugboard;
+    }
+
     /**
      * Returns the result of converting the input character C (as an
      * index in the range 0..alphabet size - 1), after first advancing
@@ -123,6 +233,30 @@ class Machine {
      * the machine.
      */
     int convert(int c) {
+        this.step();
+        if (this._composeInner) {
+            return this.scrambleComposed(c);
+        }
+        return this.scramble(c);
+    }
+
+    /**
+     * Advance my rotors as for converting another character, store the
+     * conversion of every index of my alphabet at their new positions in
+     * TABLE[OFF .. OFF+alphabet size-1], and return that of C.
+     */
+    int convert(int c, int[] table, int off) {
+        this.step();
+        for (int k = 0; k < this._alphabet.size(); k++) {
+            table[off + k] = this.scrambleComposed(k);
+        }
+        return table[off + c];
+    }
+
+    /**
+     * Advance my rotors as the machine does before each character.
+     */
+    private void step() {
         for (int i = _rotorSlots.length - 1; i > 0; i--) {
             if (_rotorSlots[i].atNotch()) {
                 if (!_rotorSlots[i - 1].rotated()
@@ -141,13 +275,23 @@ class Machine {
             Rotor fast = _rotorSlots[_rotorSlots.length - 1];
             fast.advance();
         }
-        for (Rotor rotor : _rotorSlots) {
+        for (int i = 0; i < _rotorSlots.length; i++) {
+            Rotor rotor = _rotorSlots[i];
             if (rotor.rotated()) {
                 rotor.set(rotor.newSetting());
+                if (i < _rotorSlots.length - 1) {
+                    this.invalidateInner();
+                }
             }
             rotor.setRotated(false);
         }
+    }
 
+    /**
+     * Return the conversion of C by my plugboard and rotors in their
+     * current positions.
+     */
+    private int scramble(int c) {
         if (this._plugboard != null) {
             c = _plugboard.permute(c);
         }
@@ -165,6 +309,103 @@ class Machine {
         return c;
     }
 
+    /**
+     * Return the conversion of C as by scramble(), passing only through
+     * the fast rotor directly and looking the rest up in the composed
+     * mapping _inner.
+     */
+    private int scrambleComposed(int c) {
+        if (this._plugboard != null) {
+            c = _plugboard.permute(c);
+        }
+        Rotor fast = _rotorSlots[_rotorSlots.length - 1];
+        c = fast.convertForward(c);
+        this._innerLookups += 1;
+        int entry = _inner[c];
+        if (entry >>> EPOCH_SHIFT == this._epoch) {
+            c = entry & INNER_MASK;
+        } else {
+            c = this.inner(c);
+        }
+        c = fast.convertBackward(c);
+        if (this._plugboard != null) {
+            c = _plugboard.invert(c);
+        }
+        return c;
+    }
+
+    /**
+     * Return the conversion of C by all my rotors but the fast one, from
+     * right to left, through the reflector, and back.
+     */
+    private int inner(int c) {
+        this._innerMisses += 1;
+        int last = _rotorSlots.length - 1;
+        int e = c;
+        for (int i = last - 1; i >= 0; i--) {
+            e = _rotorSlots[i].convertForward(e);
+        }
+        for (int i = 1; i < last; i++) {
+            e = _rotorSlots[i].convertBackward(e);
+        }
+        _inner[c] = this._epoch << EPOCH_SHIFT | e;
+        this._innerUsed = true;
+        return e;
+    }
+
+    /**
+     * Forget the composed mapping _inner, as a rotor other than the fast
+     * one has moved or been replaced.  It is filled in again as it is
+     * used.
+     */
+    private void invalidateInner() {
+        if (this._innerUsed) {
+            this._innerUsed = false;
+            this._innerRebuilds += 1;
+            this._epoch = (this._epoch + 1) & EPOCH_MASK;
+            if (this._epoch == 0) {
+                Arrays.fill(_inner, 0);
+                this._epoch = 1;
+            }
+        }
+    }
+
+    /**
+     * Return the number of times the composed mapping of my rotors other
+     * than the fast one has been discarded because one of them moved.
+     */
+    long innerRebuilds() {
+        return this._innerRebuilds;
+    }
+
+    /**
+     * Return the number of characters converted through the composed
+     * mapping of my rotors other than the fast one.
+     */
+    long innerLookups() {
+        return this._innerLookups;
+    }
+
+    /**
+     * Return the number of those characters for which it had to be
+     * computed by passing through each of those rotors.
+     */
+    long innerMisses() {
+        return this._innerMisses;
+    }
+
+    /**
+     * Return the number of single-rotor conversions the composed mapping
+     * has saved: 2 * numRotors() - 3 for each lookup that found it.
+     */
+    long innerSavings() {
+        if (this._rotorSlots == null) {
+            return 0;
+        }
+        return (this._innerLookups - this._innerMisses)
+                * (2L * this._rotorSlots.length - 3);
+    }
+
 
     /**
      * Returns the encoding/decoding of MSG, updating the state of
@@ -172,19 +413,177 @@ class Machine {
      */
     String convert(String msg) {
         char[] msgarr = msg.toCharArray();
-        for (int i = 0; i < msgarr.length; i++) {
-            if (msgarr[i] != ' ') {
-                if (!this._alphabet.contains(msgarr[i])) {
-                    throw new EnigmaException("Message Character"
-                            + " not in alphabet!");
+        this.convert(msgarr, 0, msgarr.length);
+        return new String(msgarr);
+    }
+
+    /**
+     * Replace CHARS[OFF .. OFF+LEN-1] by their encoding/decoding, as
+     * convert(String) does: spaces are left in place, and any other
+     * character not in my alphabet is an error, raised after converting
+     * the characters before it.
+     */
+    void convert(char[] chars, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            if (chars[i] != ' ') {
+                chars[i] = this.convertChar(chars[i]);
+            }
+        }
+    }
+
+    /**
+     * Replace BYTES[OFF .. OFF+LEN-1], each standing for the character
+     * with its unsigned value as code, by their encoding/decoding as
+     * convert(char[], int, int) does.  My alphabet must be single-byte.
+     */
+    void convert(byte[] bytes, int off, int len) {
+        if (!this._alphabet.singleByte()) {
+            throw new EnigmaException("Alphabet is not single-byte!");
+        }
+        for (int i = off; i < off + len; i++) {
+            char ch = (char) (bytes[i] & Alphabet.MAX_BYTE_CHAR);
+            if (ch != ' ') {
+                bytes[i] = (byte) this.convertChar(ch);
+            }
+        }
+    }
+
+    /**
+     * Convert the characters remaining in SRC into DST, as
+     * convert(String) does, advancing the positions of both, and report
+     * why I stopped as CharsetEncoder.encode does: UNDERFLOW once SRC is
+     * used up, OVERFLOW if DST is full first, and an unmappable-character
+     * result of length 1 if SRC's next character is neither a space nor
+     * in my alphabet.  Heap buffers are converted through their arrays;
+     * other buffers, direct or read-only ones, through their get and put
+     * methods.
+     */
+    CoderResult convert(CharBuffer src, CharBuffer dst) {
+        if (src.hasArray() && dst.hasArray()) {
+            char[] sa = src.array(), da = dst.array();
+            int sp = src.arrayOffset() + src.position();
+            int sl = src.arrayOffset() + src.limit();
+            int dp = dst.arrayOffset() + dst.position();
+            int dl = dst.arrayOffset() + dst.limit();
+            try {
+                for (; sp < sl; sp++, dp++) {
+                    if (dp == dl) {
+                        return CoderResult.OVERFLOW;
+                    }
+                    int ch = this.convertCode(sa[sp]);
+                    if (ch < 0) {
+                        return CoderResult.unmappableForLength(1);
+                    }
+                    da[dp] = (char) ch;
+                }
+                return CoderResult.UNDERFLOW;
+            } finally {
+                src.position(sp - src.arrayOffset());
+                dst.position(dp - dst.arrayOffset());
+            }
+        }
+        int sp = src.position(), sl = src.limit();
+        int dp = dst.position(), dl = dst.limit();
+        try {
+            for (; sp < sl; sp++, dp++) {
+                if (dp == dl) {
+                    return CoderResult.OVERFLOW;
                 }
-                int val = this._alphabet.toInt(msgarr[i]);
-                val = this.convert(val);
-                msgarr[i] = this._alphabet.toChar(val);
+                int ch = this.convertCode(src.get(sp));
+                if (ch < 0) {
+                    return CoderResult.unmappableForLength(1);
+                }
+                dst.put(dp, (char) ch);
+            }
+            return CoderResult.UNDERFLOW;
+        } finally {
+            src.position(sp);
+            dst.position(dp);
+        }
+    }
 
+    /**
+     * Convert the bytes remaining in SRC into DST, each byte standing for
+     * the character with its unsigned value as code, as
+     * convert(CharBuffer, CharBuffer) does.  My alphabet must be
+     * single-byte, as ASCII alphabets are.
+     */
+    CoderResult convert(ByteBuffer src, ByteBuffer dst) {
+        if (!this._alphabet.singleByte()) {
+            throw new EnigmaException("Alphabet is not single-byte!");
+        }
+        if (src.hasArray() && dst.hasArray()) {
+            byte[] sa = src.array(), da = dst.array();
+            int sp = src.arrayOffset() + src.position();
+            int sl = src.arrayOffset() + src.limit();
+            int dp = dst.arrayOffset() + dst.position();
+            int dl = dst.arrayOffset() + dst.limit();
+            try {
+                for (; sp < sl; sp++, dp++) {
+                    if (dp == dl) {
+                        return CoderResult.OVERFLOW;
+                    }
+                    int ch = this.convertCode(
+                            (char) (sa[sp] & Alphabet.MAX_BYTE_CHAR));
+                    if (ch < 0) {
+                        return CoderResult.unmappableForLength(1);
+                    }
+                    da[dp] = (byte) ch;
+                }
+                return CoderResult.UNDERFLOW;
+            } finally {
+                src.position(sp - src.arrayOffset());
+                dst.position(dp - dst.arrayOffset());
             }
         }
-        return new String(msgarr);
+        int sp = src.position(), sl = src.limit();
+        int dp = dst.position(), dl = dst.limit();
+        try {
+            for (; sp < sl; sp++, dp++) {
+                if (dp == dl) {
+                    return CoderResult.OVERFLOW;
+                }
+                int ch = this.convertCode(
+                        (char) (src.get(sp) & Alphabet.MAX_BYTE_CHAR));
+                if (ch < 0) {
+                    return CoderResult.unmappableForLength(1);
+                }
+                dst.put(dp, (byte) ch);
+            }
+            return CoderResult.UNDERFLOW;
+        } finally {
+            src.position(sp);
+            dst.position(dp);
+        }
+    }
+
+    /**
+     * Returns CH if it is a space, the encoding/decoding of CH after
+     * first advancing the machine if it is in my alphabet, and -1,
+     * leaving the machine as it is, otherwise.
+     */
+    private int convertCode(char ch) {
+        if (ch == ' ') {
+            return ch;
+        }
+        int val = this._alphabet.indexOf(ch);
+        if (val < 0) {
+            return -1;
+        }
+        return this._alphabet.toChar(this.convert(val));
+    }
+
+    /**
+     * Returns the encoding/decoding of CH, which must be in my alphabet,
+     * after first advancing the machine.
+     */
+    private char convertChar(char ch) {
+        int val = this._alphabet.indexOf(ch);
+        if (val < 0) {
+            throw new EnigmaException("Message Character"
+                    + " not in alphabet!");
+        }
+        return this._alphabet.toChar(this.convert(val));
     }
 
     /**
@@ -194,6 +593,46 @@ class Machine {
         return this._rotorSlots;
     }
 
+    /**
+     * Move my rotors to where they would be after converting N more
+     * characters, without converting them.
+     */
+    void seek(long n) {
+        if (n < 0) {
+            throw new EnigmaException("Cannot seek backwards!");
+        }
+        int[] pos = new int[_rotorSlots.length];
+        for (int i = 0; i < pos.length; i++) {
+            pos[i] = _rotorSlots[i].permutation()
+                    .wrap(_rotorSlots[i].setting());
+        }
+        this.odometer().seek(pos, n);
+        for (int i = 1; i < pos.length; i++) {
+            if (_rotorSlots[i].rotates()) {
+                _rotorSlots[i].set(pos[i]);
+            }
+        }
+        this.invalidateInner();
+    }
+
+    /**
+     * Return the stepping mechanism of my current rotors.
+     */
+    Odometer odometer() {
+        if (this._odometer == null) {
+            this._odometer = new Odometer(_rotorSlots);
+        }
+        return this._odometer;
+    }
+
+    /**
+     * Return a compiled engine that starts in my current state and
+     * converts exactly as I would.  Later changes to me do not affect it.
+     */
+    CompiledMachine compile() {
+        return new CompiledMachine(this);
+    }
+
     /**
      * Set my rings according to RING.
      */
@@ -202,8 +641,40 @@ class Machine {
             char ch = ring.charAt(i - 1);
             rotorSlots()[i].setOffSet(this._alphabet.toInt(ch));
         }
+        this.invalidateInner();
+    }
+
+    /**
+     * Return the ring setting of each of my rotors, inserted or not, in
+     * the order of allRotors().
+     */
+    int[] rings() {
+        int[] rings = new int[this._allRotors.size()];
+        int k = 0;
+        for (Rotor rotor : this._allRotors) {
+            rings[k++] = rotor.offset();
+        }
+        return rings;
     }
 
+    /**
+     * Set the ring setting of each of my rotors from RINGS, as returned
+     * by rings().
+     */
+    void setRings(int[] rings) {
+        int k = 0;
+        for (Rotor rotor : this._allRotors) {
+            rotor.setOffSet(rings[k++]);
+        }
+        this.invalidateInner();
+    }
+
+    /**
+     * Largest per-rotor table size, in bytes, for which inserted rotors
+     * get precomputed per-position tables.
+     */
+    static final long TABLE_BUDGET = 1 << 20;
+
     /**
      * Common alphabet of my rotors.
      */
@@ -229,6 +700,77 @@ class Machine {
      */
     private Rotor[] _rotorSlots;
 
+    /**
+     * My available rotors, in the order of allRotors().
+     */
+    private final Rotor[] _catalogRotors;
+
+    /**
+     * Index in _catalogRotors of the first rotor with each name.
+     */
+    private final HashMap<String, Integer> _index;
+
+    /**
+     * Names given to the last call of insertRotors(String[]), or null.
+     */
+    private String[] _lastOrder;
+
+    /**
+     * Handles of the rotors named by _lastOrder.
+     */
+    private int[] _lastHandles;
+
+    /**
+     * Stepping mechanism of my rotor slots, once computed.
+     */
+    private Odometer _odometer;
+
+    /**
+     * Number of low bits of an entry of _inner holding a conversion.
+     */
+    private static final int EPOCH_SHIFT = 16;
+
+    /**
+     * Mask selecting the conversion from an entry of _inner.
+     */
+    private static final int INNER_MASK = (1 << EPOCH_SHIFT) - 1;
+
+    /**
+     * Mask keeping an epoch within the high bits of an entry of _inner.
+     */
+    private static final int EPOCH_MASK = (1 << (32 - EPOCH_SHIFT)) - 1;
+
+    /**
+     * The composed mapping of my rotors other than the fast one.  If
+     * _inner[c] >>> EPOCH_SHIFT is _epoch, _inner[c] & INNER_MASK is
+     * the conversion of C from right to left through them, through the
+     * reflector and back; otherwise it has not been computed since one
+     * of them last moved.
+     */
+    private final int[] _inner;
+
+    /**
+     * The current epoch of _inner, which is never 0.  Advancing it
+     * discards all of _inner at once.
+     */
+    private int _epoch;
+
+    /**
+     * True iff convert(int) uses _inner (see composeInner()).
+     */
+    private boolean _composeInner;
+
+    /**
+     * True iff an entry of _inner has been computed in this epoch.
+     */
+    private boolean _innerUsed;
+
+    /**
+     * Counts of discards of _inner, of lookups in it, and of those that
+     * found no entry.
+     */
+    private long _innerRebuilds, _innerLookups, _innerMisses;
+
     /**
      * My plugboard permutations.
      */
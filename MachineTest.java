@@ -4,10 +4,18 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.Timeout;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class MachineTest {
     /**
@@ -376,5 +384,295 @@ public class MachineTest {
         System.out.println(actual);
     }
 
+    /**
+     * Check that seeking MACHINE ahead N characters leaves its rotors
+     * where converting N characters does.
+     */
+    private void checkSeek(String[] order, HashMap<String, String> notches,
+                           String setting, long n) {
+        Machine sought = TestUtils.navalMachine(notches);
+        sought.insertRotors(order);
+        sought.setRotors(setting);
+        sought.seek(n);
+        Machine stepped = TestUtils.navalMachine(notches);
+        stepped.insertRotors(order);
+        stepped.setRotors(setting);
+        for (long i = 0; i < n; i += 1) {
+            stepped.convert(0);
+        }
+        for (int i = 1; i < order.length; i += 1) {
+            Rotor expected = stepped.rotorSlots()[i];
+            Rotor actual = sought.rotorSlots()[i];
+            assertEquals("slot " + i + " after " + n,
+                    expected.permutation().wrap(expected.setting()),
+                    actual.permutation().wrap(actual.setting()));
+        }
+    }
+
+    @Test
+    public void testSeek() {
+        String[] order = new String[]{"B", "Beta", "III", "IV", "I"};
+        for (long n : new long[]{0, 1, 2, 25, 26, 27, 676, 17575, 20000}) {
+            checkSeek(order, TestUtils.NAVAL_NOTCHES, "AXLE", n);
+            checkSeek(order, TestUtils.NAVAL_NOTCHES, "AAIP", n);
+        }
+    }
+
+    @Test
+    public void testSeekMultipleNotches() {
+        String[] order = new String[]{"C", "VI", "VII", "VIII", "II"};
+        for (long n = 0; n < 2000; n += 37) {
+            checkSeek(order, TestUtils.NAVAL_NOTCHES, "LZMY", n);
+        }
+    }
+
+    @Test
+    public void testSeekAdjacentNotches() {
+        HashMap<String, String> notches =
+                new HashMap<>(TestUtils.NAVAL_NOTCHES);
+        notches.put("IV", "ABCXYZ");
+        notches.put("I", "QR");
+        String[] order = new String[]{"B", "III", "II", "IV", "I"};
+        for (long n = 0; n < 3000; n += 101) {
+            checkSeek(order, notches, "ZYAQ", n);
+        }
+    }
+
+    @Test
+    public void testSeekThenConvert() {
+        String[] order = new String[]{"B", "Beta", "III", "IV", "I"};
+        String msg = "FROMHISSHOULDERHIAWATHATOOKTHECAMERAOFROSEWOOD";
+        Machine machine = TestUtils.navalMachine(order, "AXLE", "AAAA",
+                "(HQ) (EX) (IP) (TR) (BY)");
+        String whole = machine.convert(msg);
+        machine.setRotors("AXLE");
+        machine.seek(20);
+        assertEquals(whole.substring(20), machine.convert(msg.substring(20)));
+    }
+
+    @Test
+    public void testSharedCatalog() {
+        String[] order = new String[]{"B", "Beta", "III", "IV", "I"};
+        String msg = "FROMHISSHOULDERHIAWATHATOOKTHECAMERAOFROSEWOOD";
+        Machine first = TestUtils.navalMachine(order, "AXLE", "AAAA",
+                "(HQ) (EX) (IP) (TR) (BY)");
+        RotorSpec[] catalog = first.catalog();
+        Machine second = new Machine(first.alphabet(), 5, 3, catalog);
+        second.insertRotors(order);
+        second.setRotors("AXLE");
+        second.setOffset("BBBB");
+        second.setPlugboard(first.plugboard());
+        String expected = TestUtils.navalMachine(order, "AXLE", "AAAA",
+                "(HQ) (EX) (IP) (TR) (BY)").convert(msg);
+        second.convert(msg);
+        assertEquals(expected, first.convert(msg));
+        for (int i = 0; i < catalog.length; i += 1) {
+            assertEquals(catalog[i], second.catalog()[i]);
+        }
+        assertEquals(0, first.rotorSlots()[2].offset());
+        assertEquals(1, second.rotorSlots()[2].offset());
+    }
+
+    @Test
+    public void testCatalogAcrossThreads() throws InterruptedException {
+        String[] order = new String[]{"B", "Beta", "III", "IV", "I"};
+        String msg = TestUtils.randomMessage(new Random(3), 20000);
+        Machine prototype = TestUtils.navalMachine(order, "AXLE", "AAAA",
+                "(HQ) (EX) (IP) (TR) (BY)");
+        String expected = prototype.convert(msg);
+        RotorSpec[] catalog = prototype.catalog();
+        String[] results = new String[4];
+        Thread[] threads = new Thread[results.length];
+        for (int t = 0; t < threads.length; t += 1) {
+            int k = t;
+            threads[t] = new Thread(() -> {
+                Machine machine = new Machine(TestUtils.UPPER, 5, 3,
+                        catalog);
+                machine.insertRotors(order);
+                machine.setRotors("AXLE");
+                machine.setPlugboard(prototype.plugboard());
+                results[k] = machine.convert(msg);
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (String result : results) {
+            assertEquals(expected, result);
+        }
+    }
+
+    @Test
+    public void testResolve() {
+        String[] order = new String[]{"B", "Beta", "III", "IV", "I"};
+        String msg = "FROMHISSHOULDERHIAWATHATOOKTHECAMERAOFROSEWOOD";
+        Machine named = TestUtils.navalMachine(order, "AXLE", "AAAA",
+                "(HQ) (EX) (IP) (TR) (BY)");
+        Machine resolved = TestUtils.navalMachine(TestUtils.NAVAL_NOTCHES);
+        int[] handles = resolved.resolve(order);
+        resolved.insertRotors(handles);
+        resolved.setRotors("AXLE");
+        resolved.setPlugboard(named.plugboard());
+        for (int i = 0; i < order.length; i += 1) {
+            assertEquals(order[i], resolved.rotorSlots()[i].name());
+        }
+        assertEquals(named.convert(msg), resolved.convert(msg));
+    }
+
+    @Test
+    public void testRepeatedOrder() {
+        String[] order = new String[]{"B", "Beta", "III", "IV", "I"};
+        Machine machine = TestUtils.navalMachine(TestUtils.NAVAL_NOTCHES);
+        machine.insertRotors(order);
+        Rotor[] first = machine.rotorSlots().clone();
+        order[4] = "II";
+        machine.insertRotors(order);
+        assertEquals("II", machine.rotorSlots()[4].name());
+        machine.insertRotors(new String[]{"B", "Beta", "III", "IV", "I"});
+        assertArrayEquals(first, machine.rotorSlots());
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testDuplicateRotors() {
+        Machine machine = TestUtils.navalMachine(TestUtils.NAVAL_NOTCHES);
+        machine.insertRotors(new String[]{"B", "Beta", "III", "IV", "III"});
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testMissingRotorAfterValidOrder() {
+        Machine machine = TestUtils.navalMachine(TestUtils.NAVAL_NOTCHES);
+        machine.insertRotors(new String[]{"B", "Beta", "III", "IV", "I"});
+        machine.insertRotors(new String[]{"B", "Beta", "III", "IV", "IX"});
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testNonReflectorFirst() {
+        Machine machine = TestUtils.navalMachine(TestUtils.NAVAL_NOTCHES);
+        machine.resolve(new String[]{"Beta", "B", "III", "IV", "I"});
+    }
+
+    @Test
+    public void testComposedMapping() {
+        String msg = TestUtils.randomMessage(new Random(19), 5000);
+        Machine machine = new Machine(TestUtils.UPPER, 3, 1,
+                TestUtils.navalMachine(TestUtils.NAVAL_NOTCHES).catalog());
+        machine.insertRotors(new String[]{"B", "Beta", "I"});
+        machine.setRotors("AX");
+        machine.setPlugboard(new Permutation("(HQ) (EX) (IP)",
+                TestUtils.UPPER));
+        CompiledMachine compiled = machine.compile();
+        for (int i = 0; i < msg.length(); i += 1) {
+            int c = msg.charAt(i) - 'A';
+            assertEquals("at " + i, compiled.convert(c), machine.convert(c));
+            if (i % 1000 == 999) {
+                machine.setRotors("QE");
+                machine.setOffset("ZA");
+                compiled = machine.compile();
+            }
+        }
+        assertEquals(5000, machine.innerLookups());
+        assertEquals(5, machine.innerRebuilds());
+        assertEquals(true, machine.innerMisses() <= 5 * 26);
+        assertEquals((5000 - machine.innerMisses()) * 3,
+                machine.innerSavings());
+    }
+
+    @Test
+    public void testComposedMappingAfterSeek() {
+        String[] order = new String[]{"B", "Beta", "III", "IV", "I"};
+        String msg = "FROMHISSHOULDERHIAWATHATOOKTHECAMERAOFROSEWOOD";
+        Machine machine = TestUtils.navalMachine(order, "AXLE", "AAAA",
+                "(HQ) (EX) (IP) (TR) (BY)");
+        String whole = machine.convert(msg + msg);
+        machine.setRotors("AXLE");
+        machine.convert(msg);
+        machine.setRotors("AXLE");
+        machine.seek(msg.length());
+        assertEquals(whole.substring(msg.length()), machine.convert(msg));
+    }
+
+    /**
+     * Return a naval machine in the same state each time.
+     */
+    private Machine bufferMachine() {
+        return TestUtils.navalMachine(new String[]{"B", "Beta", "III", "IV",
+            "I"}, "AXLE", "BCDE", "(HQ) (EX) (IP) (TR) (BY)");
+    }
+
+    @Test
+    public void testConvertCharBuffers() {
+        String msg = TestUtils.randomMessage(new Random(24), 700)
+                .replace('Q', ' ');
+        String expected = bufferMachine().convert(msg);
+        CharBuffer[] sources = {
+            CharBuffer.wrap("xx" + msg + "yy", 2, 2 + msg.length()).slice(),
+            CharBuffer.wrap(msg).asReadOnlyBuffer(),
+        };
+        for (CharBuffer src : sources) {
+            Machine machine = bufferMachine();
+            CharBuffer dst = CharBuffer.allocate(100);
+            StringBuilder result = new StringBuilder();
+            CoderResult cr;
+            do {
+                cr = machine.convert(src, dst);
+                dst.flip();
+                result.append(dst);
+                dst.clear();
+            } while (cr.isOverflow());
+            assertTrue(cr.isUnderflow());
+            assertEquals(expected, result.toString());
+        }
+    }
+
+    @Test
+    public void testConvertByteBuffers() {
+        String msg = TestUtils.randomMessage(new Random(25), 500);
+        byte[] bytes = msg.getBytes(StandardCharsets.US_ASCII);
+        String expected = bufferMachine().convert(msg);
+        for (boolean direct : new boolean[]{false, true}) {
+            Machine machine = bufferMachine();
+            ByteBuffer src = direct ? ByteBuffer.allocateDirect(bytes.length)
+                    : ByteBuffer.allocate(bytes.length);
+            src.put(bytes).flip();
+            ByteBuffer dst = direct ? ByteBuffer.allocateDirect(1000)
+                    : ByteBuffer.allocate(1000);
+            dst.position(10);
+            assertTrue(machine.convert(src, dst).isUnderflow());
+            assertEquals(bytes.length + 10, dst.position());
+            assertEquals(src.limit(), src.position());
+            byte[] result = new byte[bytes.length];
+            dst.position(10);
+            dst.get(result);
+            assertEquals(expected,
+                    new String(result, StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    public void testConvertBufferUnmappable() {
+        Machine machine = bufferMachine();
+        CharBuffer src = CharBuffer.wrap("HELLO WORLD\nAGAIN");
+        CharBuffer dst = CharBuffer.allocate(20);
+        CoderResult cr = machine.convert(src, dst);
+        assertTrue(cr.isUnmappable());
+        assertEquals(1, cr.length());
+        assertEquals(11, src.position());
+        assertEquals(11, dst.position());
+        src.position(12);
+        assertTrue(machine.convert(src, dst).isUnderflow());
+        dst.flip();
+        assertEquals(bufferMachine().convert("HELLO WORLDAGAIN"),
+                dst.toString());
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testConvertByteBufferWideAlphabet() {
+        Alphabet alpha = new Alphabet("A\u03a9");
+        Machine machine = new Machine(alpha, 1, 0,
+                List.of(new Reflector("R", new Permutation("(A\u03a9)",
+                        alpha))));
+        machine.convert(ByteBuffer.allocate(1), ByteBuffer.allocate(1));
+    }
 
 }
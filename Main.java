@@ -1,13 +1,23 @@
 package enigma;
 
-import java.io.File;
 import java.io.IOException;
-import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.NoSuchElementException;
-import java.util.Scanner;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static enigma.EnigmaException.error;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
 
 /**
  * Enigma simulator.
@@ -26,6 +36,20 @@ public final class Main {
      * file for processed messages.  Otherwise, output goes to the
      * standard output. Exits normally if there are no errors in the input;
      * otherwise with code 1.
+     * Options may precede ARGS: --mmap memory-maps the input and output
+     * files and reports throughput on the standard error.  It has no
+     * effect unless both are regular files.  --parallel=N converts the
+     * sections started by each setting line on N threads at once, and
+     * takes precedence over --mmap.  --stats reports the time taken to
+     * read the configuration, and how often setting lines reused a
+     * cached rotor order or plugboard, on the standard error.
+     * --catalog reads the configuration from its compiled form, ARGS[0]
+     * followed by ".ecat", compiling it first if that is missing or
+     * older than ARGS[0]; --catalog=FILE names the compiled form
+     * explicitly; if it cannot be written, the configuration is used
+     * without it.  --keystreams=MB keeps up to MB megabytes of
+     * keystreams, so that messages under a full setting seen before are
+     * converted by table lookups.
      */
     public static void main(String... args) {
         try {
@@ -41,42 +65,107 @@ public final class Main {
      * Check ARGS and open the necessary files (see comment on main).
      */
     Main(String[] args) {
+        args = this.readOptions(args);
         if (args.length < 1 || args.length > 3) {
             throw error("Only 1, 2, or 3 command-line arguments allowed");
         }
 
+        _configName = args[0];
         _config = getInput(args[0]);
+        if (_catalogName != null && _catalogName.isEmpty()) {
+            _catalogName = args[0] + CatalogFile.SUFFIX;
+        }
 
         if (args.length > 1) {
-            _input = getInput(args[1]);
+            _input = getInputChannel(args[1]);
+            _inputFile = Files.isRegularFile(Paths.get(args[1]));
         } else {
-            _input = new Scanner(System.in);
+            _input = Channels.newChannel(System.in);
         }
 
         if (args.length > 2) {
             _output = getOutput(args[2]);
+            _outputFile = Files.isRegularFile(Paths.get(args[2]));
         } else {
-            _output = System.out;
+            _output = Channels.newChannel(System.out);
+        }
+    }
+
+    /**
+     * Record the options at the start of ARGS and return the remaining
+     * arguments.
+     */
+    private String[] readOptions(String[] args) {
+        int k;
+        for (k = 0; k < args.length && args[k].startsWith("--"); k++) {
+            if (args[k].equals("--mmap")) {
+                _mapped = true;
+            } else if (args[k].equals("--stats")) {
+                _stats = true;
+            } else if (args[k].equals("--catalog")) {
+                _catalogName = "";
+            } else if (args[k].startsWith("--catalog=")) {
+                _catalogName = args[k].substring(10);
+            } else if (args[k].startsWith("--keystreams=")) {
+                long megabytes;
+                try {
+                    megabytes = Long.parseLong(args[k].substring(13));
+                } catch (NumberFormatException excp) {
+                    throw error("Bad keystream budget in %s", args[k]);
+                }
+                if (megabytes < 1 || megabytes > MAX_KEYSTREAM_MB) {
+                    throw error("Bad keystream budget in %s", args[k]);
+                }
+                _keystreams = new KeystreamCache(megabytes << 20);
+            } else if (args[k].startsWith("--parallel=")) {
+                try {
+                    _threads = Integer.parseInt(args[k].substring(11));
+                } catch (NumberFormatException excp) {
+                    throw error("Bad thread count in %s", args[k]);
+                }
+                if (_threads < 1) {
+                    throw error("Bad thread count in %s", args[k]);
+                }
+            } else {
+                throw error("Unknown option %s", args[k]);
+            }
+        }
+        return Arrays.copyOfRange(args, k, args.length);
+    }
+
+    /**
+     * Return a ConfigParser reading from the file named NAME.
+     */
+    private ConfigParser getInput(String name) {
+        try {
+            return new ConfigParser(Files.newInputStream(Paths.get(name)));
+        } catch (IOException excp) {
+            throw error("could not open %s", name);
         }
     }
 
     /**
-     * Return a Scanner reading from the file named NAME.
+     * Return a channel reading from the file named NAME.
      */
-    private Scanner getInput(String name) {
+    private FileChannel getInputChannel(String name) {
         try {
-            return new Scanner(new File(name));
+            return FileChannel.open(Paths.get(name));
         } catch (IOException excp) {
             throw error("could not open %s", name);
         }
     }
 
     /**
-     * Return a PrintStream writing to the file named NAME.
+     * Return a channel writing to the file named NAME.
      */
-    private PrintStream getOutput(String name) {
+    private FileChannel getOutput(String name) {
         try {
-            return new PrintStream(new File(name));
+            if (_mapped) {
+                return FileChannel.open(Paths.get(name), READ, WRITE,
+                        CREATE, TRUNCATE_EXISTING);
+            }
+            return FileChannel.open(Paths.get(name), WRITE, CREATE,
+                    TRUNCATE_EXISTING);
         } catch (IOException excp) {
             throw error("could not open %s", name);
         }
@@ -87,53 +176,133 @@ public final class Main {
      * file _config and apply it to the messages in _input, sending the
      * results to _output.
      */
-    private void process() {
-        Machine machine = this.readConfig();
-        String asterisk = this._input.next();
-        if (asterisk.charAt(0) != '*') {
-            throw new EnigmaException("No Configuration");
-        }
-        while (this._input.hasNextLine()) {
-            String get = this._input.nextLine();
-            if (get.equals("")) {
-                _output.println();
-                continue;
-            }
-            if (asterisk.equals("*") || get.charAt(0) == '*') {
-                asterisk = "";
-                get = get.substring(1).trim();
-                String[] setup = get.split("\\s");
-
-                if (setup.length < machine.numRotors() + 1) {
-                    throw new EnigmaException("Wrong arguments in setup line");
+    void process() {
+        Machine machine = _catalogName == null ? this.readConfig()
+                : this.readCatalog();
+        Machine[] machines = { machine };
+        try {
+            if (_threads > 1) {
+                machines = new Machine[_threads];
+                machines[0] = machine;
+                for (int i = 1; i < _threads; i++) {
+                    machines[i] = this.newMachine();
                 }
-
-                String[] rotors = new String[machine.numRotors()];
-                System.arraycopy(setup, 0, rotors, 0, machine.numRotors());
-
-                machine.insertRotors(rotors);
-                this.setUp(machine, setup[machine.numRotors()]);
-                int p = 1;
-                if (setup.length > machine.numRotors() + 1) {
-                    if (!setup[machine.numRotors() + 1].contains("(")) {
-                        p++;
-                        machine.setOffset(setup[machine.numRotors() + 1]);
-                    }
+                new ParallelSections(this, machines, this.newMachine(),
+                        this._output).read(this._input);
+            } else if (_mapped && _inputFile && _outputFile) {
+                this.processMapped(machine);
+            } else {
+                new MessageProcessor(this, machine, this._output)
+                        .read(this._input);
+            }
+            if (this._input instanceof FileChannel) {
+                this._input.close();
+            }
+            if (this._output instanceof FileChannel) {
+                this._output.close();
+            }
+            if (this._stats) {
+                System.err.printf("Rotor order cache: %s%n", this._orders);
+                System.err.printf("Plugboard cache: %s%n", this._plugboards);
+                long rebuilds = 0, misses = 0, lookups = 0, savings = 0;
+                for (Machine m : machines) {
+                    rebuilds += m.innerRebuilds();
+                    misses += m.innerMisses();
+                    lookups += m.innerLookups();
+                    savings += m.innerSavings();
                 }
-                String plug = "";
-                for (int i = machine.numRotors() + p; i < setup.length; i++) {
-                    plug = plug + " " + setup[i];
+                System.err.printf("Composed mapping (machines: %d): %d"
+                        + " rebuilds, %d of %d lookups computed, %d rotor"
+                        + " conversions saved%n", machines.length,
+                        rebuilds, misses, lookups, savings);
+                if (this._keystreams != null) {
+                    System.err.printf("Keystream cache: %s%n",
+                            this._keystreams);
                 }
-                if (!plug.equals("")) {
-                    Permutation plugboard = new Permutation(plug, _alphabet);
-                    machine.setPlugboard(plugboard);
+            }
+        } catch (IOException excp) {
+            throw error("I/O error: %s", excp.getMessage());
+        }
+    }
+
+    /**
+     * Apply MACHINE to the messages in _input, memory-mapping both it
+     * and _output, and report the throughput achieved.
+     */
+    private void processMapped(Machine machine) throws IOException {
+        FileChannel input = (FileChannel) this._input;
+        FileChannel output = (FileChannel) this._output;
+        long start = System.nanoTime();
+        MappedMessageProcessor processor =
+                new MappedMessageProcessor(this, machine, output);
+        processor.read(input);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("Converted %d bytes into %d bytes in %.3f s"
+                + " (%.1f MB/s)%n", processor.bytesRead(),
+                processor.bytesWritten(), seconds,
+                processor.bytesRead() / 1e6 / Math.max(seconds, 1e-9));
+    }
+
+    /**
+     * Reset M according to the setting line SETTINGS, which is a
+     * '*' line without its leading '*'.
+     */
+    void configure(Machine M, String settings) {
+        String get = settings.trim();
+        String[] setup = get.split("\\s");
+
+        if (setup.length < M.numRotors() + 1) {
+            throw new EnigmaException("Wrong arguments in setup line");
+        }
+
+        String[] rotors = new String[M.numRotors()];
+        System.arraycopy(setup, 0, rotors, 0, M.numRotors());
+
+        M.insertRotors(_orders.get(String.join(" ", rotors),
+                order -> M.resolve(rotors)));
+        this.setUp(M, setup[M.numRotors()]);
+        int p = 1;
+        if (setup.length > M.numRotors() + 1) {
+            if (!setup[M.numRotors() + 1].contains("(")) {
+                p++;
+                M.setOffset(setup[M.numRotors() + 1]);
+            }
+        }
+        if (setup.length > M.numRotors() + p) {
+            String plug = String.join(" ", Arrays.copyOfRange(setup,
+                    M.numRotors() + p, setup.length));
+            M.setPlugboard(_plugboards.get(plugboardKey(plug),
+                    key -> new Permutation(plug, M.alphabet())));
+        }
+    }
+
+    /**
+     * Return the key under which the plugboard with cycles CYCLES is
+     * cached.  Spellings of the same cycles in another order, or with a
+     * cycle starting elsewhere, as "(CD) (AB)" and "(BA) (CD)", have the
+     * same key: each cycle is rotated to start with its least character
+     * and the cycles are sorted.  CYCLES is its own key unless it is a
+     * sequence of parenthesized cycles without spaces inside them.
+     */
+    private static String plugboardKey(String cycles) {
+        if (!CYCLES.matcher(cycles).matches()) {
+            return cycles;
+        }
+        ArrayList<String> sorted = new ArrayList<>();
+        Matcher cycle = CYCLE.matcher(cycles);
+        while (cycle.find()) {
+            String c = cycle.group(1);
+            int least = 0;
+            for (int i = 1; i < c.length(); i++) {
+                if (c.charAt(i) < c.charAt(least)) {
+                    least = i;
                 }
-            } else {
-                String converted = machine.convert(get).trim();
-                printMessageLine(converted);
             }
+            sorted.add("(" + c.substring(least) + c.substring(0, least)
+                    + ")");
         }
-        this._config.close();
+        sorted.sort(null);
+        return String.join(" ", sorted);
     }
 
     /**
@@ -141,43 +310,138 @@ public final class Main {
      * file _config.
      */
     public Machine readConfig() {
+        long start = System.nanoTime();
+        ArrayList<Rotor> allRotors = new ArrayList<Rotor>();
+        int pawls = 0, numrotors = 0;
+        int line = this._config.line(), column = this._config.column();
+        String chars = this._config.next("configuration file truncated");
         try {
-            ArrayList<Rotor> allRotors = new ArrayList<Rotor>();
-            int pawls = 0, numrotors = 0;
-            this._alphabet = new Alphabet(this._config.next());
-            if (!this._config.hasNextInt()) {
-                throw new EnigmaException("Enter numRotors after alphabets!");
+            this._alphabet = new Alphabet(chars);
+        } catch (EnigmaException excp) {
+            throw this._config.error(excp.getMessage(), line, column);
+        }
+        if (!this._config.hasNextInt()) {
+            throw this._config.error("Enter numRotors after alphabets!");
+        }
+        numrotors = this._config.nextInt();
+        if (!this._config.hasNextInt()) {
+            throw this._config.error("Enter the numPawls after rotors!");
+        }
+        pawls = this._config.nextInt();
+        while (this._config.hasNext()) {
+            allRotors.add(this.readRotor());
+        }
+        this._config.close();
+        this._catalog = new RotorSpec[allRotors.size()];
+        for (int i = 0; i < this._catalog.length; i++) {
+            this._catalog[i] = allRotors.get(i).spec();
+        }
+        this._numRotors = numrotors;
+        this._pawls = pawls;
+        this.clearSetups();
+        if (this._stats) {
+            System.err.printf("Read %d rotors in %.3f ms%n", allRotors.size(),
+                    (System.nanoTime() - start) / 1e6);
+        }
+        return new Machine(_alphabet, numrotors, pawls, allRotors);
+    }
+
+    /**
+     * Return an Enigma machine configured from the compiled catalog
+     * _catalogName, after compiling it from _config if it is missing or
+     * stale.  If the compiled form cannot be written, the machine read
+     * from _config is returned all the same.
+     */
+    Machine readCatalog() {
+        long start = System.nanoTime();
+        Path source = Paths.get(_configName);
+        Path target = Paths.get(_catalogName);
+        try {
+            CatalogFile catalog;
+            try {
+                catalog = CatalogFile.load(target);
+            } catch (EnigmaException excp) {
+                catalog = null;
             }
-            numrotors = this._config.nextInt();
-            if (!this._config.hasNextInt()) {
-                throw new EnigmaException("Enter the numPawls after rotors!");
+            if (catalog != null && catalog.matches(source)) {
+                this._config.close();
+                this._alphabet = catalog.alphabet();
+                this._numRotors = catalog.numRotors();
+                this._pawls = catalog.numPawls();
+                this._catalog = catalog.rotors();
+                this.clearSetups();
+                if (this._stats) {
+                    System.err.printf("Loaded %d rotors from %s in %.3f ms%n",
+                            this._catalog.length, target,
+                            (System.nanoTime() - start) / 1e6);
+                }
+                return this.newMachine();
             }
-            pawls = this._config.nextInt();
-            while (this._config.hasNext()) {
-                allRotors.add(this.readRotor());
+            long size = Files.size(source);
+            long modified = Files.getLastModifiedTime(source).toMillis();
+            Machine machine = this.readConfig();
+            try {
+                new CatalogFile(_alphabet, _numRotors, _pawls, _catalog,
+                        size, modified).write(target);
+            } catch (IOException excp) {
+                if (this._stats) {
+                    System.err.printf("Catalog %s not written: %s%n",
+                            target, excp);
+                }
             }
-            this._config.close();
-            return new Machine(_alphabet, numrotors, pawls, allRotors);
-        } catch (NoSuchElementException excp) {
-            throw error("configuration file truncated");
+            return machine;
+        } catch (IOException excp) {
+            throw error("could not use catalog %s: %s", target,
+                    excp.getMessage());
         }
     }
 
+    /**
+     * Return the cache of keystreams shared by everything converting
+     * messages for me, or null if none is kept (--keystreams).
+     */
+    KeystreamCache keystreams() {
+        return this._keystreams;
+    }
+
+    /**
+     * Forget the rotor orders and plugboards cached for a previous
+     * configuration.
+     */
+    private void clearSetups() {
+        this._orders.clear();
+        this._plugboards.clear();
+    }
+
+    /**
+     * Return another Enigma machine configured from the configuration
+     * file, sharing no mutable state with those returned before.  The
+     * file is read only if readConfig() has not been called.
+     */
+    Machine newMachine() {
+        if (this._catalog == null) {
+            return this.readConfig();
+        }
+        return new Machine(_alphabet, _numRotors, _pawls, _catalog);
+    }
+
     /**
      * Return a rotor, reading its description from _config.
      */
     public Rotor readRotor() {
+        int line = this._config.line(), column = this._config.column();
+        String name = this._config.next("bad rotor description");
+        String type = this._config.next("bad rotor description");
+        if (!this._config.hasNextCycle()) {
+            throw this._config.error("Faulty Cycle!");
+        }
+        StringBuilder cycle = new StringBuilder();
+        while (this._config.hasNextCycle()) {
+            cycle.append(' ').append(this._config.next(""));
+        }
         try {
-            String name = this._config.next().trim();
-            String type = this._config.next().trim();
-            String cycle = "";
-            if (!this._config.hasNext("[(].+[)]")) {
-                throw new EnigmaException("Faulty Cycle!");
-            }
-            while (this._config.hasNext("[(].+[)]")) {
-                cycle = cycle + " " + this._config.next().trim();
-            }
-            Permutation permutation = new Permutation(cycle, this._alphabet);
+            Permutation permutation =
+                    new Permutation(cycle.toString(), this._alphabet);
             if (type.charAt(0) == 'M') {
                 String notches = type.substring(1);
                 MovingRotor movingRotor =
@@ -190,8 +454,8 @@ public final class Main {
                 Reflector reflector = new Reflector(name, permutation);
                 return reflector;
             }
-        } catch (NoSuchElementException excp) {
-            throw error("bad rotor description");
+        } catch (EnigmaException excp) {
+            throw this._config.error(excp.getMessage(), line, column);
         }
     }
 
@@ -205,42 +469,119 @@ public final class Main {
     }
 
     /**
-     * Print MSG in groups of five (except that the last group may
-     * have fewer letters).
+     * Alphabet used in this machine.
      */
-    private void printMessageLine(String msg) {
-        msg = msg.replaceAll(" ", "");
-        while (msg.length() >= 5) {
-            _output.print(msg.substring(0, 5) + " ");
-            msg = msg.substring(5);
-        }
-        if (this._input.hasNextLine()) {
-            _output.println(msg);
-        } else {
-            _output.print(msg);
-        }
-    }
+    private Alphabet _alphabet;
 
+    /**
+     * Specifications of the rotors in the configuration file, or null
+     * until it is read.
+     */
+    private RotorSpec[] _catalog;
 
     /**
-     * Alphabet used in this machine.
+     * Number of rotor slots given by the configuration file.
      */
-    private Alphabet _alphabet;
+    private int _numRotors;
+
+    /**
+     * Number of pawls given by the configuration file.
+     */
+    private int _pawls;
 
     /**
      * Source of input messages.
      */
-    private Scanner _input;
+    private ReadableByteChannel _input;
+
+    /**
+     * Name of the configuration file.
+     */
+    private String _configName;
+
+    /**
+     * Name of the compiled configuration (--catalog), or null if none is
+     * used.
+     */
+    private String _catalogName;
 
     /**
      * Source of machine configuration.
      */
-    private Scanner _config;
+    private ConfigParser _config;
 
     /**
      * File for encoded/decoded messages.
      */
-    private PrintStream _output;
+    private WritableByteChannel _output;
+
+    /**
+     * True iff messages come from a regular file.
+     */
+    private boolean _inputFile;
+
+    /**
+     * True iff output goes to a regular file.
+     */
+    private boolean _outputFile;
+
+    /**
+     * True iff files should be memory-mapped (--mmap).
+     */
+    private boolean _mapped;
+
+    /**
+     * True iff the time taken to read the configuration should be
+     * reported (--stats).
+     */
+    private boolean _stats;
+
+    /**
+     * Most rotor orders and most plugboards remembered from setting
+     * lines.
+     */
+    static final int SETUP_CACHE_SIZE = 256;
+
+    /**
+     * Handles of the rotors in each recently used rotor order, keyed by
+     * the rotor names separated by single spaces.
+     */
+    private final SetupCache<String, int[]> _orders =
+            new SetupCache<>(SETUP_CACHE_SIZE);
+
+    /**
+     * One cycle of a plugboard, its characters captured.
+     */
+    private static final Pattern CYCLE =
+            Pattern.compile("\\(([^()\\s]*)\\)");
+
+    /**
+     * A sequence of cycles, possibly separated by whitespace.
+     */
+    private static final Pattern CYCLES =
+            Pattern.compile("(\\s*\\([^()\\s]*\\))*\\s*");
+
+    /**
+     * Recently used plugboards, keyed by plugboardKey() of their cycles.
+     */
+    private final SetupCache<String, Permutation> _plugboards =
+            new SetupCache<>(SETUP_CACHE_SIZE);
+
+    /**
+     * Largest budget accepted by --keystreams, in megabytes.
+     */
+    static final long MAX_KEYSTREAM_MB = 1L << 20;
+
+    /**
+     * Keystreams of recent settings (--keystreams), or null if none are
+     * kept.
+     */
+    private KeystreamCache _keystreams;
+
+    /**
+     * Number of threads converting sections (--parallel).
+     */
+    private int _threads = 1;
 }
 
 
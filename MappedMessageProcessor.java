@@ -0,0 +1,191 @@
+package enigma;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * A MessageProcessor that works on memory-mapped files.  Input is
+ * decoded straight out of mapped windows of the input file, and output
+ * is encoded straight into mapped windows of the output file, so no
+ * bytes pass through intermediate I/O buffers.  Files of any size are
+ * handled by remapping a window at a time.
+ *
+ * @author Shreyansh Loharuka
+ */
+class MappedMessageProcessor extends MessageProcessor {
+
+    /**
+     * A processor that configures MACHINE through MAIN and writes
+     * converted messages to OUTPUT, which must be readable and writable.
+     */
+    MappedMessageProcessor(Main main, Machine machine, FileChannel output) {
+        this(main, machine, output, Charset.defaultCharset(), WINDOW_SIZE);
+    }
+
+    /**
+     * A processor as above whose input and output are in CHARSET, and
+     * which maps windows of WINDOWSIZE bytes, at least
+     * MAX_BYTES_PER_CHAR.
+     */
+    MappedMessageProcessor(Main main, Machine machine, FileChannel output,
+                           Charset charset, long windowSize) {
+        super(main, machine, null, charset);
+        if (windowSize < MAX_BYTES_PER_CHAR) {
+            throw new EnigmaException("Mapped window too small");
+        }
+        _output = output;
+        _windowSize = windowSize;
+    }
+
+    /**
+     * Process the whole of INPUT, then finish().  The output file is
+     * cut to the bytes written even if that fails.
+     */
+    void read(FileChannel input) throws IOException {
+        try {
+            readMapped(input);
+        } catch (EnigmaException excp) {
+            abandon();
+            throw excp;
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Process the whole of INPUT, then finish().
+     */
+    private void readMapped(FileChannel input) throws IOException {
+        CharsetDecoder decoder = charset().newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        long size = input.size();
+        long position = 0;
+        boolean eof = size == 0;
+        while (!eof) {
+            long length = Math.min(_windowSize, size - position);
+            eof = position + length == size;
+            MappedByteBuffer window =
+                    input.map(FileChannel.MapMode.READ_ONLY, position, length);
+            do {
+                chars.clear();
+                decoder.decode(window, chars, eof);
+                chars.flip();
+                process(chars);
+            } while (window.remaining() >= MAX_BYTES_PER_CHAR || eof
+                     && window.hasRemaining());
+            position += window.position();
+        }
+        chars.clear();
+        decoder.flush(chars);
+        chars.flip();
+        process(chars);
+        _bytesRead = size;
+        finish();
+    }
+
+    @Override
+    ByteBuffer target() {
+        if (_window == null) {
+            try {
+                mapOutput();
+            } catch (IOException excp) {
+                throw new EnigmaException("could not map output: "
+                        + excp.getMessage());
+            }
+        }
+        return _window;
+    }
+
+    @Override
+    void drain() throws IOException {
+        if (_window != null
+                && _window.remaining() < MAX_BYTES_PER_CHAR) {
+            _written += _window.position();
+            mapOutput();
+        }
+    }
+
+    /**
+     * Give up the window being filled and cut the output file to the
+     * bytes written, dropping the rest of the last window mapped.  May
+     * be called more than once.
+     */
+    @Override
+    void close() throws IOException {
+        if (_window != null) {
+            _written += _window.position();
+            _window.force();
+            _window = null;
+        }
+        _output.truncate(_written);
+    }
+
+    /**
+     * Map the next window of the output file, starting just after the
+     * bytes written so far.
+     */
+    private void mapOutput() throws IOException {
+        _window = _output.map(FileChannel.MapMode.READ_WRITE, _written,
+                _windowSize);
+    }
+
+    /**
+     * Return the number of input bytes processed.
+     */
+    long bytesRead() {
+        return _bytesRead;
+    }
+
+    /**
+     * Return the number of output bytes written.
+     */
+    long bytesWritten() {
+        return _written;
+    }
+
+    /**
+     * Default size of each mapped window, in bytes.
+     */
+    static final long WINDOW_SIZE = 1 << 28;
+
+    /**
+     * Longest encoding of one character in any supported charset.  A
+     * window with fewer bytes left than this may split a character, so
+     * the next window is mapped from the first unused byte instead.
+     */
+    private static final int MAX_BYTES_PER_CHAR = 4;
+
+    /**
+     * The output file.
+     */
+    private final FileChannel _output;
+
+    /**
+     * Size of each mapped window, in bytes.
+     */
+    private final long _windowSize;
+
+    /**
+     * The mapped window of the output file being filled.
+     */
+    private MappedByteBuffer _window;
+
+    /**
+     * Number of output bytes in windows already filled.
+     */
+    private long _written;
+
+    /**
+     * Number of input bytes processed.
+     */
+    private long _bytesRead;
+
+}
@@ -0,0 +1,244 @@
+package enigma;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static enigma.MessageProcessorTest.navalMain;
+import static enigma.TestUtils.*;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The suite of all JUnit tests for the MappedMessageProcessor class.
+ * Each compares the file it writes with what a MessageProcessor writes
+ * from the same input.
+ *
+ * @author Shreyansh Loharuka
+ */
+public class MappedMessageProcessorTest {
+
+    /**
+     * Testing time limit.
+     */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    /**
+     * The letters of UPPER_STRING replaced in the alphabet of
+     * wideMachine(), and what replaces them, which take two and three
+     * bytes in UTF-8.
+     */
+    private static final String NARROW = "AEOU",
+        WIDE = "\u00c4\u20ac\u00d6\u00dc";
+
+    /**
+     * Return S with each character of NARROW replaced by the one at the
+     * same place in WIDE.
+     */
+    private static String widen(String s) {
+        for (int i = 0; i < NARROW.length(); i += 1) {
+            s = s.replace(NARROW.charAt(i), WIDE.charAt(i));
+        }
+        return s;
+    }
+
+    /**
+     * Return a machine with the naval rotors over the alphabet of
+     * UPPER_STRING widened.
+     */
+    private static Machine wideMachine() {
+        Alphabet alpha = new Alphabet(widen(UPPER_STRING));
+        ArrayList<Rotor> rotors = new ArrayList<>();
+        for (String name : NAVALA.keySet()) {
+            Permutation perm = new Permutation(widen(NAVALA.get(name)),
+                    alpha);
+            if (name.equals("B") || name.equals("C")) {
+                rotors.add(new Reflector(name, perm));
+            } else if (name.equals("Beta") || name.equals("Gamma")) {
+                rotors.add(new FixedRotor(name, perm));
+            } else {
+                rotors.add(new MovingRotor(name, perm,
+                        widen(NAVAL_NOTCHES.get(name))));
+            }
+        }
+        return new Machine(alpha, 5, 3, rotors);
+    }
+
+    /**
+     * The result of a conversion: the bytes written and the message of
+     * the error that ended it, or null if there was none.
+     */
+    private static class Result {
+
+        /**
+         * A result of OUTPUT, ended by ERROR.
+         */
+        Result(byte[] output, String error) {
+            _output = output;
+            _error = error;
+        }
+
+        /**
+         * Bytes written.
+         */
+        private final byte[] _output;
+
+        /**
+         * Message of the error, or null.
+         */
+        private final String _error;
+
+    }
+
+    /**
+     * Return the result of converting INPUT in CHARSET with MACHINE
+     * through a MessageProcessor.
+     */
+    private Result streamed(byte[] input, Machine machine, Charset charset)
+        throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        MessageProcessor processor = new MessageProcessor(navalMain(),
+                machine, Channels.newChannel(output), charset);
+        String error = null;
+        try {
+            processor.read(Channels.newChannel(
+                    new ByteArrayInputStream(input)));
+        } catch (EnigmaException excp) {
+            error = excp.getMessage();
+        }
+        return new Result(output.toByteArray(), error);
+    }
+
+    /**
+     * Return the result of converting INPUT in CHARSET with MACHINE
+     * through a MappedMessageProcessor mapping windows of WINDOWSIZE
+     * bytes.
+     */
+    private Result mapped(byte[] input, Machine machine, Charset charset,
+                          long windowSize) throws IOException {
+        Path in = Files.createTempFile("mapped", ".in");
+        Path out = Files.createTempFile("mapped", ".out");
+        try {
+            Files.write(in, input);
+            String error = null;
+            try (FileChannel source = FileChannel.open(in);
+                 FileChannel target = FileChannel.open(out, READ, WRITE)) {
+                MappedMessageProcessor processor =
+                        new MappedMessageProcessor(navalMain(), machine,
+                                target, charset, windowSize);
+                try {
+                    processor.read(source);
+                } catch (EnigmaException excp) {
+                    error = excp.getMessage();
+                }
+            }
+            return new Result(Files.readAllBytes(out), error);
+        } finally {
+            Files.delete(in);
+            Files.delete(out);
+        }
+    }
+
+    /**
+     * Check that converting INPUT in CHARSET with a machine from
+     * MACHINES gives the same result through a MappedMessageProcessor,
+     * with each of WINDOWSIZES, as through a MessageProcessor.
+     */
+    private void check(String input, Charset charset,
+                       Supplier<Machine> machines, long... windowSizes)
+        throws IOException {
+        byte[] bytes = input.getBytes(charset);
+        Result expected = streamed(bytes, machines.get(), charset);
+        for (long windowSize : windowSizes) {
+            Result result = mapped(bytes, machines.get(), charset,
+                    windowSize);
+            String msg = "window size " + windowSize;
+            assertEquals(msg, expected._error, result._error);
+            assertArrayEquals(msg, expected._output, result._output);
+        }
+    }
+
+    /**
+     * Return an input of SECTIONS setting lines, each followed by
+     * message lines, drawn from RANDOM and widened if WIDE.
+     */
+    private String randomInput(Random random, int sections, boolean wide) {
+        String[] settings = {"* B Beta I II III AAAA",
+            "* B Beta I II III AAAA BCDE (AQ) (EP)",
+            "* C Gamma IV V VI ZZZZ", "* B Beta III IV I AXLE (HQ) (EX)"};
+        StringBuilder input = new StringBuilder();
+        for (int k = 0; k < sections; k += 1) {
+            input.append(settings[random.nextInt(settings.length)])
+                .append('\n');
+            int lines = random.nextInt(4);
+            for (int j = 0; j < lines; j += 1) {
+                input.append(randomMessage(random, random.nextInt(300)))
+                    .append(random.nextInt(5) == 0 ? "\r\n" : "\n");
+            }
+            if (random.nextInt(4) == 0) {
+                input.append('\n');
+            }
+        }
+        return wide ? widen(input.toString()) : input.toString();
+    }
+
+    @Test
+    public void testSameAsStreaming() throws IOException {
+        String input = randomInput(new Random(6), 60, false);
+        check(input, StandardCharsets.US_ASCII,
+                MappedMessageProcessorTest::naval, 4, 7, 1000,
+                MappedMessageProcessor.WINDOW_SIZE);
+    }
+
+    @Test
+    public void testMultiByte() throws IOException {
+        String input = randomInput(new Random(7), 40, true);
+        check(input, StandardCharsets.UTF_8,
+                MappedMessageProcessorTest::wideMachine, 4, 5, 6, 7, 4096);
+    }
+
+    @Test
+    public void testErrorTruncates() throws IOException {
+        String input = randomInput(new Random(8), 30, false)
+                + "HELLO WORLD\nAB1\n";
+        check(input, StandardCharsets.US_ASCII,
+                MappedMessageProcessorTest::naval, 5, 1000, 1 << 20);
+        check(widen(input), StandardCharsets.UTF_8,
+                MappedMessageProcessorTest::wideMachine, 5, 1 << 20);
+    }
+
+    @Test
+    public void testErrorInSetting() throws IOException {
+        check("* B Beta I II III AAAA\nHELLO WORLD\n* B Beta I II\n",
+                StandardCharsets.US_ASCII, MappedMessageProcessorTest::naval,
+                4, 1 << 20);
+    }
+
+    /**
+     * Return a machine with the naval rotors.
+     */
+    private static Machine naval() {
+        try {
+            return navalMain().readConfig();
+        } catch (IOException excp) {
+            throw new IllegalStateException(excp);
+        }
+    }
+
+}
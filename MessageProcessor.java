@@ -0,0 +1,420 @@
+package enigma;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Converts a stream of '*' setting lines and message lines character by
+ * character, writing the converted messages in groups of five through a
+ * GroupWriter.  Input is decoded into, and output encoded from, buffers
+ * of fixed size that are reused for the whole stream, so memory use does
+ * not depend on the size of the input or the length of its lines.
+ *
+ * @author Shreyansh Loharuka
+ */
+class MessageProcessor {
+
+    /**
+     * A processor that configures MACHINE through MAIN whenever it meets
+     * a setting line and writes converted messages to OUTPUT.  OUTPUT
+     * may be null if a subclass provides target() and drain().
+     */
+    MessageProcessor(Main main, Machine machine, WritableByteChannel output) {
+        this(main, machine, output, Charset.defaultCharset());
+    }
+
+    /**
+     * A processor as above whose input and output are in CHARSET rather
+     * than the default charset.
+     */
+    MessageProcessor(Main main, Machine machine, WritableByteChannel output,
+                     Charset charset) {
+        _main = main;
+        _machine = machine;
+        _alphabet = machine.alphabet();
+        _keystreams = main.keystreams();
+        _channel = output;
+        _state = START;
+        _setting = new StringBuilder();
+        _out = CharBuffer.allocate(BUFFER_SIZE);
+        _writer = new GroupWriter(_out, out -> flush(false));
+        _outBytes = output == null ? null
+                : ByteBuffer.allocateDirect(BUFFER_SIZE);
+        _charset = charset;
+        _encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Process everything INPUT provides, then finish().
+     */
+    void read(ReadableByteChannel input) throws IOException {
+        CharsetDecoder decoder = _charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        boolean eof = false;
+        try {
+            while (!eof) {
+                eof = input.read(bytes) < 0;
+                bytes.flip();
+                decoder.decode(bytes, chars, eof);
+                if (eof) {
+                    decoder.flush(chars);
+                }
+                chars.flip();
+                process(chars);
+                chars.clear();
+                bytes.compact();
+            }
+            finish();
+        } catch (EnigmaException excp) {
+            abandon();
+            throw excp;
+        }
+    }
+
+    /**
+     * Return the charset of my input and output.
+     */
+    Charset charset() {
+        return _charset;
+    }
+
+    /**
+     * Process all the characters remaining in CHARS.
+     */
+    void process(CharBuffer chars) throws IOException {
+        while (chars.hasRemaining()) {
+            char c = chars.get();
+            if (_afterReturn) {
+                _afterReturn = false;
+                if (c == '\n') {
+                    continue;
+                }
+            }
+            switch (_state) {
+            case START:
+                if (Character.isWhitespace(c)) {
+                    continue;
+                }
+                if (c != '*') {
+                    throw new EnigmaException("No Configuration");
+                }
+                _state = SETTING;
+                break;
+            case LINE_START:
+                _writer.startLine();
+                _lineStart = _out.position();
+                if (c == '\n' || c == '\r') {
+                    _writer.blankLine();
+                    _afterReturn = c == '\r';
+                } else if (c == '*') {
+                    _state = SETTING;
+                } else {
+                    _state = MESSAGE;
+                    message(c);
+                }
+                break;
+            case SETTING:
+                if (c == '\n' || c == '\r') {
+                    endSetting();
+                    _afterReturn = c == '\r';
+                } else {
+                    _setting.append(c);
+                }
+                break;
+            default:
+                if (c == '\n' || c == '\r') {
+                    endMessage();
+                    _afterReturn = c == '\r';
+                } else {
+                    message(c);
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * Complete the line in progress, if any, and write out everything
+     * still buffered.
+     */
+    void finish() throws IOException {
+        endLine();
+        flush(true);
+    }
+
+    /**
+     * Write out the output of every line before the one in progress,
+     * which is dropped after an error in it, as if each line were
+     * written out whole once converted.  Output of the dropped line that
+     * has already been written out stays.
+     */
+    void abandon() throws IOException {
+        if (_lineStart >= 0) {
+            _out.position(_lineStart);
+        }
+        flush(true);
+    }
+
+    /**
+     * Complete the line in progress, if any, as the end of a section that
+     * another line follows, and write out everything buffered so far.
+     * Processing may continue with another section.
+     */
+    void finishSection() throws IOException {
+        endLine();
+        _writer.startLine();
+        flush(false);
+    }
+
+    /**
+     * Complete the line in progress, if any.
+     */
+    private void endLine() {
+        if (_state == START) {
+            throw new EnigmaException("No Configuration");
+        } else if (_state == SETTING) {
+            endSetting();
+        } else if (_state == MESSAGE) {
+            endMessage();
+        }
+    }
+
+    /**
+     * Convert C, a character of a message line, and write it out.
+     */
+    private void message(char c) throws IOException {
+        if (c == ' ') {
+            return;
+        }
+        int index = _alphabet.indexOf(c);
+        if (index < 0) {
+            throw new EnigmaException("Message Character"
+                    + " not in alphabet!");
+        }
+        _writer.write(_alphabet.toChar(convert(index)));
+    }
+
+    /**
+     * Return the conversion of C, the index of the next message
+     * character since the last setting line.  Positions held by the
+     * keystream of that setting are looked up, and _machine is moved on
+     * past them only when it is needed again.
+     */
+    private int convert(int c) {
+        if (_keystream == null) {
+            return _machine.convert(c);
+        }
+        int result = _keystream.lookup(_position, c);
+        if (result >= 0) {
+            _skipped += 1;
+        } else {
+            if (_skipped > 0) {
+                _machine.seek(_skipped);
+                _skipped = 0;
+            }
+            result = _keystream.extend(_position, c, _machine);
+        }
+        _position += 1;
+        return result;
+    }
+
+    /**
+     * Finish a message line.  Its newline is written only once another
+     * line follows, as the last line of output has none.
+     */
+    private void endMessage() {
+        _writer.endLine();
+        _state = LINE_START;
+    }
+
+    /**
+     * Apply the setting line collected so far.
+     */
+    private void endSetting() {
+        _main.configure(_machine, _setting.toString());
+        _setting.setLength(0);
+        if (_keystreams != null) {
+            _keystream = _keystreams.get(_machine);
+            _position = 0;
+            _skipped = 0;
+        }
+        _state = LINE_START;
+    }
+
+    /**
+     * Encode the buffered output characters and write them out.  If
+     * ENDOFINPUT, no more characters will follow.
+     */
+    private void flush(boolean endOfInput) throws IOException {
+        _lineStart = -1;
+        _out.flip();
+        CoderResult result;
+        do {
+            result = _encoder.encode(_out, target(), endOfInput);
+            drain();
+        } while (result.isOverflow());
+        if (endOfInput) {
+            while (_encoder.flush(target()).isOverflow()) {
+                drain();
+            }
+            drain();
+            close();
+        }
+        _out.compact();
+    }
+
+    /**
+     * Return the buffer into which output is encoded.
+     */
+    ByteBuffer target() {
+        return _outBytes;
+    }
+
+    /**
+     * Write out the encoded bytes in target(), leaving it ready to
+     * receive more.
+     */
+    void drain() throws IOException {
+        _outBytes.flip();
+        while (_outBytes.hasRemaining()) {
+            _channel.write(_outBytes);
+        }
+        _outBytes.clear();
+    }
+
+    /**
+     * Called once all output has been drained.  By default, does
+     * nothing.
+     */
+    void close() throws IOException {
+    }
+
+    /**
+     * Size, in characters or bytes, of each of my buffers.
+     */
+    static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * State before the first setting line.
+     */
+    private static final int START = 0;
+
+    /**
+     * State at the beginning of a line.
+     */
+    private static final int LINE_START = 1;
+
+    /**
+     * State within a setting line.
+     */
+    private static final int SETTING = 2;
+
+    /**
+     * State within a message line.
+     */
+    private static final int MESSAGE = 3;
+
+    /**
+     * Source of the setting-line semantics.
+     */
+    private final Main _main;
+
+    /**
+     * The machine I configure and convert with.
+     */
+    private final Machine _machine;
+
+    /**
+     * Alphabet of _machine.
+     */
+    private final Alphabet _alphabet;
+
+    /**
+     * Keystreams shared with other processors, or null if none are
+     * kept.
+     */
+    private final KeystreamCache _keystreams;
+
+    /**
+     * Keystream of the last setting line, or null if none is kept.
+     */
+    private KeystreamCache.Keystream _keystream;
+
+    /**
+     * Number of message characters converted since the last setting
+     * line.
+     */
+    private long _position;
+
+    /**
+     * Number of those characters _machine has not been advanced past,
+     * as they were looked up in _keystream.
+     */
+    private long _skipped;
+
+    /**
+     * Destination of converted output.
+     */
+    private final WritableByteChannel _channel;
+
+    /**
+     * Which of START, LINE_START, SETTING or MESSAGE I am in.
+     */
+    private int _state;
+
+    /**
+     * True iff the last character was a carriage return, so that a
+     * following newline belongs to the same line break.
+     */
+    private boolean _afterReturn;
+
+    /**
+     * The setting line being read, without its '*'.
+     */
+    private final StringBuilder _setting;
+
+    /**
+     * Output characters not yet encoded.
+     */
+    private final CharBuffer _out;
+
+    /**
+     * Position in _out at which the output of the line in progress
+     * starts, or -1 if some of it may already be written out.
+     */
+    private int _lineStart = -1;
+
+    /**
+     * Groups converted messages into _out.
+     */
+    private final GroupWriter _writer;
+
+    /**
+     * Encoded output not yet written.
+     */
+    private final ByteBuffer _outBytes;
+
+    /**
+     * Charset of the input and output.
+     */
+    private final Charset _charset;
+
+    /**
+     * Encoder for the output.
+     */
+    private final CharsetEncoder _encoder;
+
+}
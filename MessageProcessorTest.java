@@ -0,0 +1,135 @@
+package enigma;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Random;
+
+import static enigma.TestUtils.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * The suite of all JUnit tests for the MessageProcessor class.
+ *
+ * @author Shreyansh Loharuka
+ */
+public class MessageProcessorTest {
+
+    /**
+     * Testing time limit.
+     */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /**
+     * Return a Main with OPTIONS reading the naval configuration from a
+     * temporary file.
+     */
+    static Main navalMain(String... options) throws IOException {
+        File config = File.createTempFile("naval", ".conf");
+        config.deleteOnExit();
+        try (PrintStream out = new PrintStream(config)) {
+            out.println(UPPER_STRING);
+            out.println("5 3");
+            for (String name : NAVALA.keySet()) {
+                String type;
+                if (name.equals("B") || name.equals("C")) {
+                    type = "R";
+                } else if (name.equals("Beta") || name.equals("Gamma")) {
+                    type = "N";
+                } else {
+                    type = "M" + NAVAL_NOTCHES.get(name);
+                }
+                out.println(name + " " + type + " " + NAVALA.get(name));
+            }
+        }
+        String[] args = Arrays.copyOf(options, options.length + 1);
+        args[options.length] = config.getPath();
+        return new Main(args);
+    }
+
+    /**
+     * Return the output of processing INPUT through a MessageProcessor
+     * of a Main with OPTIONS.
+     */
+    static String process(String input, String... options) throws IOException {
+        Main main = navalMain(options);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        MessageProcessor processor = new MessageProcessor(main,
+                main.readConfig(), Channels.newChannel(output));
+        processor.read(Channels.newChannel(
+                new ByteArrayInputStream(input.getBytes())));
+        return output.toString();
+    }
+
+    @Test
+    public void testGroups() throws IOException {
+        assertEquals("ILBDA AMTAZ \nILBDA AMT",
+                process("* B Beta I II III AAAA\nHELLO WORLD\n"
+                        + "* B Beta I II III AAAA\nHELLO WOR"));
+    }
+
+    @Test
+    public void testLastNewline() throws IOException {
+        assertEquals("ILBDA \n\nILBDA ",
+                process("* B Beta I II III AAAA\nHELL O\n\n"
+                        + "* B Beta I II III AAAA\nHELLO\n"));
+    }
+
+    @Test
+    public void testCarriageReturns() throws IOException {
+        assertEquals("ILBDA AMTAZ \n\n",
+                process("\r\n* B Beta I II III AAAA\r\nHELLO WORLD\r\n\r\n"));
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testNoConfiguration() throws IOException {
+        process("\n\nHELLO WORLD\n");
+    }
+
+    @Test
+    public void testOutputBeforeError() throws IOException {
+        Main main = navalMain();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        MessageProcessor processor = new MessageProcessor(main,
+                main.readConfig(), Channels.newChannel(output));
+        String input = "* B Beta I II III AAAA\nHELLO WORLD\n\nHELLO W1RLD\n";
+        try {
+            processor.read(Channels.newChannel(
+                    new ByteArrayInputStream(input.getBytes())));
+            fail("bad message character accepted");
+        } catch (EnigmaException excp) {
+            assertEquals("ILBDA AMTAZ \n\n", output.toString());
+        }
+    }
+
+    @Test
+    public void testKeystreams() throws IOException {
+        String[] settings = {"* B Beta I II III AAAA",
+            "* B Beta I II III AAAA BCDE (AQ) (EP)",
+            "* C Gamma IV V VI ZZZZ", "* B Beta I II III AAAA"};
+        Random random = new Random(18);
+        StringBuilder input = new StringBuilder();
+        for (int k = 0; k < 40; k += 1) {
+            input.append(settings[random.nextInt(settings.length)])
+                .append('\n');
+            int lines = random.nextInt(4);
+            for (int j = 0; j < lines; j += 1) {
+                input.append(randomMessage(random, random.nextInt(700)))
+                    .append('\n');
+            }
+        }
+        assertEquals(process(input.toString()),
+                process(input.toString(), "--keystreams=1"));
+    }
+
+}
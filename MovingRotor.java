@@ -14,27 +14,34 @@ class MovingRotor extends Rotor {
      * alphabet).
      */
     MovingRotor(String name, Permutation perm, String notches) {
-        super(name, perm);
-        _notches = notches;
+        this(new RotorSpec(name, perm, notches, 'M'));
+    }
+
+    /**
+     * A moving rotor as specified by SPEC.
+     */
+    MovingRotor(RotorSpec spec) {
+        super(spec);
     }
 
     @Override
     boolean atNotch() {
-        char[] arr = this.notches().toCharArray();
-        for (char c : arr) {
-            int curr = this.permutation().wrap(this.setting());
-            if (curr == this.alphabet().toInt(c)) {
-                return true;
-            }
-        }
-        return false;
+        return this.spec().isNotch(this.permutation().wrap(this.setting()));
+    }
+
+    /**
+     * Return true iff POSN (an integer in the range 0..size()-1) is one
+     * of my notches.
+     */
+    boolean isNotch(int posn) {
+        return this.spec().isNotch(posn);
     }
 
     /**
      * Return a String containing my notches.
      */
     String notches() {
-        return this._notches;
+        return this.spec().notches();
     }
 
     @Override
@@ -47,9 +54,4 @@ class MovingRotor extends Rotor {
         return true;
     }
 
-    /**
-     * String containing my notches.
-     */
-    private String _notches;
-
 }
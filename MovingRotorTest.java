@@ -106,5 +106,23 @@ public class MovingRotorTest {
         checkRotor("Rotor I (A)", UPPER_STRING, NAVALZ_MAP.get("I"));
     }
 
+    @Test
+    public void checkPrecomputedRotor() {
+        setRotor("I", NAVALA, "");
+        rotor.precompute();
+        assertEquals(2 * 4 * 26 * 26, rotor.tableMemory());
+        checkRotor("Rotor I precomputed (A)", UPPER_STRING,
+                NAVALA_MAP.get("I"));
+        rotor.advance();
+        checkRotor("Rotor I precomputed (B)", UPPER_STRING,
+                NAVALB_MAP.get("I"));
+        rotor.set(25);
+        checkRotor("Rotor I precomputed (Z)", UPPER_STRING,
+                NAVALZ_MAP.get("I"));
+        rotor.setOffSet(24);
+        rotor.set(23);
+        checkRotor("Rotor I precomputed ring", UPPER_STRING,
+                NAVALZ_MAP.get("I"));
+    }
 
 }
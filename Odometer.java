@@ -0,0 +1,269 @@
+package enigma;
+
+/**
+ * The stepping mechanism of a machine with a given set of rotors in its
+ * slots.  Before each character, a rotor moves if it is the rightmost
+ * one, if its right neighbor is at a notch, or if it is itself at a notch
+ * and its left neighbor can move (the double step).  Besides single
+ * steps, an Odometer can compute the positions after any number of steps
+ * without performing them.
+ *
+ * @author Shreyansh Loharuka
+ */
+class Odometer {
+
+    /**
+     * The stepping mechanism of a machine holding SLOTS, leftmost first.
+     */
+    Odometer(Rotor[] slots) {
+        this(rotates(slots), notches(slots));
+    }
+
+    /**
+     * The stepping mechanism of a machine whose slot i, counting from
+     * the left, can move iff ROTATES[i], and whose rotor there has a
+     * notch at k iff NOTCH[i][k].  The arrays must not be changed
+     * afterwards.
+     */
+    Odometer(boolean[] rotates, boolean[][] notch) {
+        _slots = rotates.length;
+        _size = notch[0].length;
+        _rotates = rotates;
+        _notch = notch;
+        _notchesBefore = new int[_slots][_size + 1];
+        _nonNotches = new int[_slots][];
+        for (int i = 0; i < _slots; i++) {
+            int count = 0;
+            for (int k = 0; k < _size; k++) {
+                _notchesBefore[i][k] = count;
+                count += _notch[i][k] ? 1 : 0;
+            }
+            _notchesBefore[i][_size] = count;
+            _nonNotches[i] = new int[_size - count];
+            for (int k = 0, j = 0; k < _size; k++) {
+                if (!_notch[i][k]) {
+                    _nonNotches[i][j++] = k;
+                }
+            }
+        }
+        int last = _slots - 1;
+        _chain = last + 1;
+        while (_chain > 1 && _rotates[_chain - 1]) {
+            _chain -= 1;
+        }
+        _closedForm = true;
+        for (int j = _chain + 1; j <= last; j++) {
+            if ((j < last || j - 1 > _chain) && hasAdjacentNotches(j)) {
+                _closedForm = false;
+            }
+        }
+    }
+
+    /**
+     * Return whether the rotor in each of SLOTS can move.
+     */
+    private static boolean[] rotates(Rotor[] slots) {
+        boolean[] rotates = new boolean[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            rotates[i] = slots[i].rotates();
+        }
+        return rotates;
+    }
+
+    /**
+     * Return the notches of the rotor in each of SLOTS, indexed by slot
+     * and then by position.
+     */
+    private static boolean[][] notches(Rotor[] slots) {
+        int size = slots[0].size();
+        boolean[][] notch = new boolean[slots.length][size];
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] instanceof MovingRotor) {
+                for (int k = 0; k < size; k++) {
+                    notch[i][k] = ((MovingRotor) slots[i]).isNotch(k);
+                }
+            }
+        }
+        return notch;
+    }
+
+    /**
+     * Return true iff two cyclically consecutive positions of the rotor
+     * in SLOT are both notches.
+     */
+    private boolean hasAdjacentNotches(int slot) {
+        for (int k = 0; k < _size; k++) {
+            if (_notch[slot][k] && _notch[slot][(k + 1) % _size]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return true iff the rotor in SLOT moves on the next step when the
+     * rotors are at positions POS.
+     */
+    private boolean moves(int[] pos, int slot) {
+        if (slot == 0 || !_rotates[slot]) {
+            return false;
+        }
+        return slot == _slots - 1 || _notch[slot + 1][pos[slot + 1]]
+                || (_rotates[slot - 1] && _notch[slot][pos[slot]]);
+    }
+
+    /**
+     * Advance POS, the positions of my rotors, by one step.
+     */
+    void step(int[] pos) {
+        for (int i = 1; i < _slots; i++) {
+            if (moves(pos, i)) {
+                pos[i] = pos[i] + 1 == _size ? 0 : pos[i] + 1;
+            }
+        }
+    }
+
+    /**
+     * Advance POS, the positions of my rotors, by N steps, which may not
+     * be negative, since no engine steps backwards.  When the
+     * moving rotors form one run at the right end of the machine (the
+     * usual case), and the rotors that double step have no two adjacent
+     * notches, this takes time proportional to the number of rotors.
+     * Otherwise it steps N times.
+     */
+    void seek(int[] pos, long n) {
+        if (n < 0) {
+            throw new EnigmaException("Cannot seek backwards!");
+        }
+        if (n == 0) {
+            return;
+        }
+        step(pos);
+        n -= 1;
+        boolean stable = true;
+        for (int i = 1; i < _chain; i++) {
+            stable &= !moves(pos, i);
+        }
+        if (!_closedForm || !stable) {
+            for (; n > 0; n--) {
+                step(pos);
+            }
+            return;
+        }
+        long[] advances = new long[_slots];
+        for (int i = _chain; i < _slots; i++) {
+            advances[i] = advances(pos, i, n);
+        }
+        for (int i = _chain; i < _slots; i++) {
+            pos[i] = (int) ((pos[i] + advances[i]) % _size);
+        }
+    }
+
+    /**
+     * Return the number of times the rotor in SLOT, which is part of the
+     * run of moving rotors at the right, moves during the next T steps
+     * from positions POS.  No rotor in that run may be at a notch it
+     * reached by a move on the same step as its right neighbor's notch.
+     */
+    private long advances(int[] pos, int slot, long t) {
+        int last = _slots - 1;
+        if (t <= 0) {
+            return 0;
+        }
+        if (slot == last) {
+            return t;
+        }
+        int next = slot + 1;
+        long moved = advances(pos, next, t - 1);
+        long kicks = notchesIn(next, pos[next], moved + 1);
+        if (slot == _chain) {
+            return kicks;
+        }
+        boolean lastKick = _notch[next][(int) ((pos[next] + moved) % _size)];
+        long result = kicks == 0 ? 0
+                : nonNotchOffset(slot, pos[slot], kicks) + 1;
+        int reached = (int) ((pos[slot] + result) % _size);
+        if (_notch[slot][reached] && !lastKick) {
+            result += 1;
+        }
+        return result;
+    }
+
+    /**
+     * Return the number of notches of the rotor in SLOT among the LEN
+     * positions starting at START and counting up, with wrap-around.
+     */
+    private long notchesIn(int slot, int start, long len) {
+        int[] before = _notchesBefore[slot];
+        long result = (len / _size) * before[_size];
+        int end = start + (int) (len % _size);
+        if (end <= _size) {
+            result += before[end] - before[start];
+        } else {
+            result += before[_size] - before[start] + before[end - _size];
+        }
+        return result;
+    }
+
+    /**
+     * Return the distance from START to the K-th position, counting up
+     * from START itself with wrap-around, that is not a notch of the
+     * rotor in SLOT.  K >= 1.
+     */
+    private long nonNotchOffset(int slot, int start, long k) {
+        int[] positions = _nonNotches[slot];
+        int count = positions.length;
+        long revolutions = (k - 1) / count;
+        int index = start - _notchesBefore[slot][start]
+                + (int) ((k - 1) % count);
+        long offset;
+        if (index < count) {
+            offset = positions[index] - start;
+        } else {
+            offset = positions[index - count] + _size - start;
+        }
+        return revolutions * _size + offset;
+    }
+
+    /**
+     * Number of slots.
+     */
+    private final int _slots;
+
+    /**
+     * Size of the alphabet.
+     */
+    private final int _size;
+
+    /**
+     * Whether the rotor in each slot can move.
+     */
+    private final boolean[] _rotates;
+
+    /**
+     * _notch[i][k] is true iff the rotor in slot i has a notch at k.
+     */
+    private final boolean[][] _notch;
+
+    /**
+     * _notchesBefore[i][k] is the number of notches of the rotor in slot
+     * i at positions less than k.
+     */
+    private final int[][] _notchesBefore;
+
+    /**
+     * The positions that are not notches of each slot's rotor, in order.
+     */
+    private final int[][] _nonNotches;
+
+    /**
+     * First slot of the run of moving rotors at the right end.
+     */
+    private int _chain;
+
+    /**
+     * True iff seek() can use its closed form for this set of rotors.
+     */
+    private boolean _closedForm;
+
+}
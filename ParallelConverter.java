@@ -0,0 +1,182 @@
+package enigma;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Converts long messages on several threads at once.  A message is cut
+ * into chunks; the rotor positions at the start of each chunk are found
+ * with a seek from the start of the message, and each chunk is then
+ * converted by its own copy of a compiled engine.  The result, and the
+ * state the machine is left in, are the same as for Machine.convert.
+ *
+ * @author Shreyansh Loharuka
+ */
+class ParallelConverter {
+
+    /**
+     * A converter that runs on POOL and gives each task CHUNKSIZE
+     * characters of a message.
+     */
+    ParallelConverter(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new EnigmaException("Chunk size must be positive!");
+        }
+        _pool = pool;
+        _chunkSize = chunkSize;
+    }
+
+    /**
+     * A converter that runs on the common pool with the default chunk
+     * size.
+     */
+    ParallelConverter() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Return the chunk size I use.
+     */
+    int chunkSize() {
+        return _chunkSize;
+    }
+
+    /**
+     * Returns the encoding/decoding of MSG by MACHINE, updating the
+     * state of its rotors accordingly.  Unlike Machine.convert, a
+     * character outside the alphabet is reported before any character
+     * is converted, leaving MACHINE unchanged.
+     */
+    String convert(Machine machine, String msg) {
+        int length = msg.length();
+        int chunks = (int) ((length + (long) _chunkSize - 1) / _chunkSize);
+        char[] src = msg.toCharArray();
+        Alphabet alphabet = machine.alphabet();
+        if (chunks < 2) {
+            letters(alphabet, src, 0, length);
+            machine.convert(src, 0, length);
+            return new String(src);
+        }
+        char[] dst = new char[length];
+        long[] letters = new long[chunks + 1];
+
+        ArrayList<ForkJoinTask<?>> counts = new ArrayList<>();
+        for (int i = 0; i < chunks; i++) {
+            final int chunk = i;
+            counts.add(ForkJoinTask.adapt(() -> {
+                letters[chunk + 1] = letters(alphabet, src, start(chunk),
+                        end(chunk, length));
+            }));
+        }
+        run(counts);
+        for (int i = 1; i <= chunks; i++) {
+            letters[i] += letters[i - 1];
+        }
+
+        CompiledMachine engine = machine.compile();
+        ArrayList<ForkJoinTask<?>> conversions = new ArrayList<>();
+        for (int i = 0; i < chunks; i++) {
+            final int chunk = i;
+            conversions.add(ForkJoinTask.adapt(() -> {
+                CompiledMachine copy = new CompiledMachine(engine);
+                copy.seek(letters[chunk]);
+                copy.convert(src, start(chunk),
+                        end(chunk, length) - start(chunk), dst);
+            }));
+        }
+        run(conversions);
+        machine.seek(letters[chunks]);
+        return new String(dst);
+    }
+
+    /**
+     * Return the number of characters of SRC[FROM .. TO-1] other than
+     * spaces, checking that each of them is in ALPHABET.
+     */
+    private static long letters(Alphabet alphabet, char[] src, int from,
+                                int to) {
+        long count = 0;
+        for (int k = from; k < to; k++) {
+            if (src[k] == ' ') {
+                continue;
+            }
+            if (!alphabet.contains(src[k])) {
+                throw new EnigmaException("Message Character"
+                        + " not in alphabet!");
+            }
+            count += 1;
+        }
+        return count;
+    }
+
+    /**
+     * Convert the bytes of SRC into DST, which must be at least as long,
+     * on MACHINE, updating the state of its rotors accordingly.  Every
+     * byte is in a ByteMachine's alphabet, so each chunk starts at the
+     * position of its first byte and no count is needed.
+     */
+    void convert(ByteMachine machine, byte[] src, byte[] dst) {
+        int length = src.length;
+        if (dst.length < length) {
+            throw new IndexOutOfBoundsException();
+        }
+        int chunks = (int) ((length + (long) _chunkSize - 1) / _chunkSize);
+        if (chunks < 2) {
+            machine.convert(src, 0, length, dst, 0);
+            return;
+        }
+        ByteMachine start = new ByteMachine(machine);
+        ArrayList<ForkJoinTask<?>> conversions = new ArrayList<>();
+        for (int i = 0; i < chunks; i++) {
+            final int chunk = i;
+            conversions.add(ForkJoinTask.adapt(() -> {
+                ByteMachine copy = new ByteMachine(start);
+                copy.seek(start(chunk));
+                copy.convert(src, start(chunk),
+                        end(chunk, length) - start(chunk), dst,
+                        start(chunk));
+            }));
+        }
+        run(conversions);
+        machine.seek(length);
+    }
+
+    /**
+     * Return the index of the first character of chunk CHUNK.
+     */
+    private int start(int chunk) {
+        return chunk * _chunkSize;
+    }
+
+    /**
+     * Return the index just past the last character of chunk CHUNK of a
+     * message of LENGTH characters.
+     */
+    private int end(int chunk, int length) {
+        return (int) Math.min((long) (chunk + 1) * _chunkSize, length);
+    }
+
+    /**
+     * Run all of TASKS on my pool and wait for them to finish.
+     */
+    private void run(ArrayList<ForkJoinTask<?>> tasks) {
+        _pool.submit(() -> ForkJoinTask.invokeAll(tasks)).join();
+    }
+
+    /**
+     * Chunk size used when none is given.
+     */
+    static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+    /**
+     * Pool on which chunks are converted.
+     */
+    private final ForkJoinPool _pool;
+
+    /**
+     * Number of characters in each chunk.
+     */
+    private final int _chunkSize;
+
+}
@@ -0,0 +1,111 @@
+package enigma;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static enigma.TestUtils.*;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * The suite of all JUnit tests for the ParallelConverter class.
+ *
+ * @author Shreyansh Loharuka
+ */
+public class ParallelConverterTest {
+
+    /**
+     * Testing time limit.
+     */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /**
+     * Return a naval machine in the AXLE setting.
+     */
+    private Machine machine() {
+        return navalMachine(new String[]{"B", "Beta", "III", "IV", "I"},
+                "AXLE", "AAAA", "(HQ) (EX) (IP) (TR) (BY)");
+    }
+
+    /**
+     * Return a random message of LENGTH characters with some spaces.
+     */
+    private String message(int length) {
+        char[] msg = randomMessage(new Random(length), length).toCharArray();
+        for (int i = 3; i < length; i += 7) {
+            msg[i] = ' ';
+        }
+        return new String(msg);
+    }
+
+    @Test
+    public void testSameAsSequential() {
+        String msg = message(20000);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int chunkSize : new int[]{1, 7, 100, 4096, 20000}) {
+            Machine sequential = machine();
+            Machine parallel = machine();
+            ParallelConverter converter =
+                    new ParallelConverter(pool, chunkSize);
+            for (int i = 0; i < 2; i += 1) {
+                assertEquals("chunk size " + chunkSize,
+                        sequential.convert(msg),
+                        converter.convert(parallel, msg));
+            }
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void testBadCharacter() {
+        for (int chunkSize : new int[]{4, 1000}) {
+            Machine machine = machine();
+            ParallelConverter converter =
+                    new ParallelConverter(ForkJoinPool.commonPool(),
+                            chunkSize);
+            try {
+                converter.convert(machine, "HELLO WORLD, AGAIN");
+                fail("no exception");
+            } catch (EnigmaException excp) {
+                assertEquals("chunk size " + chunkSize, "QVPQS OKOIL",
+                        machine.convert("FROMH ISSHO"));
+            }
+        }
+    }
+
+    @Test
+    public void testBytesSameAsSequential() {
+        Random random = new Random(33);
+        ByteRotor[] rotors = {
+            ByteRotor.random('R', 0, random), ByteRotor.random('N', 0, random),
+            ByteRotor.random('M', 2, random), ByteRotor.random('M', 3, random),
+            ByteRotor.random('M', 5, random),
+        };
+        byte[] data = new byte[100000];
+        random.nextBytes(data);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int chunkSize : new int[]{1000, 4096, 100000}) {
+            ByteMachine sequential = new ByteMachine(rotors);
+            sequential.setPositions(0, 255, 17, 3);
+            ByteMachine parallel = new ByteMachine(sequential);
+            ParallelConverter converter =
+                    new ParallelConverter(pool, chunkSize);
+            for (int i = 0; i < 2; i += 1) {
+                byte[] expected = new byte[data.length];
+                byte[] result = new byte[data.length];
+                sequential.convert(data, 0, data.length, expected, 0);
+                converter.convert(parallel, data, result);
+                assertArrayEquals("chunk size " + chunkSize, expected,
+                        result);
+            }
+        }
+        pool.shutdown();
+    }
+
+}
@@ -0,0 +1,325 @@
+package enigma;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts the sections of an input, each a setting line and the message
+ * lines after it, on several threads at once.  Since every setting line
+ * resets the machine completely, sections are independent: each is
+ * converted by whichever worker, with its own machine, is free.  A
+ * writing thread puts the outputs back in input order.  The queues
+ * between the threads are bounded, so memory use stays bounded however
+ * many or large the sections are.
+ *
+ * @author Shreyansh Loharuka
+ */
+class ParallelSections {
+
+    /**
+     * A converter with one worker for each of MACHINES, configured
+     * through MAIN, writing to OUTPUT.  SHADOW, another machine, follows
+     * the setting lines to learn the plugboard and ring settings each
+     * section inherits from those before it.
+     */
+    ParallelSections(Main main, Machine[] machines, Machine shadow,
+                     WritableByteChannel output) {
+        _main = main;
+        _shadow = shadow;
+        _output = output;
+        _workers = new ArrayBlockingQueue<>(machines.length);
+        for (Machine machine : machines) {
+            _workers.add(new SectionWorker(main, machine));
+        }
+        _executor = Executors.newFixedThreadPool(machines.length, r -> {
+            Thread thread = new Thread(r, "enigma-section");
+            thread.setDaemon(true);
+            return thread;
+        });
+        _order = new ArrayBlockingQueue<>(PENDING_PER_WORKER
+                * machines.length);
+    }
+
+    /**
+     * Convert everything INPUT provides.
+     */
+    void read(ReadableByteChannel input) throws IOException {
+        Thread writer = new Thread(this::write, "enigma-writer");
+        writer.setDaemon(true);
+        writer.start();
+        try {
+            split(input);
+            put(_order, POISON);
+            writer.join();
+        } catch (InterruptedException excp) {
+            throw new IOException("interrupted");
+        } finally {
+            _executor.shutdownNow();
+        }
+        rethrow();
+    }
+
+    /**
+     * Cut the text from INPUT into sections and hand them to workers.
+     */
+    private void split(ReadableByteChannel input)
+        throws IOException, InterruptedException {
+        CharsetDecoder decoder = Charset.defaultCharset().newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer bytes = ByteBuffer.allocateDirect(
+                MessageProcessor.BUFFER_SIZE);
+        CharBuffer chars = CharBuffer.allocate(MessageProcessor.BUFFER_SIZE);
+        boolean eof = false;
+        while (!eof && _failure == null) {
+            eof = input.read(bytes) < 0;
+            bytes.flip();
+            decoder.decode(bytes, chars, eof);
+            if (eof) {
+                decoder.flush(chars);
+            }
+            chars.flip();
+            char[] text = chars.array();
+            int start = 0;
+            for (int i = 0; i < chars.limit(); i++) {
+                char c = text[i];
+                if (_lineStart && c == '*') {
+                    queue(text, start, i);
+                    start = i;
+                    if (_seenSetting) {
+                        endSection(false);
+                    }
+                    if (_current == null) {
+                        begin();
+                    }
+                    _seenSetting = true;
+                    _setting = new StringBuilder();
+                }
+                _lineStart = c == '\n' || c == '\r';
+                if (_setting != null) {
+                    if (_lineStart) {
+                        follow();
+                    } else {
+                        _setting.append(c);
+                    }
+                }
+            }
+            queue(text, start, chars.limit());
+            chars.clear();
+            bytes.compact();
+        }
+        if (_current == null) {
+            throw new EnigmaException("No Configuration");
+        }
+        if (_setting != null) {
+            follow();
+        }
+        endSection(true);
+    }
+
+    /**
+     * Apply the setting line just read to _shadow.  An erroneous line is
+     * left for the worker converting its section to report.
+     */
+    private void follow() {
+        try {
+            _main.configure(_shadow, _setting.substring(1));
+        } catch (EnigmaException excp) {
+            /* Reported, in order, by the section's worker. */
+        }
+        _setting = null;
+    }
+
+    /**
+     * Add TEXT[START .. END-1] to the input of the current section,
+     * starting one if need be.
+     */
+    private void queue(char[] text, int start, int end)
+        throws InterruptedException {
+        if (start == end) {
+            return;
+        }
+        if (_current == null) {
+            begin();
+        }
+        put(_current.input(),
+                CharBuffer.wrap(Arrays.copyOfRange(text, start, end)));
+    }
+
+    /**
+     * Start a new current section, inheriting the settings of _shadow.
+     */
+    private void begin() throws InterruptedException {
+        Section section = new Section(PIECES_PER_SECTION);
+        section.carry(_shadow);
+        put(_order, section);
+        _executor.execute(() -> convert(section));
+        _current = section;
+    }
+
+    /**
+     * End the current section, which is the last one iff LAST.
+     */
+    private void endSection(boolean last) throws InterruptedException {
+        if (_current != null) {
+            _current.setLast(last);
+            put(_current.input(), Section.END_INPUT);
+            _current = null;
+        }
+    }
+
+    /**
+     * Convert SECTION with a free worker.
+     */
+    private void convert(Section section) {
+        try {
+            SectionWorker worker = _workers.take();
+            try {
+                worker.convert(section);
+            } finally {
+                _workers.put(worker);
+            }
+        } catch (InterruptedException excp) {
+            section.fail(new IOException("interrupted"));
+        }
+    }
+
+    /**
+     * Write the output of each section in turn, until POISON.  Stops at
+     * the first section that failed.
+     */
+    private void write() {
+        try {
+            for (Section section = _order.take(); section != POISON;
+                 section = _order.take()) {
+                for (ByteBuffer piece = section.output().take();
+                     piece != Section.END_OUTPUT;
+                     piece = section.output().take()) {
+                    while (piece.hasRemaining()) {
+                        _output.write(piece);
+                    }
+                }
+                if (section.failure() != null) {
+                    _failure = section.failure();
+                    return;
+                }
+            }
+        } catch (IOException excp) {
+            _failure = excp;
+        } catch (InterruptedException excp) {
+            _failure = new IOException("interrupted");
+        }
+    }
+
+    /**
+     * Put ITEM on QUEUE, waiting for room unless writing has failed.
+     */
+    private <T> void put(BlockingQueue<T> queue, T item)
+        throws InterruptedException {
+        while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (_failure != null) {
+                rethrow();
+            }
+        }
+    }
+
+    /**
+     * Throw the error that stopped writing, if any.
+     */
+    private void rethrow() {
+        if (_failure instanceof EnigmaException) {
+            throw (EnigmaException) _failure;
+        } else if (_failure != null) {
+            throw new EnigmaException("I/O error: "
+                    + _failure.getMessage());
+        }
+    }
+
+    /**
+     * Number of sections that may wait for each worker.
+     */
+    static final int PENDING_PER_WORKER = 4;
+
+    /**
+     * Number of pieces of input or of output queued for each section.
+     */
+    static final int PIECES_PER_SECTION = 4;
+
+    /**
+     * How long a blocked thread waits before checking for failure.
+     */
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * Marks the end of _order.
+     */
+    private static final Section POISON = new Section(1);
+
+    /**
+     * Configures machines from setting lines.
+     */
+    private final Main _main;
+
+    /**
+     * Machine following every setting line in turn.
+     */
+    private final Machine _shadow;
+
+    /**
+     * Destination of converted output.
+     */
+    private final WritableByteChannel _output;
+
+    /**
+     * Workers not converting a section.
+     */
+    private final BlockingQueue<SectionWorker> _workers;
+
+    /**
+     * Threads on which sections are converted.
+     */
+    private final ExecutorService _executor;
+
+    /**
+     * Sections in input order, awaiting the writer.
+     */
+    private final BlockingQueue<Section> _order;
+
+    /**
+     * The section receiving input, if any.
+     */
+    private Section _current;
+
+    /**
+     * True iff the next character starts a line.
+     */
+    private boolean _lineStart = true;
+
+    /**
+     * The setting line being read, if any.
+     */
+    private StringBuilder _setting;
+
+    /**
+     * True iff a setting line has been seen.
+     */
+    private boolean _seenSetting;
+
+    /**
+     * The error that stopped writing, if any.
+     */
+    private volatile Exception _failure;
+
+}
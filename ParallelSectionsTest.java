@@ -0,0 +1,119 @@
+package enigma;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Random;
+
+import static enigma.MessageProcessorTest.navalMain;
+import static enigma.TestUtils.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * The suite of all JUnit tests for the ParallelSections class.
+ *
+ * @author Shreyansh Loharuka
+ */
+public class ParallelSectionsTest {
+
+    /**
+     * Testing time limit.
+     */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    /**
+     * Return the output of converting INPUT with THREADS workers.
+     */
+    private String parallel(String input, int threads) throws IOException {
+        Main main = navalMain();
+        Machine[] machines = new Machine[threads];
+        for (int i = 0; i < threads; i++) {
+            machines[i] = main.newMachine();
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new ParallelSections(main, machines, main.newMachine(),
+                Channels.newChannel(output)).read(Channels.newChannel(
+                        new ByteArrayInputStream(input.getBytes())));
+        return output.toString();
+    }
+
+    /**
+     * Check that converting INPUT with 1 to 4 workers gives the same
+     * output as converting it sequentially.
+     */
+    private void checkInput(String input) throws IOException {
+        String expected = MessageProcessorTest.process(input);
+        for (int threads = 1; threads <= 4; threads++) {
+            assertEquals("threads = " + threads, expected,
+                    parallel(input, threads));
+        }
+    }
+
+    @Test
+    public void testSections() throws IOException {
+        checkInput("* B Beta I II III AAAA\nHELLO WORLD\n"
+                + "* B Beta I II III AAAA\nHELLO WOR");
+        checkInput("\n* B Beta I II III AAAA\nHELL O\n\n"
+                + "* B Beta I II III AAAA\nHELLO\n");
+        checkInput("* B Beta I II III AAAA\r\nHELLO\r\n"
+                + "* C Gamma IV V VI ZZZZ\r\nWORLD\r\n");
+    }
+
+    @Test
+    public void testInheritedSettings() throws IOException {
+        checkInput("* B Beta I II III AAAA BCDE (AQ) (EP)\nHELLO\n"
+                + "* B Beta I II III AAAA\nHELLO\n"
+                + "* B Beta IV V VI ZZZZ\nHELLO\n"
+                + "* B Beta I II III AAAA ZZZZ\nHELLO\n"
+                + "* B Beta I II III AAAA\nHELLO\n");
+    }
+
+    @Test
+    public void testManySections() throws IOException {
+        Random random = new Random(9);
+        String[] names = {"I", "II", "III", "IV", "V", "VI", "VII", "VIII"};
+        StringBuilder input = new StringBuilder();
+        for (int k = 0; k < 200; k++) {
+            input.append("* B Beta");
+            for (int i = 0; i < 3; i++) {
+                input.append(' ').append(names[(k + i * 3) % names.length]);
+            }
+            input.append(' ').append(randomMessage(random, 4)).append('\n');
+            for (int i = random.nextInt(4); i > 0; i--) {
+                input.append(randomMessage(random, random.nextInt(2000)))
+                        .append('\n');
+            }
+        }
+        checkInput(input.toString());
+    }
+
+    @Test
+    public void testBadSection() throws IOException {
+        try {
+            parallel("* B Beta I II III AAAA\nHELLO\n"
+                    + "* B Beta I I III AAAA\nHELLO\n"
+                    + "* B Beta I II III AAAA\nHELLO\n", 3);
+            fail("duplicate rotor accepted");
+        } catch (EnigmaException excp) {
+            return;
+        }
+    }
+
+    @Test
+    public void testNoConfiguration() throws IOException {
+        try {
+            parallel("", 2);
+            fail("empty input accepted");
+        } catch (EnigmaException excp) {
+            return;
+        }
+    }
+
+}
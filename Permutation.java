@@ -1,5 +1,7 @@
 package enigma;
 
+import java.util.Arrays;
+
 /**
  * Represents a permutation of a range of integers starting at 0 corresponding
  * to the characters of an alphabet.
@@ -18,6 +20,44 @@ class Permutation {
     Permutation(String cycles, Alphabet alphabet) {
         _alphabet = alphabet;
         _cycles = cycles;
+        this.compile();
+    }
+
+    /**
+     * Return the permutation of ALPHABET that maps each index i to
+     * FORWARD[i].  FORWARD must contain each index exactly once.
+     */
+    Permutation(int[] forward, Alphabet alphabet) {
+        int n = alphabet.size();
+        if (forward.length != n) {
+            throw new EnigmaException("Malformed Cycle!");
+        }
+        _alphabet = alphabet;
+        _forward = forward.clone();
+        _inverse = new int[n];
+        boolean[] seen = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            int to = _forward[i];
+            if (to < 0 || to >= n || seen[to]) {
+                throw new EnigmaException("Malformed Cycle!");
+            }
+            seen[to] = true;
+            _inverse[to] = i;
+        }
+        StringBuilder cycles = new StringBuilder();
+        boolean[] written = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            if (!written[i] && _forward[i] != i) {
+                cycles.append('(');
+                for (int j = i; !written[j]; j = _forward[j]) {
+                    written[j] = true;
+                    cycles.append(alphabet.toChar(j));
+                }
+                cycles.append(") ");
+            }
+        }
+        _cycles = cycles.toString();
+        this.computeCycleType();
     }
 
     /**
@@ -26,6 +66,78 @@ class Permutation {
      */
     private void addCycle(String cycle) {
         this._cycles = this._cycles + " " + cycle;
+        this.compile();
+    }
+
+    /**
+     * Parse and validate _cycles, filling in my forward and inverse
+     * tables and the values derived from them.
+     */
+    private void compile() {
+        int n = size();
+        _forward = new int[n];
+        _inverse = new int[n];
+        for (int i = 0; i < n; i++) {
+            _forward[i] = i;
+            _inverse[i] = i;
+        }
+        if (!this._cycles.trim().equals("")) {
+            boolean[] seen = new boolean[n];
+            String[] seperateCycles = this._cycles.split("[)]\\s*");
+            for (int i = 0; i < seperateCycles.length; i++) {
+                seperateCycles[i] = this.cleanCycle(seperateCycles[i]);
+                if (!seperateCycles[i].startsWith("(")) {
+                    throw new EnigmaException("Malformed Cycle!");
+                }
+            }
+            this.formatCycle(seperateCycles);
+            for (String cycle : seperateCycles) {
+                for (int i = 1; i <= cycle.length() - 2; i++) {
+                    int from = _alphabet.toInt(cycle.charAt(i));
+                    int to = i < cycle.length() - 2
+                            ? _alphabet.toInt(cycle.charAt(i + 1))
+                            : _alphabet.toInt(cycle.charAt(1));
+                    if (seen[from]) {
+                        throw new EnigmaException("Malformed Cycle!");
+                    }
+                    seen[from] = true;
+                    _forward[from] = to;
+                    _inverse[to] = from;
+                }
+            }
+        }
+        this.computeCycleType();
+    }
+
+    /**
+     * Fill in _cycleType and _fixedPoints from _forward.
+     */
+    private void computeCycleType() {
+        int n = size();
+        boolean[] visited = new boolean[n];
+        int[] lengths = new int[n];
+        int count = 0;
+        _fixedPoints = 0;
+        for (int i = 0; i < n; i++) {
+            if (visited[i]) {
+                continue;
+            }
+            int length = 0;
+            for (int j = i; !visited[j]; j = _forward[j]) {
+                visited[j] = true;
+                length++;
+            }
+            if (length == 1) {
+                _fixedPoints++;
+            }
+            lengths[count++] = length;
+        }
+        lengths = Arrays.copyOf(lengths, count);
+        Arrays.sort(lengths);
+        _cycleType = new int[count];
+        for (int i = 0; i < count; i++) {
+            _cycleType[i] = lengths[count - 1 - i];
+        }
     }
 
     /**
@@ -51,7 +163,7 @@ class Permutation {
      * alphabet size.
      */
     int permute(int p) {
-        return this._alphabet.toInt(this.permute(this._alphabet.toChar(p)));
+        return _forward[wrap(p)];
     }
 
     /**
@@ -59,7 +171,7 @@ class Permutation {
      * to  C modulo the alphabet size.
      */
     int invert(int c) {
-        return this._alphabet.toInt(this.invert(this._alphabet.toChar(c)));
+        return _inverse[wrap(c)];
     }
 
     /**
@@ -67,60 +179,20 @@ class Permutation {
      * in ALPHABET, and converting the result to a character of ALPHABET.
      */
     char permute(char p) {
-        if (this._cycles.equals("")) {
+        if (!this._alphabet.contains(p)) {
             return p;
         }
-        String[] seperateCycles = this._cycles.split("[)]\\s*");
-        this.formatCycle(seperateCycles);
-        for (String string : seperateCycles) {
-            this.cleanCycle(string);
-        }
-        for (String cycle : seperateCycles) {
-            for (int i = 1; i <= cycle.length() - 2; i++) {
-                if (cycle.length() == 3 && cycle.charAt(i) == p) {
-                    return p;
-                } else {
-                    if (cycle.charAt(i) == p && i < cycle.length() - 2) {
-                        return cycle.charAt(i + 1);
-                    } else if (cycle.charAt(i) == p
-                            && i == cycle.length() - 2) {
-                        return cycle.charAt(1);
-                    }
-                }
-
-            }
-        }
-        return p;
+        return this._alphabet.toChar(_forward[this._alphabet.toInt(p)]);
     }
 
     /**
      * Return the result of applying the inverse of this permutation to C.
      */
     char invert(char c) {
-        if (this._cycles.equals("")) {
+        if (!this._alphabet.contains(c)) {
             return c;
         }
-        String[] seperateCycles = this._cycles.split("[)]\\s*");
-        this.formatCycle(seperateCycles);
-        for (String string : seperateCycles) {
-            this.cleanCycle(string);
-        }
-        for (String cycle : seperateCycles) {
-            for (int i = cycle.length() - 2; i > 0; i--) {
-                if (cycle.length() == 3) {
-                    if (cycle.contains(Character.toString(c))) {
-                        return c;
-                    }
-                } else {
-                    if (cycle.charAt(i) == c && i != 1) {
-                        return cycle.charAt(i - 1);
-                    } else if (cycle.charAt(i) == c && i == 1) {
-                        return cycle.charAt(cycle.length() - 2);
-                    }
-                }
-            }
-        }
-        return c;
+        return this._alphabet.toChar(_inverse[this._alphabet.toInt(c)]);
     }
 
     /**
@@ -155,7 +227,7 @@ class Permutation {
                 continue;
             }
             char check = cycle.charAt(i);
-            if (!this._alphabet.chars().contains(Character.toString(check))) {
+            if (!this._alphabet.contains(check)) {
                 throw new EnigmaException("Cycle has invalid character!");
             }
         }
@@ -171,16 +243,28 @@ class Permutation {
 
     /**
      * Return true iff this permutation is a derangement (i.e., a
-     * permutation for which no value maps to itself).
+     * permutation for which no value maps to itself).  Characters of
+     * the alphabet left out of every cycle map to themselves, so a
+     * permutation with any of them is not a derangement.
      */
     boolean derangement() {
-        String[] seperateCycles = this._cycles.split("\\)[\\s+]?\\(");
-        for (String cycle : seperateCycles) {
-            if (cycle.length() == 3) {
-                return false;
-            }
-        }
-        return true;
+        return _fixedPoints == 0;
+    }
+
+    /**
+     * Return the number of values that this permutation maps to
+     * themselves.
+     */
+    int fixedPoints() {
+        return _fixedPoints;
+    }
+
+    /**
+     * Return the lengths of my cycles, fixed points included, in
+     * non-increasing order.
+     */
+    int[] cycleType() {
+        return _cycleType.clone();
     }
 
     /**
@@ -193,4 +277,24 @@ class Permutation {
      */
     private String _cycles;
 
+    /**
+     * _forward[i] is the result of permuting index i.
+     */
+    private int[] _forward;
+
+    /**
+     * _inverse[i] is the result of inverting index i.
+     */
+    private int[] _inverse;
+
+    /**
+     * Lengths of my cycles in non-increasing order.
+     */
+    private int[] _cycleType;
+
+    /**
+     * Number of values that map to themselves.
+     */
+    private int _fixedPoints;
+
 }
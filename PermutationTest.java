@@ -5,7 +5,10 @@ import org.junit.Test;
 import org.junit.rules.Timeout;
 
 import static enigma.TestUtils.*;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * The suite of all JUnit tests for the Permutation class.
@@ -108,5 +111,82 @@ public class PermutationTest {
         assertEquals("(ABC)", actual);
     }
 
+    @Test
+    public void testDerangement() {
+        Alphabet alphabet = new Alphabet();
+        Permutation permutation = new Permutation(NAVALA.get("B"), alphabet);
+        assertTrue(permutation.derangement());
+        assertEquals(0, permutation.fixedPoints());
+
+        permutation = new Permutation(NAVALA.get("II"), alphabet);
+        assertFalse(permutation.derangement());
+        assertEquals(2, permutation.fixedPoints());
+    }
+
+    @Test
+    public void testDerangementOmittedCharacters() {
+        Permutation permutation = new Permutation("(AB) (CD)",
+                new Alphabet("ABCD"));
+        assertTrue(permutation.derangement());
+
+        permutation = new Permutation("(AB) (CD)", new Alphabet("ABCDE"));
+        assertFalse(permutation.derangement());
+        assertEquals(1, permutation.fixedPoints());
+    }
+
+    @Test
+    public void testCycleType() {
+        Alphabet alphabet = new Alphabet();
+        Permutation permutation = new Permutation(NAVALA.get("I"), alphabet);
+        assertArrayEquals(new int[]{10, 4, 4, 3, 2, 2, 1},
+                permutation.cycleType());
+
+        permutation = new Permutation("(AB)", alphabet);
+        assertEquals(24, permutation.fixedPoints());
+        assertEquals(25, permutation.cycleType().length);
+    }
+
+    @Test
+    public void testTablesMatchCycles() {
+        for (String name : NAVALA_MAP.keySet()) {
+            perm = new Permutation(NAVALA.get(name), UPPER);
+            checkPerm(name, UPPER_STRING, NAVALA_MAP.get(name));
+        }
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testMalformedCycle() {
+        new Permutation("(AB) CD)", new Alphabet());
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testRepeatedCharacter() {
+        new Permutation("(AB) (BC)", new Alphabet());
+    }
+
+    @Test
+    public void testFromTable() {
+        for (String name : NAVALA.keySet()) {
+            Permutation cycles = new Permutation(NAVALA.get(name), UPPER);
+            int[] forward = new int[UPPER.size()];
+            for (int i = 0; i < forward.length; i += 1) {
+                forward[i] = cycles.permute(i);
+            }
+            Permutation table = new Permutation(forward, UPPER);
+            for (int i = 0; i < forward.length; i += 1) {
+                assertEquals(cycles.permute(i), table.permute(i));
+                assertEquals(cycles.invert(i), table.invert(i));
+            }
+            assertArrayEquals(cycles.cycleType(), table.cycleType());
+            assertEquals(cycles.derangement(), table.derangement());
+        }
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testTableNotPermutation() {
+        int[] forward = new int[UPPER.size()];
+        forward[1] = 2;
+        new Permutation(forward, UPPER);
+    }
 
 }
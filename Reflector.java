@@ -14,7 +14,14 @@ class Reflector extends FixedRotor {
      * is PERM.
      */
     Reflector(String name, Permutation perm) {
-        super(name, perm);
+        this(new RotorSpec(name, perm, "", 'R'));
+    }
+
+    /**
+     * A reflector as specified by SPEC.
+     */
+    Reflector(RotorSpec spec) {
+        super(spec);
     }
 
 
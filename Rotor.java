@@ -1,7 +1,8 @@
 package enigma;
 
 /**
- * Superclass that represents a rotor in the enigma machine.
+ * Superclass that represents a rotor in the enigma machine: the
+ * position and ring setting of one machine's copy of a RotorSpec.
  *
  * @author Shreyansh Loharuka
  */
@@ -11,8 +12,14 @@ class Rotor {
      * A rotor named NAME whose permutation is given by PERM.
      */
     Rotor(String name, Permutation perm) {
-        _name = name;
-        _permutation = perm;
+        this(new RotorSpec(name, perm, "", 'N'));
+    }
+
+    /**
+     * A rotor as specified by SPEC.
+     */
+    Rotor(RotorSpec spec) {
+        _spec = spec;
         _setting = 0;
         _rotated = false;
         _newSetting = _setting;
@@ -23,28 +30,35 @@ class Rotor {
      * Return my name.
      */
     String name() {
-        return _name;
+        return _spec.name();
+    }
+
+    /**
+     * Return my specification.
+     */
+    RotorSpec spec() {
+        return _spec;
     }
 
     /**
      * Return my alphabet.
      */
     Alphabet alphabet() {
-        return _permutation.alphabet();
+        return _spec.permutation().alphabet();
     }
 
     /**
      * Return my permutation.
      */
     Permutation permutation() {
-        return _permutation;
+        return _spec.permutation();
     }
 
     /**
      * Return the size of my alphabet.
      */
     int size() {
-        return _permutation.size();
+        return _spec.permutation().size();
     }
 
     /**
@@ -87,6 +101,7 @@ class Rotor {
      */
     void set(int posn) {
         this._setting = posn;
+        this.updateRow();
     }
 
     /**
@@ -108,7 +123,8 @@ class Rotor {
      * Set setting() to character CPOSN.
      */
     void set(char cposn) {
-        this._setting = this._permutation.alphabet().toInt(cposn);
+        this._setting = this.alphabet().toInt(cposn);
+        this.updateRow();
     }
 
     /**
@@ -123,6 +139,44 @@ class Rotor {
      */
     void setOffSet(int posn) {
         this._offset = posn;
+        this.updateRow();
+    }
+
+    /**
+     * Point _row at the table row for my current setting and ring setting.
+     */
+    private void updateRow() {
+        this._row = this.permutation().wrap(setting() - offset()) * size();
+    }
+
+    /**
+     * Precompute my wiring at every effective position, so that
+     * convertForward and convertBackward become single table lookups.
+     * Does nothing if I have already done so.
+     */
+    void precompute() {
+        if (this._forwardTable != null) {
+            return;
+        }
+        int[][] tables = this._spec.tables();
+        this._forwardTable = tables[0];
+        this._backwardTable = tables[1];
+        this.updateRow();
+    }
+
+    /**
+     * Return true iff my per-position tables have been computed.
+     */
+    boolean precomputed() {
+        return this._forwardTable != null;
+    }
+
+    /**
+     * Return the number of bytes my per-position tables occupy, or would
+     * occupy once precompute() is called.
+     */
+    long tableMemory() {
+        return this._spec.tableMemory();
     }
 
     /**
@@ -130,9 +184,12 @@ class Rotor {
      * according to my permutation.
      */
     int convertForward(int p) {
+        if (this._forwardTable != null) {
+            return this._forwardTable[this._row + p];
+        }
         int x = this.permutation().wrap(setting() - offset());
         int contactEntered = this.permutation().wrap(p + x);
-        int permutated = this._permutation.permute(contactEntered);
+        int permutated = this.permutation().permute(contactEntered);
         x = this.permutation().wrap(setting() - offset());
         int contactExited = this.permutation().wrap(permutated - x);
         return contactExited;
@@ -143,9 +200,12 @@ class Rotor {
      * according to the inverse of my permutation.
      */
     int convertBackward(int e) {
+        if (this._backwardTable != null) {
+            return this._backwardTable[this._row + e];
+        }
         int x = this.permutation().wrap(setting() - offset());
         int contactEntered = this.permutation().wrap(e + x);
-        int permutated = this._permutation.invert(contactEntered);
+        int permutated = this.permutation().invert(contactEntered);
         x = this.permutation().wrap(setting() - offset());
         int contactExited = this.permutation().wrap(permutated - x);
         return contactExited;
@@ -167,25 +227,20 @@ class Rotor {
 
     @Override
     public String toString() {
-        return "Rotor " + _name;
+        return "Rotor " + name();
     }
 
 
     /**
-     * My name.
+     * My specification.
      */
-    private final String _name;
+    private final RotorSpec _spec;
 
     /**
      * My Ring setting.
      */
     private int _offset;
 
-    /**
-     * The permutation implemented by this rotor in its 0 position.
-     */
-    private Permutation _permutation;
-
     /**
      * The setting of this rotor.
      */
@@ -201,5 +256,23 @@ class Rotor {
      */
     private boolean _rotated;
 
+    /**
+     * Start of the row of my tables for the current position.
+     */
+    private int _row;
+
+    /**
+     * My forward conversion at each effective position, flattened
+     * row by row and shared with my specification, or null if not
+     * precomputed.
+     */
+    private int[] _forwardTable;
+
+    /**
+     * My backward conversion at each effective position, flattened
+     * row by row and shared with my specification, or null if not
+     * precomputed.
+     */
+    private int[] _backwardTable;
 
 }
@@ -0,0 +1,162 @@
+package enigma;
+
+import static enigma.EnigmaException.error;
+
+/**
+ * The unchanging description of a rotor: its name, wiring, notches and
+ * kind.  A specification holds no position or ring setting, so one may
+ * be shared by any number of machines on any number of threads; each
+ * machine has Rotors of its own that refer to it.
+ *
+ * @author Shreyansh Loharuka
+ */
+final class RotorSpec {
+
+    /**
+     * A specification of a rotor named NAME whose permutation is PERM.
+     * KIND is 'M' for a moving rotor with a notch at each character of
+     * NOTCHES, 'N' for a fixed rotor and 'R' for a reflector.  PERM must
+     * not be changed afterwards.
+     */
+    RotorSpec(String name, Permutation perm, String notches, char kind) {
+        if (kind != 'M' && kind != 'N' && kind != 'R') {
+            throw error("Unknown rotor kind %c", kind);
+        }
+        if (kind != 'M' && !notches.isEmpty()) {
+            throw error("Only moving rotors have notches");
+        }
+        _name = name;
+        _permutation = perm;
+        _notches = notches;
+        _kind = kind;
+        _notchAt = new boolean[perm.size()];
+        for (int i = 0; i < notches.length(); i++) {
+            _notchAt[perm.alphabet().toInt(notches.charAt(i))] = true;
+        }
+    }
+
+    /**
+     * Return a new rotor of my kind at setting 0 and ring setting 0.
+     */
+    Rotor newRotor() {
+        if (_kind == 'M') {
+            return new MovingRotor(this);
+        } else if (_kind == 'N') {
+            return new FixedRotor(this);
+        } else {
+            return new Reflector(this);
+        }
+    }
+
+    /**
+     * Return my name.
+     */
+    String name() {
+        return _name;
+    }
+
+    /**
+     * Return my permutation.
+     */
+    Permutation permutation() {
+        return _permutation;
+    }
+
+    /**
+     * Return my kind: 'M', 'N' or 'R'.
+     */
+    char kind() {
+        return _kind;
+    }
+
+    /**
+     * Return the characters at which I have notches.
+     */
+    String notches() {
+        return _notches;
+    }
+
+    /**
+     * Return true iff I have a notch at position POSN.
+     */
+    boolean isNotch(int posn) {
+        return _notchAt[posn];
+    }
+
+    /**
+     * Return the number of bytes my per-position tables occupy.
+     */
+    long tableMemory() {
+        return 2L * Integer.BYTES * _permutation.size()
+                * _permutation.size();
+    }
+
+    /**
+     * Return my forward (element 0) and backward (element 1) conversion
+     * at each effective position, flattened row by row.  They are
+     * computed on first use; callers must not modify them.
+     */
+    int[][] tables() {
+        int[][] tables = _tables;
+        if (tables == null) {
+            tables = computeTables();
+            _tables = tables;
+        }
+        return tables;
+    }
+
+    /**
+     * Return newly computed tables for tables().
+     */
+    private int[][] computeTables() {
+        Permutation perm = _permutation;
+        int n = perm.size();
+        int[] forward = new int[n * n];
+        int[] backward = new int[n * n];
+        for (int x = 0; x < n; x++) {
+            for (int p = 0; p < n; p++) {
+                int contact = perm.wrap(p + x);
+                forward[x * n + p] = perm.wrap(perm.permute(contact) - x);
+                backward[x * n + p] = perm.wrap(perm.invert(contact) - x);
+            }
+        }
+        return new int[][] {forward, backward};
+    }
+
+    @Override
+    public String toString() {
+        return "RotorSpec " + _name;
+    }
+
+    /**
+     * My name.
+     */
+    private final String _name;
+
+    /**
+     * The permutation implemented by my rotors in their 0 position.
+     */
+    private final Permutation _permutation;
+
+    /**
+     * The characters at which I have notches.
+     */
+    private final String _notches;
+
+    /**
+     * My kind: 'M', 'N' or 'R'.
+     */
+    private final char _kind;
+
+    /**
+     * Whether I have a notch at each position.
+     */
+    private final boolean[] _notchAt;
+
+    /**
+     * My per-position tables, or null until first needed.  Computing
+     * them twice in a race is harmless.
+     */
+    private volatile int[][] _tables;
+
+}
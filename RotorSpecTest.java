@@ -0,0 +1,110 @@
+package enigma;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.Arrays;
+
+import static enigma.TestUtils.*;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The suite of all JUnit tests for the RotorSpec class.
+ *
+ * @author Shreyansh Loharuka
+ */
+public class RotorSpecTest {
+
+    /**
+     * Testing time limit.
+     */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    @Test
+    public void testKinds() {
+        Permutation perm = new Permutation(NAVALA.get("I"), UPPER);
+        Rotor moving = new RotorSpec("I", perm, "QV", 'M').newRotor();
+        assertTrue(moving instanceof MovingRotor);
+        assertTrue(moving.rotates());
+        assertTrue(((MovingRotor) moving).isNotch(UPPER.toInt('V')));
+        assertFalse(((MovingRotor) moving).isNotch(UPPER.toInt('A')));
+        Rotor fixed = new RotorSpec("I", perm, "", 'N').newRotor();
+        assertTrue(fixed instanceof FixedRotor);
+        assertFalse(fixed.rotates() || fixed.reflecting());
+        Rotor reflector = new RotorSpec("B",
+                new Permutation(NAVALA.get("B"), UPPER), "", 'R').newRotor();
+        assertTrue(reflector.reflecting());
+    }
+
+    @Test
+    public void testIndependentRotors() {
+        RotorSpec spec = new RotorSpec("I",
+                new Permutation(NAVALA.get("I"), UPPER), "Q", 'M');
+        Rotor first = spec.newRotor();
+        Rotor second = spec.newRotor();
+        assertNotSame(first, second);
+        assertSame(spec, first.spec());
+        first.set(5);
+        first.setOffSet(2);
+        assertEquals(0, second.setting());
+        assertEquals(0, second.offset());
+        first.precompute();
+        second.precompute();
+        assertSame(spec.tables(), spec.tables());
+        Rotor plain = new MovingRotor("I", first.permutation(), "Q");
+        plain.set(5);
+        plain.setOffSet(2);
+        for (int p = 0; p < UPPER.size(); p += 1) {
+            assertEquals(plain.convertForward(p), first.convertForward(p));
+            assertEquals(p, second.convertBackward(
+                    second.convertForward(p)));
+        }
+    }
+
+    @Test
+    public void testTables() {
+        Permutation perm = new Permutation(NAVALA.get("III"), UPPER);
+        RotorSpec spec = new RotorSpec("III", perm, "V", 'M');
+        int[][] tables = spec.tables();
+        Rotor plain = new MovingRotor("III", perm, "V");
+        for (int x = 0; x < UPPER.size(); x += 1) {
+            plain.set(x);
+            int[] forward = new int[UPPER.size()];
+            int[] backward = new int[UPPER.size()];
+            for (int p = 0; p < UPPER.size(); p += 1) {
+                forward[p] = plain.convertForward(p);
+                backward[p] = plain.convertBackward(p);
+            }
+            assertArrayEquals(forward, Arrays.copyOfRange(
+                    tables[0], x * UPPER.size(), (x + 1) * UPPER.size()));
+            assertArrayEquals(backward, Arrays.copyOfRange(
+                    tables[1], x * UPPER.size(), (x + 1) * UPPER.size()));
+        }
+    }
+
+    @Test
+    public void testBadKind() {
+        Permutation perm = new Permutation(NAVALA.get("I"), UPPER);
+        try {
+            new RotorSpec("I", perm, "Q", 'N');
+            fail("fixed rotor with notches accepted");
+        } catch (EnigmaException excp) {
+            assertTrue(true);
+        }
+        try {
+            new RotorSpec("I", perm, "", 'X');
+            fail("unknown kind accepted");
+        } catch (EnigmaException excp) {
+            assertTrue(true);
+        }
+    }
+
+}
@@ -0,0 +1,296 @@
+package enigma;
+
+import static enigma.EnigmaException.error;
+
+/**
+ * The read-only part of a configured Machine flattened into primitive
+ * arrays: rotor wirings, notches, which slots move, ring settings,
+ * plugboard and odometer.  CompiledMachine, SpecializedMachine,
+ * BatchConverter and KeySearch all read their tables from one of these,
+ * and the scalar engines among them step and convert with the static
+ * methods here.  Those take every table as an argument, so that a
+ * SpecializedMachine passing its static constants gets them folded into
+ * its own copy of the code.  The arrays returned by my accessors are
+ * shared and must not be modified.
+ *
+ * @author Shreyansh Loharuka
+ */
+final class RotorTables {
+
+    /**
+     * The tables of the rotors, ring settings and plugboard currently
+     * held by MACHINE.
+     */
+    RotorTables(Machine machine) {
+        Rotor[] slots = machine.rotorSlots();
+        if (slots == null) {
+            throw error("Rotors have not been inserted!");
+        }
+        _size = machine.alphabet().size();
+        _slots = slots.length;
+        _forward = new int[_slots * _size];
+        _backward = new int[_slots * _size];
+        _notch = new boolean[_slots * _size];
+        _rotates = new boolean[_slots];
+        _doubleSteps = new boolean[_slots];
+        _offset = new int[_slots];
+        _odometer = machine.odometer();
+        for (int i = 0; i < _slots; i++) {
+            Rotor rotor = slots[i];
+            Permutation perm = rotor.permutation();
+            for (int k = 0; k < _size; k++) {
+                _forward[i * _size + k] = perm.permute(k);
+                _backward[i * _size + k] = perm.invert(k);
+            }
+            if (rotor instanceof MovingRotor) {
+                MovingRotor moving = (MovingRotor) rotor;
+                for (int k = 0; k < _size; k++) {
+                    _notch[i * _size + k] = moving.isNotch(k);
+                }
+            }
+            _rotates[i] = rotor.rotates();
+            _doubleSteps[i] = i > 0 && _rotates[i] && _rotates[i - 1];
+            _offset[i] = perm.wrap(rotor.offset());
+        }
+        _plugForward = new int[_size];
+        _plugBackward = new int[_size];
+        Permutation plugboard = machine.plugboard();
+        for (int k = 0; k < _size; k++) {
+            _plugForward[k] = plugboard == null ? k : plugboard.permute(k);
+            _plugBackward[k] = plugboard == null ? k : plugboard.invert(k);
+        }
+    }
+
+    /**
+     * Return the size of the alphabet.
+     */
+    int size() {
+        return _size;
+    }
+
+    /**
+     * Return the number of rotor slots.
+     */
+    int slots() {
+        return _slots;
+    }
+
+    /**
+     * Return the wirings of the slots at position 0, that of slot i at
+     * i * size().
+     */
+    int[] forward() {
+        return _forward;
+    }
+
+    /**
+     * Return the inverses of forward(), laid out in the same way.
+     */
+    int[] backward() {
+        return _backward;
+    }
+
+    /**
+     * Return the notches of the slots: element i * size() + k is true
+     * iff slot i has a notch at k.
+     */
+    boolean[] notch() {
+        return _notch;
+    }
+
+    /**
+     * Return whether the rotor in each slot can move.
+     */
+    boolean[] rotates() {
+        return _rotates;
+    }
+
+    /**
+     * Return whether the rotor in each slot moves when it is at a notch
+     * (which requires that its left neighbor can move too).
+     */
+    boolean[] doubleSteps() {
+        return _doubleSteps;
+    }
+
+    /**
+     * Return the ring setting of SLOT.
+     */
+    int offset(int slot) {
+        return _offset[slot];
+    }
+
+    /**
+     * Return the plugboard applied on the way in.
+     */
+    int[] plugForward() {
+        return _plugForward;
+    }
+
+    /**
+     * Return the plugboard applied on the way out.
+     */
+    int[] plugBackward() {
+        return _plugBackward;
+    }
+
+    /**
+     * Move rotors at POSITION to where they would be after N more
+     * characters, and set SHIFT to match.
+     */
+    void seek(int[] position, int[] shift, long n) {
+        _odometer.seek(position, n);
+        shifts(position, shift);
+    }
+
+    /**
+     * Advance rotors at POSITION, with shifts SHIFT, as the machine does
+     * before each character.
+     */
+    void step(int[] position, int[] shift) {
+        step(_size, _slots, _rotates, _notch, _doubleSteps, position,
+                shift);
+    }
+
+    /**
+     * Return the conversion of C by my plugboard and rotors, these being
+     * at shifts SHIFT.
+     */
+    int convert(int c, int[] shift) {
+        c = pass(_size, _slots, _forward, _backward, shift,
+                _plugForward[c]);
+        return _plugBackward[c];
+    }
+
+    /**
+     * Set SHIFT[i] to the setting minus ring setting of slot i at
+     * position POSITION[i], for every slot.
+     */
+    void shifts(int[] position, int[] shift) {
+        for (int i = 0; i < _slots; i++) {
+            shift[i] = position[i] - _offset[i];
+            if (shift[i] < 0) {
+                shift[i] += _size;
+            }
+        }
+    }
+
+    /**
+     * Advance the SLOTS rotors at POSITION, with shifts SHIFT, as the
+     * machine does before each character, given an alphabet of SIZE
+     * characters and the ROTATES, NOTCH and DOUBLESTEPS tables of the
+     * slots.  A rotor moves if it is the rightmost one, if its right
+     * neighbor is at a notch, or if it is itself at a notch and its left
+     * neighbor can move.  Slots are visited left to right so that every
+     * test sees the positions from before this step.
+     */
+    static void step(int size, int slots, boolean[] rotates,
+                     boolean[] notch, boolean[] doubleSteps,
+                     int[] position, int[] shift) {
+        final int last = slots - 1;
+        for (int i = 1; i <= last; i++) {
+            if (!rotates[i]) {
+                continue;
+            }
+            if (i == last || notch[(i + 1) * size + position[i + 1]]
+                    || (doubleSteps[i] && notch[i * size + position[i]])) {
+                if (++position[i] == size) {
+                    position[i] = 0;
+                }
+                if (++shift[i] == size) {
+                    shift[i] = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Return C after it passes through the SLOTS rotors, from the
+     * rightmost to the reflector and back, given an alphabet of SIZE
+     * characters, their FORWARD and BACKWARD wirings and their shifts
+     * SHIFT.  The plugboard is not applied.
+     */
+    static int pass(int size, int slots, int[] forward, int[] backward,
+                    int[] shift, int c) {
+        for (int i = slots - 1; i >= 0; i--) {
+            int x = shift[i];
+            int k = c + x;
+            if (k >= size) {
+                k -= size;
+            }
+            c = forward[i * size + k] - x;
+            if (c < 0) {
+                c += size;
+            }
+        }
+        for (int i = 1; i < slots; i++) {
+            int x = shift[i];
+            int k = c + x;
+            if (k >= size) {
+                k -= size;
+            }
+            c = backward[i * size + k] - x;
+            if (c < 0) {
+                c += size;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Size of the alphabet.
+     */
+    private final int _size;
+
+    /**
+     * Number of rotor slots.
+     */
+    private final int _slots;
+
+    /**
+     * Wiring of slot i at position 0, at i * _size.
+     */
+    private final int[] _forward;
+
+    /**
+     * Inverse wiring of slot i at position 0, at i * _size.
+     */
+    private final int[] _backward;
+
+    /**
+     * _notch[i * _size + k] is true iff slot i has a notch at k.
+     */
+    private final boolean[] _notch;
+
+    /**
+     * Whether the rotor in each slot can move.
+     */
+    private final boolean[] _rotates;
+
+    /**
+     * Whether the rotor in each slot moves when it is at a notch
+     * (which requires that its left neighbor can move too).
+     */
+    private final boolean[] _doubleSteps;
+
+    /**
+     * Ring setting of each slot.
+     */
+    private final int[] _offset;
+
+    /**
+     * Plugboard applied on the way in.
+     */
+    private final int[] _plugForward;
+
+    /**
+     * Plugboard applied on the way out.
+     */
+    private final int[] _plugBackward;
+
+    /**
+     * Stepping mechanism of the slots.
+     */
+    private final Odometer _odometer;
+
+}
@@ -0,0 +1,127 @@
+package enigma;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * One setting line and the message lines that follow it, on their way
+ * through a ParallelSections.  Input text arrives in pieces from the
+ * reading thread, and converted output leaves in pieces for the writing
+ * thread; both queues are bounded.
+ *
+ * @author Shreyansh Loharuka
+ */
+class Section {
+
+    /**
+     * A section whose input and output queues hold at most CAPACITY
+     * pieces each.
+     */
+    Section(int capacity) {
+        _input = new ArrayBlockingQueue<>(capacity);
+        _output = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Return my input queue.  END_INPUT marks its end.
+     */
+    BlockingQueue<CharBuffer> input() {
+        return _input;
+    }
+
+    /**
+     * Return my output queue.  END_OUTPUT marks its end.
+     */
+    BlockingQueue<ByteBuffer> output() {
+        return _output;
+    }
+
+    /**
+     * Return true iff no section follows me.
+     */
+    boolean last() {
+        return _last;
+    }
+
+    /**
+     * Set last() to FLAG.
+     */
+    void setLast(boolean flag) {
+        _last = flag;
+    }
+
+    /**
+     * Return the error that stopped my conversion, or null.
+     */
+    Exception failure() {
+        return _failure;
+    }
+
+    /**
+     * Record EXCP as the error that stopped my conversion.
+     */
+    void fail(Exception excp) {
+        _failure = excp;
+    }
+
+    /**
+     * Record the plugboard and ring settings of M, which a setting line
+     * leaves unchanged unless it gives new ones, as those in force
+     * before my setting line.
+     */
+    void carry(Machine M) {
+        _plugboard = M.plugboard();
+        _rings = M.rings();
+    }
+
+    /**
+     * Give M the plugboard and ring settings recorded by carry().
+     */
+    void restore(Machine M) {
+        M.setPlugboard(_plugboard);
+        M.setRings(_rings);
+    }
+
+    /**
+     * Marks the end of a section's input.
+     */
+    static final CharBuffer END_INPUT = CharBuffer.allocate(0);
+
+    /**
+     * Marks the end of a section's output.
+     */
+    static final ByteBuffer END_OUTPUT = ByteBuffer.allocate(0);
+
+    /**
+     * Pieces of my text not yet converted.
+     */
+    private final BlockingQueue<CharBuffer> _input;
+
+    /**
+     * Pieces of my converted output not yet written.
+     */
+    private final BlockingQueue<ByteBuffer> _output;
+
+    /**
+     * Plugboard in force before my setting line.
+     */
+    private Permutation _plugboard;
+
+    /**
+     * Ring settings in force before my setting line.
+     */
+    private int[] _rings;
+
+    /**
+     * True iff no section follows me.
+     */
+    private volatile boolean _last;
+
+    /**
+     * The error that stopped my conversion, if any.
+     */
+    private volatile Exception _failure;
+
+}
@@ -0,0 +1,89 @@
+package enigma;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+/**
+ * A MessageProcessor with a machine of its own that converts whole
+ * sections, sending each section's output to that section's output
+ * queue.
+ *
+ * @author Shreyansh Loharuka
+ */
+class SectionWorker extends MessageProcessor {
+
+    /**
+     * A worker that configures MACHINE through MAIN.
+     */
+    SectionWorker(Main main, Machine machine) {
+        super(main, machine, null);
+        _machine = machine;
+        _bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /**
+     * Convert all of SECTION's input, ending with its END_INPUT, and
+     * queue its output followed by END_OUTPUT.  Errors are recorded in
+     * SECTION, whose remaining input is then skipped.
+     */
+    void convert(Section section) throws InterruptedException {
+        _section = section;
+        section.restore(_machine);
+        try {
+            for (CharBuffer chunk = section.input().take();
+                 chunk != Section.END_INPUT; chunk = section.input().take()) {
+                process(chunk);
+            }
+            if (section.last()) {
+                finish();
+            } else {
+                finishSection();
+            }
+        } catch (EnigmaException | IOException excp) {
+            section.fail(excp);
+            while (section.input().take() != Section.END_INPUT) {
+                continue;
+            }
+        } finally {
+            section.output().put(Section.END_OUTPUT);
+            _section = null;
+        }
+    }
+
+    @Override
+    ByteBuffer target() {
+        return _bytes;
+    }
+
+    @Override
+    void drain() throws IOException {
+        _bytes.flip();
+        if (_bytes.hasRemaining()) {
+            ByteBuffer piece = ByteBuffer.allocate(_bytes.remaining());
+            piece.put(_bytes).flip();
+            try {
+                _section.output().put(piece);
+            } catch (InterruptedException excp) {
+                throw new IOException("interrupted");
+            }
+        }
+        _bytes.clear();
+    }
+
+    /**
+     * My machine.
+     */
+    private final Machine _machine;
+
+    /**
+     * Buffer into which output is encoded.
+     */
+    private final ByteBuffer _bytes;
+
+    /**
+     * The section being converted.
+     */
+    private Section _section;
+
+}
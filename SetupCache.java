@@ -0,0 +1,125 @@
+package enigma;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import static enigma.EnigmaException.error;
+
+/**
+ * A bounded cache of the parts of a machine's setup built from setting
+ * lines, such as resolved rotor orders and plugboard permutations, keyed
+ * by their normalized text.  When full, it discards the entry used least
+ * recently.  It counts hits, misses and evictions, and may be shared by
+ * the threads converting sections at once.
+ *
+ * @author Shreyansh Loharuka
+ */
+class SetupCache<K, V> {
+
+    /**
+     * An empty cache holding at most CAPACITY > 0 entries.
+     */
+    SetupCache(int capacity) {
+        if (capacity <= 0) {
+            throw error("Setup cache capacity must be positive");
+        }
+        _capacity = capacity;
+        _entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > _capacity) {
+                    _evictions += 1;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Return the value cached for KEY, first computing it as BUILD
+     * (KEY) and caching it if there is none.  Nothing is cached if
+     * BUILD throws.  BUILD is called without holding my lock, so two
+     * threads missing on the same key may both call it.
+     */
+    V get(K key, Function<? super K, ? extends V> build) {
+        synchronized (this) {
+            V value = _entries.get(key);
+            if (value != null) {
+                _hits += 1;
+                return value;
+            }
+            _misses += 1;
+        }
+        V value = build.apply(key);
+        synchronized (this) {
+            _entries.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Discard all my entries, keeping my counts.
+     */
+    synchronized void clear() {
+        _entries.clear();
+    }
+
+    /**
+     * Return the number of entries I hold.
+     */
+    synchronized int size() {
+        return _entries.size();
+    }
+
+    /**
+     * Return the most entries I hold.
+     */
+    int capacity() {
+        return _capacity;
+    }
+
+    /**
+     * Return the number of calls to get() that found their key.
+     */
+    synchronized long hits() {
+        return _hits;
+    }
+
+    /**
+     * Return the number of calls to get() that did not find their key.
+     */
+    synchronized long misses() {
+        return _misses;
+    }
+
+    /**
+     * Return the number of entries discarded to make room for others.
+     */
+    synchronized long evictions() {
+        return _evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d hits, %d misses, %d evictions", _hits,
+                _misses, _evictions);
+    }
+
+    /**
+     * Most entries I hold.
+     */
+    private final int _capacity;
+
+    /**
+     * My entries, least recently used first.
+     */
+    private final LinkedHashMap<K, V> _entries;
+
+    /**
+     * Counts of hits, misses and evictions.
+     */
+    private long _hits, _misses, _evictions;
+
+}
@@ -0,0 +1,106 @@
+package enigma;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.IOException;
+
+import static enigma.MessageProcessorTest.navalMain;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * The suite of all JUnit tests for the SetupCache class.
+ *
+ * @author Shreyansh Loharuka
+ */
+public class SetupCacheTest {
+
+    /**
+     * Testing time limit.
+     */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    @Test
+    public void testHitsAndMisses() {
+        SetupCache<String, Permutation> cache = new SetupCache<>(4);
+        Permutation first = cache.get("(AB) (CD)",
+                cycles -> new Permutation(cycles, TestUtils.UPPER));
+        Permutation second = cache.get("(AB) (CD)", cycles -> {
+            throw new AssertionError("rebuilt a cached entry");
+        });
+        assertSame(first, second);
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(0, cache.evictions());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        SetupCache<String, String> cache = new SetupCache<>(2);
+        cache.get("A", k -> k);
+        cache.get("B", k -> k);
+        cache.get("A", k -> k);
+        cache.get("C", k -> k);
+        assertEquals(1, cache.evictions());
+        assertEquals(2, cache.size());
+        cache.get("A", k -> k);
+        assertEquals(2, cache.hits());
+        cache.get("B", k -> k);
+        assertEquals(4, cache.misses());
+        assertEquals(2, cache.evictions());
+    }
+
+    @Test
+    public void testFailureNotCached() {
+        SetupCache<String, Permutation> cache = new SetupCache<>(2);
+        for (int i = 0; i < 2; i += 1) {
+            try {
+                cache.get("(AB) (AC)",
+                        cycles -> new Permutation(cycles, TestUtils.UPPER));
+            } catch (EnigmaException excp) {
+                continue;
+            }
+            throw new AssertionError("bad plugboard accepted");
+        }
+        assertEquals(2, cache.misses());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testClear() {
+        SetupCache<String, String> cache = new SetupCache<>(2);
+        cache.get("A", k -> k);
+        cache.clear();
+        cache.get("A", k -> k);
+        assertEquals(0, cache.hits());
+        assertEquals(2, cache.misses());
+        assertEquals(0, cache.evictions());
+    }
+
+    @Test
+    public void testPlugboardSpellings() throws IOException {
+        Main main = navalMain();
+        Machine machine = main.readConfig();
+        main.configure(machine, " B Beta I II III AAAA (AB) (CDE)");
+        Permutation first = machine.plugboard();
+        for (String plug : new String[]{"(CDE) (AB)", "(BA) (ECD)",
+            "(DEC)  (AB)"}) {
+            main.configure(machine, " B Beta I II III AAAA " + plug);
+            assertSame(first, machine.plugboard());
+        }
+        main.configure(machine, " B Beta I II III AAAA (AB) (CED)");
+        assertNotSame(first, machine.plugboard());
+        assertEquals(2, machine.plugboard().permute(3));
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testBadCapacity() {
+        new SetupCache<String, String>(0);
+    }
+
+}
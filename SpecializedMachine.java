@@ -0,0 +1,181 @@
+package enigma;
+
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandles;
+
+import static enigma.EnigmaException.error;
+
+/**
+ * The template from which a Specializer defines a class of its own for
+ * each configured machine.  Everything but the rotor positions is a
+ * static constant of that class, read from the RotorTables of the
+ * CompiledMachine it was defined for, so the JIT compiler sees a fixed
+ * number of slots and a fixed alphabet size, unrolls the loops over the
+ * slots completely and bounds-checks the tables once.  The conversion
+ * itself is that of CompiledMachine, from the static methods of
+ * RotorTables.  This class is never used directly: its constants exist
+ * only in the hidden classes defined from its bytes.
+ *
+ * @author Shreyansh Loharuka
+ */
+final class SpecializedMachine implements Converter {
+
+    /**
+     * A converter at the positions of the machine my class was defined
+     * for.
+     */
+    SpecializedMachine() {
+        _position = POSITION.clone();
+        _shift = SHIFT.clone();
+    }
+
+    @Override
+    public void seek(long n) {
+        TABLES.seek(_position, _shift, n);
+    }
+
+    @Override
+    public int numRotors() {
+        return SLOTS;
+    }
+
+    @Override
+    public int position(int slot) {
+        return _position[slot];
+    }
+
+    @Override
+    public int convert(int c) {
+        RotorTables.step(SIZE, SLOTS, ROTATES, NOTCH, DOUBLE_STEPS,
+                _position, _shift);
+        c = RotorTables.pass(SIZE, SLOTS, FORWARD, BACKWARD, _shift,
+                PLUG_FORWARD[c]);
+        return PLUG_BACKWARD[c];
+    }
+
+    @Override
+    public void convert(int[] src, int off, int len, int[] dst) {
+        for (int i = off; i < off + len; i++) {
+            int c = src[i];
+            if (c < 0 || c >= SIZE) {
+                throw error("Index %d out of range of alphabet!", c);
+            }
+            dst[i] = convert(c);
+        }
+    }
+
+    /**
+     * Return the class data of my class, the CompiledMachine it was
+     * defined for.
+     */
+    private static CompiledMachine prototype() {
+        Object data;
+        try {
+            data = MethodHandles.classData(MethodHandles.lookup(),
+                    ConstantDescs.DEFAULT_NAME, Object.class);
+        } catch (IllegalAccessException excp) {
+            throw error("Cannot read specialized constants: %s",
+                    excp.getMessage());
+        }
+        if (!(data instanceof CompiledMachine)) {
+            throw error("SpecializedMachine is only a template");
+        }
+        return (CompiledMachine) data;
+    }
+
+    /**
+     * Return the positions of the slots of PROTOTYPE.
+     */
+    private static int[] positions() {
+        int[] result = new int[PROTOTYPE.numRotors()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = PROTOTYPE.position(i);
+        }
+        return result;
+    }
+
+    /**
+     * Return the shifts of the slots at POSITION.
+     */
+    private static int[] shifts() {
+        int[] result = new int[SLOTS];
+        TABLES.shifts(POSITION, result);
+        return result;
+    }
+
+    /**
+     * The engine my class was defined for.
+     */
+    private static final CompiledMachine PROTOTYPE = prototype();
+
+    /**
+     * Tables of PROTOTYPE.
+     */
+    private static final RotorTables TABLES = PROTOTYPE.tables();
+
+    /**
+     * Size of my alphabet.
+     */
+    private static final int SIZE = TABLES.size();
+
+    /**
+     * Number of rotor slots.
+     */
+    private static final int SLOTS = TABLES.slots();
+
+    /**
+     * Wiring of slot i at position 0, at i * SIZE.
+     */
+    private static final int[] FORWARD = TABLES.forward();
+
+    /**
+     * Inverse wiring of slot i at position 0, at i * SIZE.
+     */
+    private static final int[] BACKWARD = TABLES.backward();
+
+    /**
+     * NOTCH[i * SIZE + k] is true iff slot i has a notch at k.
+     */
+    private static final boolean[] NOTCH = TABLES.notch();
+
+    /**
+     * Whether the rotor in each slot can move.
+     */
+    private static final boolean[] ROTATES = TABLES.rotates();
+
+    /**
+     * Whether the rotor in each slot moves when it is at a notch.
+     */
+    private static final boolean[] DOUBLE_STEPS = TABLES.doubleSteps();
+
+    /**
+     * Plugboard applied on the way in.
+     */
+    private static final int[] PLUG_FORWARD = TABLES.plugForward();
+
+    /**
+     * Plugboard applied on the way out.
+     */
+    private static final int[] PLUG_BACKWARD = TABLES.plugBackward();
+
+    /**
+     * Setting of each slot in a new converter.
+     */
+    private static final int[] POSITION = positions();
+
+    /**
+     * Setting minus ring setting of each slot in a new converter.
+     */
+    private static final int[] SHIFT = shifts();
+
+    /**
+     * Current setting of each slot.
+     */
+    private final int[] _position;
+
+    /**
+     * Current setting minus ring setting of each slot.
+     */
+    private final int[] _shift;
+
+}
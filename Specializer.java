@@ -0,0 +1,117 @@
+package enigma;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Makes converters specialized to one configured machine.  For each
+ * machine it defines a hidden class from the bytes of SpecializedMachine
+ * whose class data is that machine's CompiledMachine, and whose static
+ * constants are its rotor count, alphabet size, wirings, notches, ring
+ * settings and plugboard, so the JIT compiler can unroll the rotor loops
+ * for that configuration alone.  If the class cannot be defined, it
+ * makes CompiledMachines instead, which convert identically.
+ *
+ * @author Shreyansh Loharuka
+ */
+final class Specializer {
+
+    /**
+     * A specializer for MACHINE's current rotors, ring settings and
+     * plugboard.  Its converters start at MACHINE's current positions.
+     */
+    Specializer(Machine machine) {
+        this(machine, template());
+    }
+
+    /**
+     * A specializer for MACHINE as above, defining its class from
+     * TEMPLATE, the bytes of SpecializedMachine, or using CompiledMachine
+     * if TEMPLATE is null or cannot be defined.
+     */
+    Specializer(Machine machine, byte[] template) {
+        _prototype = machine.compile();
+        MethodHandle constructor = null;
+        String failure = template == null ? "template not found" : null;
+        if (template != null) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup()
+                        .defineHiddenClassWithClassData(template,
+                                _prototype, true);
+                constructor = lookup.findConstructor(lookup.lookupClass(),
+                        MethodType.methodType(void.class))
+                        .asType(MethodType.methodType(Converter.class));
+            } catch (ReflectiveOperationException | LinkageError
+                    | IllegalArgumentException | EnigmaException excp) {
+                failure = excp.toString();
+            }
+        }
+        _constructor = constructor;
+        _failure = failure;
+    }
+
+    /**
+     * Return true iff my converters are of a specialized class.
+     */
+    boolean specialized() {
+        return _constructor != null;
+    }
+
+    /**
+     * Return the reason my converters are not specialized, or null if
+     * they are.
+     */
+    String failure() {
+        return _failure;
+    }
+
+    /**
+     * Return a new converter in the state of the machine I was made
+     * from when I was made.
+     */
+    Converter newConverter() {
+        if (_constructor != null) {
+            try {
+                return (Converter) _constructor.invokeExact();
+            } catch (RuntimeException | Error excp) {
+                throw excp;
+            } catch (Throwable excp) {
+                throw new IllegalStateException(excp);
+            }
+        }
+        return new CompiledMachine(_prototype);
+    }
+
+    /**
+     * Return the bytes of the class SpecializedMachine, or null if they
+     * cannot be read.
+     */
+    private static byte[] template() {
+        try (InputStream in = SpecializedMachine.class.getResourceAsStream(
+                "SpecializedMachine.class")) {
+            return in == null ? null : in.readAllBytes();
+        } catch (IOException excp) {
+            return null;
+        }
+    }
+
+    /**
+     * Engine in the initial state of my converters.
+     */
+    private final CompiledMachine _prototype;
+
+    /**
+     * Constructor of my specialized class, returning a Converter, or
+     * null if it could not be defined.
+     */
+    private final MethodHandle _constructor;
+
+    /**
+     * Why _constructor is null, or null if it is not.
+     */
+    private final String _failure;
+
+}
@@ -0,0 +1,117 @@
+package enigma;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.Random;
+
+import static enigma.TestUtils.*;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The suite of all JUnit tests for the Specializer class.
+ *
+ * @author Shreyansh Loharuka
+ */
+public class SpecializerTest {
+
+    /**
+     * Testing time limit.
+     */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /**
+     * Check that a converter from SPECIALIZER, made from MACHINE, and
+     * MACHINE convert a random message of LENGTH characters identically
+     * and end at the same positions.
+     */
+    private void checkSame(Specializer specializer, Machine machine,
+                           int length) {
+        Converter converter = specializer.newConverter();
+        Random random = new Random(length);
+        int[] msg = new int[length];
+        int[] expected = new int[length];
+        for (int i = 0; i < length; i += 1) {
+            msg[i] = random.nextInt(machine.alphabet().size());
+            expected[i] = machine.convert(msg[i]);
+        }
+        converter.convert(msg, 0, length, msg);
+        assertArrayEquals(expected, msg);
+        for (int i = 1; i < machine.numRotors(); i += 1) {
+            Rotor rotor = machine.rotorSlots()[i];
+            assertEquals(rotor.permutation().wrap(rotor.setting()),
+                    converter.position(i));
+        }
+    }
+
+    @Test
+    public void testSpecialized() {
+        Machine machine = navalMachine(
+                new String[]{"B", "Beta", "III", "IV", "I"}, "AXLE", "BKZA",
+                "(HQ) (EX) (IP) (TR) (BY)");
+        Specializer specializer = new Specializer(machine);
+        assertTrue(specializer.failure(), specializer.specialized());
+        assertNull(specializer.failure());
+        checkSame(specializer, machine, 3000);
+    }
+
+    @Test
+    public void testSeveralConfigurations() {
+        Machine first = navalMachine(new String[]{"C", "Gamma", "II", "I",
+            "III"}, "ZDQT", "BKZA", "(AZ) (MN)");
+        Machine second = new Machine(UPPER, 3, 2,
+                navalMachine(NAVAL_NOTCHES).catalog());
+        second.insertRotors(new String[]{"B", "VI", "VIII"});
+        second.setRotors("MZ");
+        Specializer one = new Specializer(first);
+        Specializer two = new Specializer(second);
+        assertNotSame(one.newConverter().getClass(),
+                two.newConverter().getClass());
+        checkSame(one, first, 2000);
+        checkSame(two, second, 2000);
+    }
+
+    @Test
+    public void testIndependentConverters() {
+        Machine machine = navalMachine(
+                new String[]{"B", "Beta", "I", "II", "III"}, "AAAA", "AAAA",
+                "");
+        Specializer specializer = new Specializer(machine);
+        int[] hello = {7, 4, 11, 11, 14};
+        Converter first = specializer.newConverter();
+        first.seek(100);
+        int[] converted = hello.clone();
+        specializer.newConverter().convert(converted, 0, 5, converted);
+        assertArrayEquals(new int[]{8, 11, 1, 3, 0}, converted);
+        assertEquals(5, first.numRotors());
+    }
+
+    @Test
+    public void testFallback() {
+        Machine machine = navalMachine(
+                new String[]{"B", "Beta", "III", "IV", "I"}, "AXLE", "AAAA",
+                "(HQ) (EX)");
+        Specializer specializer = new Specializer(machine, new byte[]{1});
+        assertFalse(specializer.specialized());
+        assertTrue(specializer.newConverter() instanceof CompiledMachine);
+        checkSame(specializer, machine, 1000);
+        assertFalse(new Specializer(machine, null).specialized());
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testBadIndex() {
+        Machine machine = navalMachine(
+                new String[]{"B", "Beta", "III", "IV", "I"}, "AXLE", "AAAA",
+                "");
+        new Specializer(machine).newConverter().convert(new int[]{26}, 0,
+                1, new int[1]);
+    }
+
+}
@@ -1,6 +1,8 @@
 package enigma;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Random;
 
 /** Utility definitions for use in unit tests.
  *  @author P. N. Hilfinger
@@ -126,4 +128,56 @@ class TestUtils {
         NAVALZ_MAP.put("Gamma", "EGTPLBOVFSINCUJZDXMRQAYWHK");
     }
 
+    /** Notches of the naval rotors. */
+    static final HashMap<String, String> NAVAL_NOTCHES = new HashMap<>();
+    static {
+        NAVAL_NOTCHES.put("I", "Q");
+        NAVAL_NOTCHES.put("II", "E");
+        NAVAL_NOTCHES.put("III", "V");
+        NAVAL_NOTCHES.put("IV", "J");
+        NAVAL_NOTCHES.put("V", "Z");
+        NAVAL_NOTCHES.put("VI", "ZM");
+        NAVAL_NOTCHES.put("VII", "ZM");
+        NAVAL_NOTCHES.put("VIII", "ZM");
+    }
+
+    /** Return a 5-slot, 3-pawl machine holding all the naval rotors,
+     *  with the moving rotors notched as in NOTCHES. */
+    static Machine navalMachine(HashMap<String, String> notches) {
+        ArrayList<Rotor> rotors = new ArrayList<>();
+        for (String name : NAVALA.keySet()) {
+            Permutation perm = new Permutation(NAVALA.get(name), UPPER);
+            if (name.equals("B") || name.equals("C")) {
+                rotors.add(new Reflector(name, perm));
+            } else if (name.equals("Beta") || name.equals("Gamma")) {
+                rotors.add(new FixedRotor(name, perm));
+            } else {
+                rotors.add(new MovingRotor(name, perm, notches.get(name)));
+            }
+        }
+        return new Machine(UPPER, 5, 3, rotors);
+    }
+
+    /** Return the naval machine with its usual notches, set up with
+     *  rotors ORDER, SETTING, ring setting RING and plugboard PLUGS. */
+    static Machine navalMachine(String[] order, String setting, String ring,
+                                String plugs) {
+        Machine machine = navalMachine(NAVAL_NOTCHES);
+        machine.insertRotors(order);
+        machine.setRotors(setting);
+        machine.setOffset(ring);
+        machine.setPlugboard(new Permutation(plugs, UPPER));
+        return machine;
+    }
+
+    /** Return a string of LENGTH random upper-case letters drawn from
+     *  RANDOM. */
+    static String randomMessage(Random random, int length) {
+        char[] msg = new char[length];
+        for (int i = 0; i < length; i += 1) {
+            msg[i] = UPPER_STRING.charAt(random.nextInt(26));
+        }
+        return new String(msg);
+    }
+
 }
@@ -10,7 +10,16 @@ public class UnitTest {
     /** Run the JUnit tests in this package. Add xxxTest.class entries to
      *  the arguments of runClasses to run other JUnit tests. */
     public static void main(String[] ignored) {
-        textui.runClasses(PermutationTest.class, MovingRotorTest.class);
+        textui.runClasses(PermutationTest.class, MovingRotorTest.class,
+                AlphabetTest.class, MachineTest.class,
+                CompiledMachineTest.class, MessageProcessorTest.class,
+                ParallelConverterTest.class, ParallelSectionsTest.class,
+                RotorSpecTest.class, GroupWriterTest.class,
+                ConfigParserTest.class, CatalogFileTest.class,
+                SetupCacheTest.class, KeystreamCacheTest.class,
+                SpecializerTest.class, BatchConverterTest.class,
+                KeySearchTest.class, EnigmaStreamTest.class,
+                ByteMachineTest.class, MappedMessageProcessorTest.class);
     }
 
 }
@@ -0,0 +1,106 @@
+package enigma;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of converting many short messages, each on a machine of its
+ * own, one after another and in lockstep with a BatchConverter.  Scores
+ * are in nanoseconds per call, which converts STREAMS messages of LENGTH
+ * characters each.
+ *
+ * @author Shreyansh Loharuka
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBench {
+
+    /**
+     * Number of messages, and of machines.
+     */
+    @Param({"4", "16", "256"})
+    public int streams;
+
+    /**
+     * Number of characters in each message.
+     */
+    @Param({"64"})
+    public int length;
+
+    /**
+     * Build the machines and their messages.
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(21);
+        _machines = new Machine[streams];
+        _engines = new CompiledMachine[streams];
+        _messages = new int[streams][length];
+        for (int s = 0; s < streams; s++) {
+            _machines[s] = BenchSupport.machine(26, 5, 10, s);
+            _engines[s] = _machines[s].compile();
+            for (int i = 0; i < length; i++) {
+                _messages[s][i] = random.nextInt(26);
+            }
+        }
+        _batch = new BatchConverter(_machines);
+        _output = new int[length];
+    }
+
+    @Benchmark
+    public int[][] batch() {
+        return _batch.convert(_messages);
+    }
+
+    @Benchmark
+    public int sequential() {
+        int sum = 0;
+        for (int s = 0; s < streams; s++) {
+            _engines[s].convert(_messages[s], 0, length, _output);
+            sum += _output[length - 1];
+        }
+        return sum;
+    }
+
+    /**
+     * The machines, one per message.
+     */
+    private Machine[] _machines;
+
+    /**
+     * Engines compiled from _machines, used one after another.
+     */
+    private CompiledMachine[] _engines;
+
+    /**
+     * Converter running all of _machines in lockstep.
+     */
+    private BatchConverter _batch;
+
+    /**
+     * The message of each machine.
+     */
+    private int[][] _messages;
+
+    /**
+     * Where sequentially converted messages go.
+     */
+    private int[] _output;
+
+}
@@ -0,0 +1,134 @@
+package enigma;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Builders of alphabets, permutations and machines of arbitrary size for
+ * the benchmarks.  Everything is drawn from a seeded Random, so every run
+ * measures the same machines.
+ *
+ * @author Shreyansh Loharuka
+ */
+final class BenchSupport {
+
+    /**
+     * Not instantiable.
+     */
+    private BenchSupport() {
+    }
+
+    /**
+     * Return an alphabet of SIZE characters, starting with the upper-case
+     * letters.
+     */
+    static Alphabet alphabet(int size) {
+        StringBuilder chars = new StringBuilder();
+        for (char c = 'A'; c <= 'Z' && chars.length() < size; c++) {
+            chars.append(c);
+        }
+        for (char c = '!'; chars.length() < size; c++) {
+            if ((c < 'A' || c > 'Z') && c != '*' && c != '('
+                    && c != ')' && !Character.isWhitespace(c)) {
+                chars.append(c);
+            }
+        }
+        return new Alphabet(chars.toString());
+    }
+
+    /**
+     * Return the cycles of a random permutation of ALPHA drawn from
+     * RANDOM, in the notation Permutation accepts.
+     */
+    static String randomCycles(Alphabet alpha, Random random) {
+        int[] order = shuffled(alpha.size(), random);
+        StringBuilder cycles = new StringBuilder();
+        int start = 0;
+        while (start < order.length) {
+            int length = 1 + random.nextInt(order.length - start);
+            cycles.append('(');
+            for (int i = start; i < start + length; i++) {
+                cycles.append(alpha.toChar(order[i]));
+            }
+            cycles.append(") ");
+            start += length;
+        }
+        return cycles.toString();
+    }
+
+    /**
+     * Return PAIRS random swaps of characters of ALPHA drawn from RANDOM,
+     * as cycles of length two.
+     */
+    static String randomPairs(Alphabet alpha, int pairs, Random random) {
+        int[] order = shuffled(alpha.size(), random);
+        StringBuilder cycles = new StringBuilder();
+        for (int i = 0; i < pairs && 2 * i + 1 < order.length; i++) {
+            cycles.append('(').append(alpha.toChar(order[2 * i]))
+                    .append(alpha.toChar(order[2 * i + 1])).append(") ");
+        }
+        return cycles.toString();
+    }
+
+    /**
+     * Return a machine over an alphabet of SIZE (even) characters with a
+     * reflector and ROTORS - 1 moving rotors, all inserted, set at random
+     * and with a plugboard of PAIRS swaps.  Each moving rotor has one
+     * notch.  The wiring is drawn from a Random seeded with SEED.
+     */
+    static Machine machine(int size, int rotors, int pairs, long seed) {
+        Random random = new Random(seed);
+        Alphabet alpha = alphabet(size);
+        ArrayList<Rotor> all = new ArrayList<>();
+        String[] names = new String[rotors];
+        names[0] = "R";
+        all.add(new Reflector("R", new Permutation(
+                randomPairs(alpha, size / 2, random), alpha)));
+        StringBuilder setting = new StringBuilder();
+        for (int i = 1; i < rotors; i++) {
+            names[i] = "M" + i;
+            String notch = String.valueOf(
+                    alpha.toChar(random.nextInt(size)));
+            all.add(new MovingRotor(names[i], new Permutation(
+                    randomCycles(alpha, random), alpha), notch));
+            setting.append(alpha.toChar(random.nextInt(size)));
+        }
+        Machine machine = new Machine(alpha, rotors, rotors - 1, all);
+        machine.insertRotors(names);
+        machine.setRotors(setting.toString());
+        if (pairs > 0) {
+            machine.setPlugboard(new Permutation(
+                    randomPairs(alpha, pairs, random), alpha));
+        }
+        return machine;
+    }
+
+    /**
+     * Return a message of LENGTH characters of ALPHA drawn from RANDOM.
+     */
+    static String randomMessage(Alphabet alpha, int length, Random random) {
+        char[] msg = new char[length];
+        for (int i = 0; i < length; i++) {
+            msg[i] = alpha.toChar(random.nextInt(alpha.size()));
+        }
+        return new String(msg);
+    }
+
+    /**
+     * Return a random ordering of 0 .. N-1 drawn from RANDOM.
+     */
+    private static int[] shuffled(int n, Random random) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+        }
+        return order;
+    }
+
+}
@@ -0,0 +1,117 @@
+package enigma;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of enciphering binary data on a ByteMachine: from array to
+ * array on one thread and on the common pool, and between direct
+ * buffers.  Scores are in bytes per second.
+ *
+ * @author Shreyansh Loharuka
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ByteMachineBench {
+
+    /**
+     * Number of bytes converted by each call.
+     */
+    static final int LENGTH = 1 << 22;
+
+    /**
+     * Number of rotor slots, including the reflector.
+     */
+    @Param({"3", "5"})
+    public int rotors;
+
+    /**
+     * Number of notches of each moving rotor.
+     */
+    @Param({"1", "8"})
+    public int notches;
+
+    /**
+     * Build the machine and the data fed to it.
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(25);
+        ByteRotor[] slots = new ByteRotor[rotors];
+        slots[0] = ByteRotor.random('R', 0, random);
+        for (int i = 1; i < rotors; i++) {
+            slots[i] = ByteRotor.random('M', notches, random);
+        }
+        _machine = new ByteMachine(slots);
+        _machine.setPlugboard(ByteRotor.random('R', 0, random).wiring());
+        _data = new byte[LENGTH];
+        random.nextBytes(_data);
+        _output = new byte[LENGTH];
+        _source = ByteBuffer.allocateDirect(LENGTH);
+        _source.put(_data);
+        _target = ByteBuffer.allocateDirect(LENGTH);
+        _parallel = new ParallelConverter();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LENGTH)
+    public byte[] array() {
+        _machine.convert(_data, 0, LENGTH, _output, 0);
+        return _output;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LENGTH)
+    public byte[] parallel() {
+        _parallel.convert(_machine, _data, _output);
+        return _output;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LENGTH)
+    public ByteBuffer directBuffer() {
+        _source.clear();
+        _target.clear();
+        _machine.convert(_source, _target);
+        return _target;
+    }
+
+    /**
+     * The machine measured.
+     */
+    private ByteMachine _machine;
+
+    /**
+     * Data converted from arrays, and where it goes.
+     */
+    private byte[] _data, _output;
+
+    /**
+     * _data in a direct buffer, and where its conversion goes.
+     */
+    private ByteBuffer _source, _target;
+
+    /**
+     * Converter using the common pool.
+     */
+    private ParallelConverter _parallel;
+
+}
@@ -0,0 +1,110 @@
+package enigma;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of scoring candidate rotor settings against a crib, one at
+ * a time and one per vector lane.  Scores are in candidates per second
+ * on one thread, and so per core.
+ *
+ * @author Shreyansh Loharuka
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class KeySearchBench {
+
+    /**
+     * Number of candidates scored by each call.
+     */
+    static final int CANDIDATES = 4096;
+
+    /**
+     * Number of rotor slots.
+     */
+    @Param({"3", "5"})
+    public int rotors;
+
+    /**
+     * Number of characters of the message.
+     */
+    @Param({"32"})
+    public int length;
+
+    /**
+     * Build the searches, the message and the candidates.
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(22);
+        Machine machine = BenchSupport.machine(26, rotors, 10, 22);
+        _scalar = new KeySearch(machine);
+        _vector = KeySearch.create(machine);
+        _text = new int[length];
+        _crib = new int[length];
+        for (int k = 0; k < length; k++) {
+            _text[k] = random.nextInt(26);
+            _crib[k] = random.nextInt(26);
+        }
+        _settings = new int[rotors - 1][CANDIDATES];
+        _scalar.enumerate(0, CANDIDATES, _settings);
+        _scores = new int[CANDIDATES];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CANDIDATES)
+    public int[] scalar() {
+        _scalar.score(_text, _crib, _settings, _scores);
+        return _scores;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CANDIDATES)
+    public int[] vector() {
+        _vector.score(_text, _crib, _settings, _scores);
+        return _scores;
+    }
+
+    /**
+     * Search evaluating one candidate at a time.
+     */
+    private KeySearch _scalar;
+
+    /**
+     * Search evaluating one candidate per lane where the platform allows.
+     */
+    private KeySearch _vector;
+
+    /**
+     * The message, and the crib it is scored against.
+     */
+    private int[] _text, _crib;
+
+    /**
+     * The candidate settings.
+     */
+    private int[][] _settings;
+
+    /**
+     * Where scores go.
+     */
+    private int[] _scores;
+
+}
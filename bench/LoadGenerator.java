@@ -0,0 +1,515 @@
+package enigma;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import static enigma.EnigmaException.error;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * End-to-end load generator for Main.  Writes a configuration file and a
+ * synthetic input corpus to a local directory, runs Main on them several
+ * times in this JVM, and reports throughput, peak heap and GC pauses for
+ * each run, then latency percentiles for converting each section (a
+ * setting line and the message lines after it).  Needs no network.
+ *
+ * @author Shreyansh Loharuka
+ */
+public final class LoadGenerator {
+
+    /**
+     * Generate and measure as specified by ARGS, which are options of the
+     * form --NAME=VALUE (see usage()), optionally followed by "--" and
+     * options to pass to Main, such as --mmap or --parallel=4.
+     */
+    public static void main(String... args) {
+        try {
+            new LoadGenerator(args).run();
+        } catch (EnigmaException | IOException excp) {
+            System.err.printf("Error: %s%n", excp.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * A load generator configured by ARGS (see main).
+     */
+    LoadGenerator(String[] args) throws IOException {
+        int k;
+        for (k = 0; k < args.length && !args[k].equals("--"); k++) {
+            String arg = args[k];
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw error("Bad option %s%n%s", arg, usage());
+            }
+            String value = arg.substring(eq + 1);
+            switch (arg.substring(2, eq)) {
+            case "size":
+                _size = bytes(value);
+                break;
+            case "line":
+                _lineLength = positive(value, arg);
+                break;
+            case "every":
+                _linesPerSection = positive(value, arg);
+                break;
+            case "alphabet":
+                _alphabetSize = positive(value, arg);
+                break;
+            case "rotors":
+                _rotors = positive(value, arg);
+                break;
+            case "plugs":
+                _plugs = Integer.parseInt(value);
+                break;
+            case "runs":
+                _runs = positive(value, arg);
+                break;
+            case "seed":
+                _seed = Long.parseLong(value);
+                break;
+            case "dir":
+                _dir = Paths.get(value);
+                break;
+            default:
+                throw error("Unknown option %s%n%s", arg, usage());
+            }
+        }
+        _mainOptions = k < args.length
+                ? Arrays.copyOfRange(args, k + 1, args.length)
+                : new String[0];
+        if (_alphabetSize % 2 != 0 || _alphabetSize > MAX_ALPHABET) {
+            throw error("Alphabet size must be even and at most %d",
+                    MAX_ALPHABET);
+        }
+        if (_rotors < 2 || 2 * _plugs > _alphabetSize) {
+            throw error("Need at least 2 rotors and at most %d plugs",
+                    _alphabetSize / 2);
+        }
+        if (_dir == null) {
+            _dir = Files.createTempDirectory("enigma-load");
+        }
+        Files.createDirectories(_dir);
+    }
+
+    /**
+     * Return a description of the options.
+     */
+    static String usage() {
+        return "Options: --size=BYTES[K|M|G] --line=CHARS --every=LINES"
+                + " --alphabet=N --rotors=N --plugs=PAIRS --runs=N"
+                + " --seed=N --dir=PATH [-- MAIN-OPTIONS]";
+    }
+
+    /**
+     * Return the byte count SPEC, which may end in K, M or G.
+     */
+    private static long bytes(String spec) {
+        long scale = 1;
+        String digits = spec.toUpperCase();
+        if (digits.endsWith("K")) {
+            scale = 1L << 10;
+        } else if (digits.endsWith("M")) {
+            scale = 1L << 20;
+        } else if (digits.endsWith("G")) {
+            scale = 1L << 30;
+        }
+        if (scale != 1) {
+            digits = digits.substring(0, digits.length() - 1);
+        }
+        try {
+            return Long.parseLong(digits) * scale;
+        } catch (NumberFormatException excp) {
+            throw error("Bad size %s", spec);
+        }
+    }
+
+    /**
+     * Return VALUE, the value of option ARG, as a positive int.
+     */
+    private static int positive(String value, String arg) {
+        try {
+            int n = Integer.parseInt(value);
+            if (n > 0) {
+                return n;
+            }
+        } catch (NumberFormatException excp) {
+            /* Reported below. */
+        }
+        throw error("Bad value in %s", arg);
+    }
+
+    /**
+     * Generate the files, then measure.
+     */
+    void run() throws IOException {
+        Path config = _dir.resolve("load.conf");
+        Path input = _dir.resolve("load.in");
+        Path output = _dir.resolve("load.out");
+        long start = System.nanoTime();
+        this.generate(config, input);
+        System.out.printf("Generated %d bytes in %d sections in %.3f s"
+                + " (alphabet %d, %d rotors, %d plugs) under %s%n",
+                Files.size(input), _sections,
+                (System.nanoTime() - start) / 1e9, _alphabetSize, _rotors,
+                _plugs, _dir);
+        Files.write(output, new byte[0]);
+
+        String[] mainArgs = Arrays.copyOf(_mainOptions,
+                _mainOptions.length + 3);
+        mainArgs[_mainOptions.length] = config.toString();
+        mainArgs[_mainOptions.length + 1] = input.toString();
+        mainArgs[_mainOptions.length + 2] = output.toString();
+        System.out.printf("Main %s%n", String.join(" ", mainArgs));
+        for (int r = 1; r <= _runs; r++) {
+            this.measure(r, mainArgs, Files.size(input));
+        }
+        this.sectionLatencies(config, input, output);
+    }
+
+    /**
+     * Write a configuration file to CONFIG and a corpus to INPUT.
+     */
+    private void generate(Path config, Path input) throws IOException {
+        Random random = new Random(_seed);
+        Alphabet alpha = BenchSupport.alphabet(_alphabetSize);
+        int moving = 2 * (_rotors - 1);
+        try (PrintWriter out = new PrintWriter(
+                Files.newBufferedWriter(config))) {
+            out.println(alpha.chars());
+            out.printf("%d %d%n", _rotors, _rotors - 1);
+            out.printf("R R %s%n",
+                    BenchSupport.randomPairs(alpha, _alphabetSize / 2,
+                            random));
+            for (int i = 1; i <= moving; i++) {
+                out.printf("M%d M%c %s%n", i,
+                        alpha.toChar(random.nextInt(_alphabetSize)),
+                        BenchSupport.randomCycles(alpha, random));
+            }
+        }
+        long written = 0;
+        _sections = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(input)) {
+            while (written < _size) {
+                String setting = this.settingLine(alpha, moving, random);
+                out.write(setting);
+                out.newLine();
+                written += setting.length() + 1;
+                _sections += 1;
+                for (int i = 0; i < _linesPerSection && written < _size;
+                     i++) {
+                    String line = this.messageLine(alpha, random);
+                    out.write(line);
+                    out.newLine();
+                    written += line.length() + 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Return a random setting line for ALPHA, using some of the MOVING
+     * moving rotors, drawn from RANDOM.
+     */
+    private String settingLine(Alphabet alpha, int moving, Random random) {
+        StringBuilder line = new StringBuilder("* R");
+        boolean[] used = new boolean[moving + 1];
+        for (int i = 1; i < _rotors; i++) {
+            int m;
+            do {
+                m = 1 + random.nextInt(moving);
+            } while (used[m]);
+            used[m] = true;
+            line.append(" M").append(m);
+        }
+        line.append(' ');
+        for (int i = 1; i < _rotors; i++) {
+            line.append(alpha.toChar(random.nextInt(_alphabetSize)));
+        }
+        line.append(' ');
+        for (int i = 1; i < _rotors; i++) {
+            line.append(alpha.toChar(random.nextInt(_alphabetSize)));
+        }
+        if (_plugs > 0) {
+            line.append(' ').append(
+                    BenchSupport.randomPairs(alpha, _plugs, random).trim());
+        }
+        return line.toString();
+    }
+
+    /**
+     * Return a random message line for ALPHA drawn from RANDOM, with a
+     * space about every six characters.
+     */
+    private String messageLine(Alphabet alpha, Random random) {
+        char[] line = new char[_lineLength];
+        for (int i = 0; i < line.length; i++) {
+            if (i > 0 && i < line.length - 1 && random.nextInt(6) == 0) {
+                line[i] = ' ';
+            } else {
+                line[i] = alpha.toChar(random.nextInt(_alphabetSize));
+            }
+        }
+        return new String(line);
+    }
+
+    /**
+     * Run Main with ARGS as run number RUN, on an input of INPUTBYTES
+     * bytes, and report its throughput, peak heap and GC pauses, or the
+     * error that stopped it.
+     */
+    private void measure(int run, String[] args, long inputBytes) {
+        System.gc();
+        for (MemoryPoolMXBean pool
+                 : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        GcMonitor gc = new GcMonitor();
+        long start = System.nanoTime();
+        try {
+            new Main(args).process();
+        } catch (EnigmaException excp) {
+            gc.stop();
+            System.out.printf("run %d: failed after %.3f s: %s%n", run,
+                    (System.nanoTime() - start) / 1e9, excp.getMessage());
+            return;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        gc.stop();
+        long peak = 0;
+        for (MemoryPoolMXBean pool
+                 : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        System.out.printf("run %d: %.3f s, %.1f MB/s, peak heap %.1f MB,"
+                + " %d GC pauses (%d ms total, %d ms max)%n", run, seconds,
+                inputBytes / 1e6 / Math.max(seconds, 1e-9), peak / 1e6,
+                gc.count(), gc.totalMillis(), gc.maxMillis());
+    }
+
+    /**
+     * Convert INPUT with the configuration in CONFIG, one section at a
+     * time, writing to OUTPUT, and report percentiles of the time taken
+     * by each section.  Reading INPUT is not timed.
+     */
+    private void sectionLatencies(Path config, Path input, Path output)
+        throws IOException {
+        Main main = new Main(new String[]{config.toString()});
+        ArrayList<Long> times = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(input);
+             FileChannel out = FileChannel.open(output, WRITE, CREATE,
+                     TRUNCATE_EXISTING)) {
+            MessageProcessor processor =
+                    new MessageProcessor(main, main.readConfig(), out);
+            StringBuilder section = new StringBuilder();
+            for (String line = in.readLine(); ; line = in.readLine()) {
+                if ((line == null || line.startsWith("*"))
+                        && section.length() > 0) {
+                    long start = System.nanoTime();
+                    processor.process(CharBuffer.wrap(section));
+                    times.add(System.nanoTime() - start);
+                    section.setLength(0);
+                }
+                if (line == null) {
+                    break;
+                }
+                section.append(line).append('\n');
+            }
+            processor.finish();
+        }
+        long[] sorted = new long[times.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = times.get(i);
+        }
+        Arrays.sort(sorted);
+        System.out.printf("section latency over %d sections: p50 %.3f ms,"
+                + " p90 %.3f ms, p99 %.3f ms, max %.3f ms%n", sorted.length,
+                percentile(sorted, 50), percentile(sorted, 90),
+                percentile(sorted, 99), percentile(sorted, 100));
+    }
+
+    /**
+     * Return the P-th percentile of SORTED, in milliseconds.
+     */
+    private static double percentile(long[] sorted, int p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int k = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, k)] / 1e6;
+    }
+
+    /**
+     * Records the pauses of every garbage collector between its creation
+     * and stop().
+     */
+    private static class GcMonitor implements NotificationListener {
+
+        /**
+         * A monitor listening to all garbage collectors.
+         */
+        GcMonitor() {
+            for (GarbageCollectorMXBean bean
+                     : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (bean instanceof NotificationEmitter) {
+                    ((NotificationEmitter) bean)
+                            .addNotificationListener(this, null, null);
+                }
+            }
+        }
+
+        /**
+         * Stop listening.
+         */
+        void stop() {
+            for (GarbageCollectorMXBean bean
+                     : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (bean instanceof NotificationEmitter) {
+                    try {
+                        ((NotificationEmitter) bean)
+                                .removeNotificationListener(this);
+                    } catch (ListenerNotFoundException excp) {
+                        continue;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public synchronized void handleNotification(Notification note,
+                                                    Object handback) {
+            if (note.getType().equals(GarbageCollectionNotificationInfo
+                    .GARBAGE_COLLECTION_NOTIFICATION)) {
+                long millis = GarbageCollectionNotificationInfo
+                        .from((CompositeData) note.getUserData())
+                        .getGcInfo().getDuration();
+                _count += 1;
+                _total += millis;
+                _max = Math.max(_max, millis);
+            }
+        }
+
+        /**
+         * Return the number of pauses seen.
+         */
+        synchronized int count() {
+            return _count;
+        }
+
+        /**
+         * Return the total length of the pauses seen, in milliseconds.
+         */
+        synchronized long totalMillis() {
+            return _total;
+        }
+
+        /**
+         * Return the longest pause seen, in milliseconds.
+         */
+        synchronized long maxMillis() {
+            return _max;
+        }
+
+        /**
+         * Number of pauses seen.
+         */
+        private int _count;
+
+        /**
+         * Total length of the pauses seen, in milliseconds.
+         */
+        private long _total;
+
+        /**
+         * Longest pause seen, in milliseconds.
+         */
+        private long _max;
+
+    }
+
+    /**
+     * Largest alphabet whose characters are all printable ASCII.
+     */
+    static final int MAX_ALPHABET = 90;
+
+    /**
+     * Approximate size of the corpus, in bytes.
+     */
+    private long _size = 64L << 20;
+
+    /**
+     * Number of characters in each message line.
+     */
+    private int _lineLength = 80;
+
+    /**
+     * Number of message lines after each setting line.
+     */
+    private int _linesPerSection = 1000;
+
+    /**
+     * Number of characters in the alphabet.
+     */
+    private int _alphabetSize = 26;
+
+    /**
+     * Number of rotor slots, including the reflector.
+     */
+    private int _rotors = 5;
+
+    /**
+     * Number of plugboard swaps in each setting line.
+     */
+    private int _plugs = 10;
+
+    /**
+     * Number of times Main is run.
+     */
+    private int _runs = 3;
+
+    /**
+     * Seed of the Random generating the files.
+     */
+    private long _seed = 42;
+
+    /**
+     * Directory holding the generated files.
+     */
+    private Path _dir;
+
+    /**
+     * Options passed to Main.
+     */
+    private final String[] _mainOptions;
+
+    /**
+     * Number of sections generated.
+     */
+    private int _sections;
+
+}
@@ -0,0 +1,131 @@
+package enigma;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.CharBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of Machine.convert, one character at a time and a message
+ * at a time, across alphabet sizes, rotor counts and plugboard sizes.
+ * Scores are in nanoseconds per character.
+ *
+ * @author Shreyansh Loharuka
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MachineBench {
+
+    /**
+     * Number of characters in the alphabet (even).
+     */
+    @Param({"26", "64", "256"})
+    public int size;
+
+    /**
+     * Number of rotor slots, including the reflector.
+     */
+    @Param({"3", "5", "8"})
+    public int rotors;
+
+    /**
+     * Number of plugboard swaps.
+     */
+    @Param({"0", "10"})
+    public int pairs;
+
+    /**
+     * Build the machine and the inputs fed to it.
+     */
+    @Setup
+    public void setup() {
+        _machine = BenchSupport.machine(size, rotors, pairs, 3);
+        Random random = new Random(4);
+        _message = BenchSupport.randomMessage(_machine.alphabet(),
+                MESSAGE_LENGTH, random);
+        _source = CharBuffer.wrap(_message);
+        _target = CharBuffer.allocate(MESSAGE_LENGTH);
+        _ints = new int[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            _ints[i] = random.nextInt(size);
+        }
+    }
+
+    @Benchmark
+    public int convertInt() {
+        _k = (_k + 1) & (INPUTS - 1);
+        return _machine.convert(_ints[_k]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGE_LENGTH)
+    public String convertString() {
+        return _machine.convert(_message);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGE_LENGTH)
+    public CharBuffer convertCharBuffer() {
+        _source.rewind();
+        _target.clear();
+        _machine.convert(_source, _target);
+        return _target;
+    }
+
+    /**
+     * Length of the message converted by convertString.
+     */
+    static final int MESSAGE_LENGTH = 4096;
+
+    /**
+     * Number of distinct inputs to convertInt, a power of two.
+     */
+    private static final int INPUTS = 1024;
+
+    /**
+     * The machine measured.
+     */
+    private Machine _machine;
+
+    /**
+     * Message converted by convertString.
+     */
+    private String _message;
+
+    /**
+     * _message as a buffer, converted by convertCharBuffer.
+     */
+    private CharBuffer _source;
+
+    /**
+     * Where convertCharBuffer puts its result.
+     */
+    private CharBuffer _target;
+
+    /**
+     * Inputs to convertInt.
+     */
+    private int[] _ints;
+
+    /**
+     * Index of the last input used.
+     */
+    private int _k;
+
+}
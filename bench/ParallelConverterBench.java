@@ -0,0 +1,100 @@
+package enigma;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of converting one long message with a ParallelConverter,
+ * across chunk sizes and pool sizes.  Scores are in characters per
+ * second; the speedup of a pool is its score over that of the pool of
+ * parallelism 1 with the same chunk size.
+ *
+ * @author Shreyansh Loharuka
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelConverterBench {
+
+    /**
+     * Number of characters given to each task.
+     */
+    @Param({"16384", "262144", "1048576"})
+    public int chunk;
+
+    /**
+     * Number of threads of the pool.
+     */
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    /**
+     * Build the machine, the message and the pool.
+     */
+    @Setup
+    public void setup() {
+        _machine = BenchSupport.machine(26, 5, 10, 8);
+        _message = BenchSupport.randomMessage(_machine.alphabet(),
+                MESSAGE_LENGTH, new Random(8));
+        _pool = new ForkJoinPool(parallelism);
+        _converter = new ParallelConverter(_pool, chunk);
+    }
+
+    /**
+     * Stop the threads of the pool.
+     */
+    @TearDown
+    public void tearDown() {
+        _pool.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGE_LENGTH)
+    public String convert() {
+        return _converter.convert(_machine, _message);
+    }
+
+    /**
+     * Length of the message converted.
+     */
+    static final int MESSAGE_LENGTH = 1 << 23;
+
+    /**
+     * The machine measured.
+     */
+    private Machine _machine;
+
+    /**
+     * Message converted.
+     */
+    private String _message;
+
+    /**
+     * Pool running the conversions.
+     */
+    private ForkJoinPool _pool;
+
+    /**
+     * Converter using _pool.
+     */
+    private ParallelConverter _converter;
+
+}
@@ -0,0 +1,107 @@
+package enigma;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of Permutation.permute and Permutation.invert.
+ *
+ * @author Shreyansh Loharuka
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermutationBench {
+
+    /**
+     * Number of characters in the alphabet.
+     */
+    @Param({"26", "64", "256"})
+    public int size;
+
+    /**
+     * Build the permutation and the inputs fed to it.
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        Alphabet alpha = BenchSupport.alphabet(size);
+        _perm = new Permutation(BenchSupport.randomCycles(alpha, random),
+                alpha);
+        _chars = new char[INPUTS];
+        _ints = new int[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            _ints[i] = random.nextInt(size);
+            _chars[i] = alpha.toChar(_ints[i]);
+        }
+    }
+
+    @Benchmark
+    public int permuteInt() {
+        return _perm.permute(_ints[next()]);
+    }
+
+    @Benchmark
+    public int invertInt() {
+        return _perm.invert(_ints[next()]);
+    }
+
+    @Benchmark
+    public char permuteChar() {
+        return _perm.permute(_chars[next()]);
+    }
+
+    @Benchmark
+    public char invertChar() {
+        return _perm.invert(_chars[next()]);
+    }
+
+    /**
+     * Return the index of the next input.
+     */
+    private int next() {
+        _k = (_k + 1) & (INPUTS - 1);
+        return _k;
+    }
+
+    /**
+     * Number of distinct inputs, a power of two.
+     */
+    private static final int INPUTS = 1024;
+
+    /**
+     * The permutation measured.
+     */
+    private Permutation _perm;
+
+    /**
+     * Inputs as indices.
+     */
+    private int[] _ints;
+
+    /**
+     * Inputs as characters.
+     */
+    private char[] _chars;
+
+    /**
+     * Index of the last input used.
+     */
+    private int _k;
+
+}
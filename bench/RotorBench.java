@@ -0,0 +1,110 @@
+package enigma;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of Rotor.convertForward and Rotor.convertBackward, with and
+ * without precomputed tables, and of MovingRotor.atNotch and
+ * MovingRotor.advance.
+ *
+ * @author Shreyansh Loharuka
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RotorBench {
+
+    /**
+     * Number of characters in the alphabet.
+     */
+    @Param({"26", "64", "256"})
+    public int size;
+
+    /**
+     * Whether the rotor uses per-position tables.
+     */
+    @Param({"true", "false"})
+    public boolean precomputed;
+
+    /**
+     * Build the rotor and the inputs fed to it.
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(2);
+        Alphabet alpha = BenchSupport.alphabet(size);
+        _rotor = new MovingRotor("M", new Permutation(
+                BenchSupport.randomCycles(alpha, random), alpha),
+                String.valueOf(alpha.toChar(size - 1)));
+        if (precomputed) {
+            _rotor.precompute();
+        }
+        _rotor.set(random.nextInt(size));
+        _rotor.setOffSet(random.nextInt(size));
+        _ints = new int[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            _ints[i] = random.nextInt(size);
+        }
+    }
+
+    @Benchmark
+    public int convertForward() {
+        return _rotor.convertForward(_ints[next()]);
+    }
+
+    @Benchmark
+    public int convertBackward() {
+        return _rotor.convertBackward(_ints[next()]);
+    }
+
+    @Benchmark
+    public boolean advanceAndCheckNotch() {
+        _rotor.advance();
+        return _rotor.atNotch();
+    }
+
+    /**
+     * Return the index of the next input.
+     */
+    private int next() {
+        _k = (_k + 1) & (INPUTS - 1);
+        return _k;
+    }
+
+    /**
+     * Number of distinct inputs, a power of two.
+     */
+    private static final int INPUTS = 1024;
+
+    /**
+     * The rotor measured.
+     */
+    private MovingRotor _rotor;
+
+    /**
+     * Inputs as indices.
+     */
+    private int[] _ints;
+
+    /**
+     * Index of the last input used.
+     */
+    private int _k;
+
+}
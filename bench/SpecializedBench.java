@@ -0,0 +1,120 @@
+package enigma;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of a converter specialized to one machine by a Specializer
+ * against the generic Machine and CompiledMachine it must agree with,
+ * for 3-, 4- and 5-slot machines.  Scores are in nanoseconds per
+ * character.
+ *
+ * @author Shreyansh Loharuka
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpecializedBench {
+
+    /**
+     * Number of rotor slots, including the reflector.
+     */
+    @Param({"3", "4", "5"})
+    public int rotors;
+
+    /**
+     * Number of characters in the alphabet (even).
+     */
+    @Param({"26"})
+    public int size;
+
+    /**
+     * Build the engines and the message fed to them.
+     */
+    @Setup
+    public void setup() {
+        _machine = BenchSupport.machine(size, rotors, 10, 3);
+        _compiled = _machine.compile();
+        Specializer specializer = new Specializer(_machine);
+        if (!specializer.specialized()) {
+            throw new IllegalStateException(specializer.failure());
+        }
+        _specialized = specializer.newConverter();
+        Random random = new Random(4);
+        _message = new int[MESSAGE_LENGTH];
+        for (int i = 0; i < MESSAGE_LENGTH; i++) {
+            _message[i] = random.nextInt(size);
+        }
+        _output = new int[MESSAGE_LENGTH];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGE_LENGTH)
+    public int[] generic() {
+        for (int i = 0; i < MESSAGE_LENGTH; i++) {
+            _output[i] = _machine.convert(_message[i]);
+        }
+        return _output;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGE_LENGTH)
+    public int[] compiled() {
+        _compiled.convert(_message, 0, MESSAGE_LENGTH, _output);
+        return _output;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGE_LENGTH)
+    public int[] specialized() {
+        _specialized.convert(_message, 0, MESSAGE_LENGTH, _output);
+        return _output;
+    }
+
+    /**
+     * Number of characters converted by each benchmark call.
+     */
+    static final int MESSAGE_LENGTH = 4096;
+
+    /**
+     * The generic machine.
+     */
+    private Machine _machine;
+
+    /**
+     * An engine compiled from _machine.
+     */
+    private CompiledMachine _compiled;
+
+    /**
+     * A converter specialized to _machine.
+     */
+    private Converter _specialized;
+
+    /**
+     * Message converted by each benchmark.
+     */
+    private int[] _message;
+
+    /**
+     * Where converted messages go.
+     */
+    private int[] _output;
+
+}
@@ -0,0 +1,217 @@
+package enigma;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import static enigma.EnigmaException.error;
+
+/**
+ * A KeySearch that evaluates as many candidates at once as the
+ * platform's preferred integer vectors have lanes, one candidate per
+ * lane.  Rotor positions are vectors, stepping is done under masks, and
+ * each pass through a rotor is a gather from that rotor's wiring, so
+ * every lane follows its own candidate while running the same
+ * instructions.  Candidates left over after the last full vector are
+ * evaluated one at a time.  Requires the jdk.incubator.vector module,
+ * so it is built apart from the other classes, by 'make vector', and
+ * KeySearch.create loads it by name.
+ *
+ * @author Shreyansh Loharuka
+ */
+final class VectorKeySearch extends KeySearch {
+
+    /**
+     * A search over settings of MACHINE, as for KeySearch.
+     */
+    VectorKeySearch(Machine machine) {
+        super(machine);
+        if (!supported()) {
+            throw error("Vectors of %d lanes are too narrow for a search",
+                    SPECIES.length());
+        }
+        _tables = tables();
+        _size = alphabetSize();
+        _slots = numRotors();
+        _reflectorPosition = reflectorPosition();
+        boolean[] notch = _tables.notch();
+        _notch = new int[notch.length];
+        for (int k = 0; k < notch.length; k++) {
+            _notch[k] = notch[k] ? 1 : 0;
+        }
+        _index = new int[SPECIES.length()];
+        _positions = new IntVector[_slots];
+        _shifts = new IntVector[_slots];
+    }
+
+    /**
+     * Return true iff the platform's vectors hold at least MIN_LANES
+     * integers, so that evaluating candidates in lanes pays.
+     */
+    private static boolean supported() {
+        return SPECIES.length() >= MIN_LANES;
+    }
+
+    @Override
+    int lanes() {
+        return SPECIES.length();
+    }
+
+    @Override
+    void score(int[] text, int[] crib, int[][] settings, int from,
+               int to, int[] scores) {
+        int j = from;
+        for (; j + SPECIES.length() <= to; j += SPECIES.length()) {
+            scoreLanes(text, crib, settings, j, scores);
+        }
+        super.score(text, crib, settings, j, to, scores);
+    }
+
+    /**
+     * Store in SCORES the scores of the candidates in SETTINGS starting
+     * at J, one per lane.
+     */
+    private void scoreLanes(int[] text, int[] crib, int[][] settings,
+                            int j, int[] scores) {
+        for (int i = 0; i < _slots; i++) {
+            _positions[i] = i == 0
+                    ? IntVector.broadcast(SPECIES, _reflectorPosition)
+                    : IntVector.fromArray(SPECIES, settings[i - 1], j);
+            _shifts[i] = wrapBelow(_positions[i].sub(_tables.offset(i)));
+        }
+        IntVector score = IntVector.zero(SPECIES);
+        for (int k = 0; k < text.length; k++) {
+            step();
+            if (crib[k] < 0) {
+                continue;
+            }
+            IntVector c = IntVector.broadcast(SPECIES,
+                    _tables.plugForward()[text[k]]);
+            for (int i = _slots - 1; i >= 0; i--) {
+                c = through(_tables.forward(), i, c);
+            }
+            for (int i = 1; i < _slots; i++) {
+                c = through(_tables.backward(), i, c);
+            }
+            c = gather(_tables.plugBackward(), 0, c);
+            score = score.add(1, c.compare(VectorOperators.EQ, crib[k]));
+        }
+        score.intoArray(scores, j);
+    }
+
+    /**
+     * Advance the rotors of every lane as the machine does before each
+     * character.  Slots are visited left to right, so that every test
+     * sees the positions from before this step.
+     */
+    private void step() {
+        final int n = _size;
+        final int last = _slots - 1;
+        for (int i = 1; i <= last; i++) {
+            if (!_tables.rotates()[i]) {
+                continue;
+            }
+            VectorMask<Integer> move;
+            if (i == last) {
+                move = SPECIES.maskAll(true);
+            } else {
+                move = gather(_notch, (i + 1) * n, _positions[i + 1])
+                        .compare(VectorOperators.NE, 0);
+                if (_tables.doubleSteps()[i]) {
+                    move = move.or(gather(_notch, i * n, _positions[i])
+                            .compare(VectorOperators.NE, 0));
+                }
+            }
+            _positions[i] = wrapAbove(_positions[i].add(1, move));
+            _shifts[i] = wrapAbove(_shifts[i].add(1, move));
+        }
+    }
+
+    /**
+     * Return the conversions of the lanes of C by slot I using WIRING, my
+     * forward or backward wiring, at each lane's shift.
+     */
+    private IntVector through(int[] wiring, int i, IntVector c) {
+        IntVector x = _shifts[i];
+        IntVector k = wrapAbove(c.add(x));
+        return wrapBelow(gather(wiring, i * _size, k).sub(x));
+    }
+
+    /**
+     * Return the lanes of V, which lie in 0 .. 2 * size - 1, reduced
+     * modulo the size of my alphabet.
+     */
+    private IntVector wrapAbove(IntVector v) {
+        return v.sub(_size, v.compare(VectorOperators.GE, _size));
+    }
+
+    /**
+     * Return the lanes of V, which lie in -size .. size - 1, reduced
+     * modulo the size of my alphabet.
+     */
+    private IntVector wrapBelow(IntVector v) {
+        return v.add(_size, v.compare(VectorOperators.LT, 0));
+    }
+
+    /**
+     * Return the vector of TABLE[OFFSET + k] for the lanes k of INDEX.
+     */
+    private IntVector gather(int[] table, int offset, IntVector index) {
+        index.intoArray(_index, 0);
+        return IntVector.fromArray(SPECIES, table, offset, _index, 0);
+    }
+
+    /**
+     * The shape of the vectors I use.
+     */
+    private static final VectorSpecies<Integer> SPECIES =
+            IntVector.SPECIES_PREFERRED;
+
+    /**
+     * Fewest lanes for which I am used instead of scalar code.
+     */
+    private static final int MIN_LANES = 4;
+
+    /**
+     * Wirings, notches, ring settings and plugboard of my machine.
+     */
+    private final RotorTables _tables;
+
+    /**
+     * Size of the alphabet.
+     */
+    private final int _size;
+
+    /**
+     * Number of rotor slots.
+     */
+    private final int _slots;
+
+    /**
+     * Position of the reflector, which no candidate changes.
+     */
+    private final int _reflectorPosition;
+
+    /**
+     * _notch[i * _size + k] is 1 if slot i has a notch at k, else 0, so
+     * that notches can be gathered.
+     */
+    private final int[] _notch;
+
+    /**
+     * Indices of the gather in progress.
+     */
+    private final int[] _index;
+
+    /**
+     * Current setting of each slot, one candidate per lane.
+     */
+    private final IntVector[] _positions;
+
+    /**
+     * Current setting minus ring setting of each slot, per lane.
+     */
+    private final IntVector[] _shifts;
+
+}